@@ -0,0 +1,97 @@
+#!/usr/bin/env bash
+# Time to first request and resident set size for each startup mode, median of RUNS starts.
+#   classic  java -jar on the boot jar
+#   aot      extracted jar with the AOT bean definitions (-Dspring.aot.enabled=true)
+#   cds      extracted jar with the class data sharing archive
+#   aot-cds  both; what the Docker image runs
+#   native   GraalVM native image
+# Build first: ./gradlew bootJar cdsArchive, and ./gradlew nativeCompile -Pnative for native.
+# Use the JDK that recorded the archive (JAVA_HOME), or the JVM ignores it.
+# Usage: scripts/measure-startup.sh [mode...]   (RUNS=5 PORT=9190 by default)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${RUNS:-5}
+PORT=${PORT:-9190}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+CDS_DIR=$PWD/build/cds
+NATIVE=$PWD/build/native/nativeCompile/musicman
+BOOT_JAR=$(ls build/libs/*.jar 2>/dev/null | grep -v plain | head -n 1 || true)
+
+# Placeholders only: startup never calls Spotify
+export SPOTIFY_CLIENT_ID=${SPOTIFY_CLIENT_ID:-startup-test}
+export SPOTIFY_CLIENT_SECRET=${SPOTIFY_CLIENT_SECRET:-startup-test}
+export SPOTIFY_REDIRECT_URI=${SPOTIFY_REDIRECT_URI:-http://127.0.0.1:$PORT/login/oauth2/code/spotify}
+export SERVER_PORT=$PORT
+# Actuator has its own loopback port; readiness is probed on the app port through /livez
+export MANAGEMENT_SERVER_PORT=$((PORT + 1))
+
+command_for() {
+    case $1 in
+        classic) echo "$JAVA -jar $BOOT_JAR" ;;
+        aot)     echo "$JAVA -Dspring.aot.enabled=true -jar $CDS_DIR/app.jar" ;;
+        cds)     echo "$JAVA -XX:SharedArchiveFile=$CDS_DIR/app.jsa -jar $CDS_DIR/app.jar" ;;
+        aot-cds) echo "$JAVA -XX:SharedArchiveFile=$CDS_DIR/app.jsa -Dspring.aot.enabled=true -jar $CDS_DIR/app.jar" ;;
+        native)  echo "$NATIVE" ;;
+        *) echo "Unknown mode $1" >&2; exit 1 ;;
+    esac
+}
+
+available() {
+    case $1 in
+        classic) [ -n "$BOOT_JAR" ] ;;
+        aot) [ -f "$CDS_DIR/app.jar" ] ;;
+        cds|aot-cds) [ -f "$CDS_DIR/app.jsa" ] ;;
+        native) [ -x "$NATIVE" ] ;;
+    esac
+}
+
+now_ms() {
+    date +%s%3N
+}
+
+rss_kb() {
+    if [ -r "/proc/$1/status" ]; then
+        awk '/^VmRSS:/ { print $2 }' "/proc/$1/status"
+    else
+        ps -o rss= -p "$1" | tr -d ' '
+    fi
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+# Prints "<ms to first 200 from /livez> <RSS in KB after it>"
+measure_once() {
+    local started pid elapsed rss
+    started=$(now_ms)
+    $(command_for "$1") >"build/startup-$1.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://127.0.0.1:$PORT/livez"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "[STARTUP] $1 exited before serving a request, see build/startup-$1.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    elapsed=$(( $(now_ms) - started ))
+    rss=$(rss_kb "$pid")
+    kill "$pid" && wait "$pid" 2>/dev/null || true
+    echo "$elapsed $rss"
+}
+
+modes=("$@")
+[ ${#modes[@]} -gt 0 ] || modes=(classic aot cds aot-cds native)
+
+printf '%-8s %12s %10s\n' mode first-req-ms rss-mb
+for mode in "${modes[@]}"; do
+    if ! available "$mode"; then
+        printf '%-8s %12s %10s\n' "$mode" "not built" "-"
+        continue
+    fi
+    results=$(for _ in $(seq "$RUNS"); do measure_once "$mode"; done)
+    ms=$(cut -d' ' -f1 <<<"$results" | median)
+    kb=$(cut -d' ' -f2 <<<"$results" | median)
+    printf '%-8s %12s %10s\n' "$mode" "$ms" "$(( kb / 1024 ))"
+done
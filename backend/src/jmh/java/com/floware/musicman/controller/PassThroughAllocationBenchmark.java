@@ -0,0 +1,111 @@
+package com.floware.musicman.controller;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.util.StreamUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the buffered path (upstream body decoded to a String, then re-encoded by the
+ * String message converter) with the pass-through path as SpotifyController ships it: each
+ * DataBuffer copied to a byte[] on a bounded elastic worker and written by the byte array
+ * converter, as ResponseBodyEmitter.send does. Run with the gc profiler and compare
+ * gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PassThroughAllocationBenchmark {
+
+    // Roughly an album (~10 KB) and a search response (~40 KB)
+    @Param({"10240", "40960"})
+    private int payloadSize;
+
+    // Reactor Netty hands bodies over in chunks of about this size
+    private static final int CHUNK_SIZE = 8192;
+
+    private final StringDecoder decoder = StringDecoder.allMimeTypes();
+    private final OutputStream sink = OutputStream.nullOutputStream();
+    private final ByteArrayHttpMessageConverter converter = new ByteArrayHttpMessageConverter();
+    private final HttpOutputMessage response = new HttpOutputMessage() {
+        @Override
+        public OutputStream getBody() {
+            return sink;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+    };
+    private List<byte[]> chunks;
+
+    @Setup
+    public void setUp() {
+        byte[] payload = samplePayload(payloadSize).getBytes(StandardCharsets.UTF_8);
+        chunks = new ArrayList<>();
+        for (int offset = 0; offset < payload.length; offset += CHUNK_SIZE) {
+            byte[] chunk = new byte[Math.min(CHUNK_SIZE, payload.length - offset)];
+            System.arraycopy(payload, offset, chunk, 0, chunk.length);
+            chunks.add(chunk);
+        }
+    }
+
+    @Benchmark
+    public void bufferedString() throws IOException {
+        String body = decoder.decodeToMono(upstreamBody(), ResolvableType.forClass(String.class),
+                MediaType.APPLICATION_JSON, Collections.emptyMap()).block();
+        StreamUtils.copy(body, StandardCharsets.UTF_8, sink);
+    }
+
+    @Benchmark
+    public void passThrough() {
+        SpotifyController.chunksToWrite(upstreamBody())
+                .doOnNext(this::send)
+                .blockLast();
+    }
+
+    private void send(byte[] bytes) {
+        try {
+            converter.write(bytes, MediaType.APPLICATION_OCTET_STREAM, response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Flux<DataBuffer> upstreamBody() {
+        return Flux.fromIterable(chunks).map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    private static String samplePayload(int size) {
+        StringBuilder json = new StringBuilder("{\"albums\":{\"items\":[");
+        int i = 0;
+        while (json.length() < size) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"4aawyAB9vmqN3uQ7FjRGTy").append(i)
+                    .append("\",\"name\":\"Album ").append(i)
+                    .append("\",\"release_date\":\"2013-05-20\",\"total_tracks\":13,\"images\":[{\"url\":\"https://i.scdn.co/image/ab67616d0000b273")
+                    .append(Integer.toHexString(i)).append("\",\"height\":640,\"width\":640}]}");
+            i++;
+        }
+        return json.append("]}}").toString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.floware.musicman.controller;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Type validation done on every /spotify/search request
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchTypeFilterBenchmark {
+
+    @Param({"album,artist,track", " Artist , TRACK ", "playlist,show,episode"})
+    private String type;
+
+    @Benchmark
+    public List<String> filterSearchTypes() {
+        return SpotifyController.filterSearchTypes(type);
+    }
+}
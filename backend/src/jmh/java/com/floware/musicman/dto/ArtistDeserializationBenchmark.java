@@ -0,0 +1,63 @@
+package com.floware.musicman.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson binding of the /me/top/artists payload, including the unpackImageUrl and
+ * unpackGenre setters. Readers are built once, as Spring's codecs do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ArtistDeserializationBenchmark {
+
+    private ObjectReader artistReader;
+    private ObjectReader topArtistsReader;
+    private byte[] artistJson;
+    private byte[] topArtistsJson;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = new ObjectMapper();
+        artistReader = mapper.readerFor(ArtistDTO.class);
+        topArtistsReader = mapper.readerFor(new TypeReference<SpotifyResponse<ArtistDTO>>() {});
+        artistJson = artist(0).getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder page = new StringBuilder("{\"href\":\"https://api.spotify.com/v1/me/top/artists?limit=10\",\"items\":[");
+        for (int i = 0; i < 10; i++) {
+            page.append(i > 0 ? "," : "").append(artist(i));
+        }
+        page.append("],\"limit\":10,\"next\":null,\"offset\":0,\"previous\":null,\"total\":50}");
+        topArtistsJson = page.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ArtistDTO artist() throws IOException {
+        return artistReader.readValue(artistJson);
+    }
+
+    @Benchmark
+    public SpotifyResponse<ArtistDTO> topArtistsPage() throws IOException {
+        return topArtistsReader.readValue(topArtistsJson);
+    }
+
+    // Shaped like Spotify's artist object, unknown fields included
+    private static String artist(int i) {
+        return "{\"external_urls\":{\"spotify\":\"https://open.spotify.com/artist/0TnOYISbd1XYRBk9myas" + i + "\"},"
+                + "\"followers\":{\"href\":null,\"total\":" + (1_000_000 + i) + "},"
+                + "\"genres\":[\"french house\",\"electro\",\"filter house\"],"
+                + "\"href\":\"https://api.spotify.com/v1/artists/0TnOYISbd1XYRBk9myas" + i + "\","
+                + "\"id\":\"0TnOYISbd1XYRBk9myas" + i + "\","
+                + "\"images\":[{\"url\":\"https://i.scdn.co/image/ab6761610000e5eb" + i + "\",\"height\":640,\"width\":640},"
+                + "{\"url\":\"https://i.scdn.co/image/ab67616100005174" + i + "\",\"height\":320,\"width\":320}],"
+                + "\"name\":\"Artist " + i + "\",\"popularity\":" + (60 + i) + ",\"type\":\"artist\","
+                + "\"uri\":\"spotify:artist:0TnOYISbd1XYRBk9myas" + i + "\"}";
+    }
+}
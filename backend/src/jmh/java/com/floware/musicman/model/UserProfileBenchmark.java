@@ -0,0 +1,38 @@
+package com.floware.musicman.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Mapping the OAuth2 principal built from Spotify's /me response, as done for /spotify/me
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UserProfileBenchmark {
+
+    private OAuth2User principal;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> attributes = Map.of(
+                "id", "spotify123",
+                "display_name", "Test User",
+                "email", "test@example.com",
+                "country", "SE",
+                "product", "premium",
+                "images", List.of(
+                        Map.of("url", "https://i.scdn.co/image/ab67757000003b82", "height", 64, "width", 64),
+                        Map.of("url", "https://i.scdn.co/image/ab6775700000ee85", "height", 300, "width", 300)));
+        principal = new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("OAUTH2_USER")), attributes, "id");
+    }
+
+    @Benchmark
+    public UserProfile fromOAuth2User() {
+        return UserProfile.fromOAuth2User(principal);
+    }
+}
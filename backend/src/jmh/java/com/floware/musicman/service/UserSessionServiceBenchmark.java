@@ -0,0 +1,172 @@
+package com.floware.musicman.service;
+
+import com.floware.musicman.config.SessionProperties;
+import com.floware.musicman.config.SpotifyProperties;
+import com.floware.musicman.model.UserSession;
+import com.floware.musicman.session.InMemorySessionStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token lookups and session validation from many request threads at once. Sessions are far
+ * from expiry, so no refresh runs and the numbers show the read path alone. stdout is
+ * discarded inside the fork: the service's log lines are still formatted, but not written.
+ *
+ * refreshUnderContention covers the other path: many callers per user arrive at a session that
+ * is about to expire, against a token endpoint stubbed to take 50 ms. With one refresh per
+ * user, each round should take close to a single round trip. The refreshCalls and
+ * duplicateRefreshes counters report the stub's calls; duplicateRefreshes should stay at zero.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class UserSessionServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int sessions;
+
+    private UserSessionService userSessionService;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        SpotifyTokenClient tokenClient = new SpotifyTokenClient(
+                new StandardEnvironment(), WebClient.create(), new SpotifyProperties());
+        userSessionService = new UserSessionService(tokenClient, new SessionProperties(), new InMemorySessionStore(),
+                new SimpleMeterRegistry(), event -> {});
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        for (int i = 0; i < sessions; i++) {
+            userSessionService.storeUserSession("user" + i, "access" + i, "refresh" + i, expiresAt);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        userSessionService.stopExpiryDispatcher();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public String getAccessToken() {
+        return userSessionService.getAccessToken("user" + ThreadLocalRandom.current().nextInt(sessions));
+    }
+
+    @Benchmark
+    public boolean isValidSession() {
+        return userSessionService.isValidSession("user" + ThreadLocalRandom.current().nextInt(sessions));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Threads(1)
+    public void refreshUnderContention(Contention contention, RefreshCounts counts, Blackhole blackhole) throws Exception {
+        contention.round(counts, blackhole);
+    }
+
+    // Secondary results, per iteration
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RefreshCounts {
+        public long refreshCalls;
+        // Calls beyond one per user and round
+        public long duplicateRefreshes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            refreshCalls = 0;
+            duplicateRefreshes = 0;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Contention {
+
+        private static final int USERS = 20;
+        private static final int CALLERS_PER_USER = 16;
+
+        private final ConcurrentMap<String, AtomicInteger> refreshCalls = new ConcurrentHashMap<>();
+        private UserSessionService userSessionService;
+        private ExecutorService callers;
+
+        @Setup
+        public void setUp() {
+            SpotifyTokenClient tokenClient = new SpotifyTokenClient(
+                    new StandardEnvironment(), WebClient.create(), new SpotifyProperties()) {
+                @Override
+                public UserSession refresh(String refreshToken) {
+                    refreshCalls.computeIfAbsent(refreshToken, token -> new AtomicInteger()).incrementAndGet();
+                    try {
+                        Thread.sleep(50); // Simulated accounts.spotify.com round trip
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new UserSession("fresh", refreshToken, Instant.now().plusSeconds(3600));
+                }
+            };
+            // Sessions expire 30 s out; with the default 5 min refresh-ahead they would already be due for a
+            // background refresh. 10 s keeps every refresh on the callers' path.
+            SessionProperties properties = new SessionProperties();
+            properties.setRefreshAhead(Duration.ofSeconds(10));
+            userSessionService = new UserSessionService(tokenClient, properties, new InMemorySessionStore(),
+                    new SimpleMeterRegistry(), event -> {});
+            callers = Executors.newFixedThreadPool(USERS * CALLERS_PER_USER);
+        }
+
+        @TearDown
+        public void tearDown() {
+            callers.shutdownNow();
+            userSessionService.stopExpiryDispatcher();
+        }
+
+        // Every user's session is set to expire soon, then all callers ask for tokens at once
+        void round(RefreshCounts counts, Blackhole blackhole) throws Exception {
+            for (int u = 0; u < USERS; u++) {
+                userSessionService.storeUserSession("user" + u, "stale", "refresh" + u, Instant.now().plusSeconds(30));
+            }
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new ArrayList<>();
+            for (int u = 0; u < USERS; u++) {
+                String spotifyId = "user" + u;
+                for (int c = 0; c < CALLERS_PER_USER; c++) {
+                    results.add(callers.submit(() -> {
+                        start.await();
+                        return userSessionService.getAccessToken(spotifyId);
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                blackhole.consume(result.get());
+            }
+            for (int u = 0; u < USERS; u++) {
+                AtomicInteger calls = refreshCalls.get("refresh" + u);
+                int forUser = calls != null ? calls.getAndSet(0) : 0;
+                counts.refreshCalls += forUser;
+                counts.duplicateRefreshes += Math.max(0, forUser - 1);
+            }
+        }
+    }
+}
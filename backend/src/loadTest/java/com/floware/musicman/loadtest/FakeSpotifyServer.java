@@ -0,0 +1,179 @@
+package com.floware.musicman.loadtest;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.springframework.boot.convert.DurationStyle;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Local stand-in for api.spotify.com and accounts.spotify.com. Serves canned JSON for the
+ * endpoints the backend calls, after a configurable delay, and injects 500s and 429s at
+ * configurable rates. Plain HTTP, so the backend falls back to HTTP/1.1 against it.
+ */
+public class FakeSpotifyServer implements AutoCloseable {
+
+    private final Settings settings;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder injectedThrottles = new LongAdder();
+    private final LongAdder tokenRefreshes = new LongAdder();
+    private DisposableServer server;
+
+    public FakeSpotifyServer(Settings settings) {
+        this.settings = settings;
+    }
+
+    public FakeSpotifyServer start() {
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/v1/me/top/artists", (request, response) -> respond(response, FakeSpotifyServer::topArtists))
+                        .get("/v1/artists/{id}", (request, response) -> respond(response, () -> artist(request.param("id"))))
+                        .get("/v1/artists", (request, response) -> respond(response, () -> artists(queryParam(request, "ids"))))
+                        .get("/v1/search", (request, response) -> respond(response, () -> search(queryParam(request, "q"))))
+                        .post("/api/token", (request, response) -> {
+                            tokenRefreshes.increment();
+                            return request.receive().then(respond(response, FakeSpotifyServer::token));
+                        }))
+                .bindNow();
+        return this;
+    }
+
+    public String apiBaseUrl() {
+        return "http://localhost:" + server.port() + "/v1";
+    }
+
+    public String accountsBaseUrl() {
+        return "http://localhost:" + server.port();
+    }
+
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    public long injectedErrorCount() {
+        return injectedErrors.sum();
+    }
+
+    public long injectedThrottleCount() {
+        return injectedThrottles.sum();
+    }
+
+    public long tokenRefreshCount() {
+        return tokenRefreshes.sum();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    // Helpers
+
+    private Mono<Void> respond(HttpServerResponse response, Supplier<String> body) {
+        requests.increment();
+        return Mono.delay(settings.nextLatency())
+                .then(Mono.defer(() -> {
+                    double roll = ThreadLocalRandom.current().nextDouble();
+                    if (roll < settings.throttleRate()) {
+                        injectedThrottles.increment();
+                        return response.status(HttpResponseStatus.TOO_MANY_REQUESTS)
+                                .header("Retry-After", String.valueOf(settings.retryAfter().toSeconds()))
+                                .send()
+                                .then();
+                    }
+                    if (roll < settings.throttleRate() + settings.errorRate()) {
+                        injectedErrors.increment();
+                        return json(response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR),
+                                "{\"error\":{\"status\":500,\"message\":\"Injected failure\"}}");
+                    }
+                    return json(response, body.get());
+                }));
+    }
+
+    private Mono<Void> json(HttpServerResponse response, String body) {
+        return response.header("Content-Type", "application/json; charset=utf-8")
+                .sendString(Mono.just(body))
+                .then();
+    }
+
+    private static String queryParam(HttpServerRequest request, String name) {
+        List<String> values = new QueryStringDecoder(request.uri()).parameters().get(name);
+        return values == null || values.isEmpty() ? "" : values.get(0);
+    }
+
+    private static String artist(String id) {
+        int n = Math.abs(id.hashCode() % 1000);
+        return "{\"external_urls\":{\"spotify\":\"https://open.spotify.com/artist/" + id + "\"},"
+                + "\"followers\":{\"href\":null,\"total\":" + (10_000 + n) + "},"
+                + "\"genres\":[\"genre " + (n % 40) + "\",\"genre " + (n % 17) + "\"],"
+                + "\"href\":\"https://api.spotify.com/v1/artists/" + id + "\",\"id\":\"" + id + "\","
+                + "\"images\":[{\"url\":\"https://i.scdn.co/image/" + id + "\",\"height\":640,\"width\":640}],"
+                + "\"name\":\"Artist " + n + "\",\"popularity\":" + (n % 100) + ",\"type\":\"artist\","
+                + "\"uri\":\"spotify:artist:" + id + "\"}";
+    }
+
+    private static String artists(String ids) {
+        StringBuilder body = new StringBuilder("{\"artists\":[");
+        String[] split = ids.split(",");
+        for (int i = 0; i < split.length; i++) {
+            body.append(i > 0 ? "," : "").append(artist(split[i]));
+        }
+        return body.append("]}").toString();
+    }
+
+    private static String topArtists() {
+        return "{\"items\":[" + page(10) + "],\"limit\":10,\"offset\":0,\"total\":50,"
+                + "\"href\":\"https://api.spotify.com/v1/me/top/artists\",\"next\":null,\"previous\":null}";
+    }
+
+    private static String search(String query) {
+        return "{\"artists\":{\"href\":\"https://api.spotify.com/v1/search?q=" + query.hashCode() + "\","
+                + "\"items\":[" + page(10) + "],\"limit\":10,\"offset\":0,\"total\":100}}";
+    }
+
+    private static String page(int size) {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            items.append(i > 0 ? "," : "").append(artist(LoadTestHarness.spotifyId(ThreadLocalRandom.current().nextInt(50_000))));
+        }
+        return items.toString();
+    }
+
+    private static String token() {
+        return "{\"access_token\":\"fake-" + Long.toHexString(ThreadLocalRandom.current().nextLong())
+                + "\",\"token_type\":\"Bearer\",\"expires_in\":3600,\"scope\":\"user-top-read\"}";
+    }
+
+    public record Settings(Duration latency, Duration latencyJitter, double errorRate, double throttleRate,
+                           Duration retryAfter) {
+
+        // fake.latency, fake.latencyJitter, fake.errorRate, fake.throttleRate, fake.retryAfter
+        public static Settings fromSystemProperties() {
+            return new Settings(
+                    DurationStyle.detectAndParse(System.getProperty("fake.latency", "50ms")),
+                    DurationStyle.detectAndParse(System.getProperty("fake.latencyJitter", "20ms")),
+                    Double.parseDouble(System.getProperty("fake.errorRate", "0.01")),
+                    Double.parseDouble(System.getProperty("fake.throttleRate", "0.0")),
+                    DurationStyle.detectAndParse(System.getProperty("fake.retryAfter", "1s")));
+        }
+
+        Duration nextLatency() {
+            long jitter = latencyJitter.toNanos();
+            long offset = jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0;
+            return Duration.ofNanos(Math.max(0, latency.toNanos() + offset));
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.floware.musicman.loadtest;
+
+import com.floware.musicman.MusicmanApplication;
+import com.floware.musicman.cache.CatalogCache;
+import com.floware.musicman.controller.SpotifyController;
+import com.floware.musicman.service.UserSessionService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import reactor.core.publisher.Mono;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Offline load test. Starts the fake Spotify server and the full backend pointed at it, seeds
+ * thousands of sessions and drives SpotifyController from virtual-thread workers, then reports
+ * throughput, p50/p99 latency and error rates per operation.
+ *
+ * The controller is called directly, so servlet, security filter and JSON writing costs are
+ * not part of the numbers; everything from the token lookup to Spotify and back is.
+ *
+ * Knobs (system properties): loadtest.sessions, loadtest.concurrency, loadtest.duration,
+ * loadtest.warmup, loadtest.artistIds, loadtest.expiringShare, loadtest.maxErrorRate,
+ * loadtest.maxP99, plus fake.* (see FakeSpotifyServer.Settings) and any musicman.* property.
+ * The rate limiter is opened up by default so the run measures the backend rather than the
+ * client-side budget; pass musicman.spotify.rate-limit.* to test with production limits.
+ */
+public final class LoadTestHarness {
+
+    private enum Operation { TOP_ARTISTS, ARTIST, SEARCH }
+
+    private static final String[] SEARCH_TERMS = {"daft", "punk", "radio", "head", "massive", "attack", "air", "justice"};
+
+    private final int sessions = Integer.getInteger("loadtest.sessions", 2000);
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 100);
+    private final Duration duration = DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "30s"));
+    private final Duration warmup = DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "5s"));
+    private final int artistIds = Integer.getInteger("loadtest.artistIds", 20_000);
+    // Share of sessions whose token is close to expiry, so their first request refreshes it
+    private final double expiringShare = Double.parseDouble(System.getProperty("loadtest.expiringShare", "0.1"));
+    private final double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "1.0"));
+    private final Duration maxP99 = DurationStyle.detectAndParse(System.getProperty("loadtest.maxP99", "1h"));
+
+    private final SimpleMeterRegistry latencies = new SimpleMeterRegistry();
+    private final Map<Operation, Map<Integer, LongAdder>> statuses = new EnumMap<>(Operation.class);
+
+    private LoadTestHarness() {
+        for (Operation operation : Operation.values()) {
+            statuses.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean passed = new LoadTestHarness().run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    // Spotify ids are 22 base62 characters; digits are enough for synthetic ones
+    static String spotifyId(int n) {
+        return String.format("%022d", n);
+    }
+
+    private boolean run() throws Exception {
+        try (FakeSpotifyServer fake = new FakeSpotifyServer(FakeSpotifyServer.Settings.fromSystemProperties()).start();
+             ConfigurableApplicationContext context = startBackend(fake)) {
+            SpotifyController controller = context.getBean(SpotifyController.class);
+            List<OAuth2User> principals = seedSessions(context.getBean(UserSessionService.class));
+
+            // The services log every lookup; keep the console for the report
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                drive(controller, principals, warmup, false);
+                drive(controller, principals, duration, true);
+            } finally {
+                System.setOut(console);
+            }
+            return report(fake, context.getBean(CatalogCache.class));
+        }
+    }
+
+    private ConfigurableApplicationContext startBackend(FakeSpotifyServer fake) {
+        // System properties outrank application.properties, and explicit -D values are left alone
+        defaultProperty("server.port", "0");
+        defaultProperty("SPOTIFY_CLIENT_ID", "loadtest");
+        defaultProperty("SPOTIFY_CLIENT_SECRET", "loadtest");
+        defaultProperty("SPOTIFY_REDIRECT_URI", "http://127.0.0.1/login/oauth2/code/spotify");
+        defaultProperty("musicman.spotify.api-base-url", fake.apiBaseUrl());
+        defaultProperty("musicman.spotify.accounts-base-url", fake.accountsBaseUrl());
+        defaultProperty("musicman.spotify.rate-limit.permits-per-second", "100000");
+        defaultProperty("musicman.spotify.rate-limit.burst", "100000");
+        defaultProperty("musicman.spotify.rate-limit.initial-concurrency", "512");
+        defaultProperty("musicman.spotify.rate-limit.max-concurrency", "1024");
+        defaultProperty("musicman.spotify.http.max-connections", "500");
+        defaultProperty("logging.level.root", "WARN");
+        defaultProperty("logging.level.org.springframework.security", "WARN");
+        defaultProperty("logging.level.org.springframework.web", "WARN");
+        return new SpringApplicationBuilder(MusicmanApplication.class).logStartupInfo(false).run();
+    }
+
+    private List<OAuth2User> seedSessions(UserSessionService userSessionService) {
+        List<OAuth2User> principals = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            String spotifyId = "loadtest-user-" + i;
+            Instant expiresAt = ThreadLocalRandom.current().nextDouble() < expiringShare
+                    ? Instant.now().plusSeconds(30)
+                    : Instant.now().plusSeconds(3600);
+            userSessionService.storeUserSession(spotifyId, "access-" + i, "refresh-" + i, expiresAt);
+            principals.add(new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("OAUTH2_USER")),
+                    Map.of("id", spotifyId), "id"));
+        }
+        return principals;
+    }
+
+    private void drive(SpotifyController controller, List<OAuth2User> principals, Duration phase, boolean record)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + phase.toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                workers.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        OAuth2User principal = principals.get(random.nextInt(principals.size()));
+                        Operation operation = pick(random.nextInt(100));
+                        long started = System.nanoTime();
+                        int status = call(controller, operation, principal, random);
+                        if (record) {
+                            timer(operation).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                            statuses.get(operation).computeIfAbsent(status, s -> new LongAdder()).increment();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    // Mix: 40% artist lookups, 30% top artists, 30% search
+    private static Operation pick(int roll) {
+        if (roll < 40) return Operation.ARTIST;
+        if (roll < 70) return Operation.TOP_ARTISTS;
+        return Operation.SEARCH;
+    }
+
+    private int call(SpotifyController controller, Operation operation, OAuth2User principal, ThreadLocalRandom random) {
+        Mono<? extends ResponseEntity<?>> response = switch (operation) {
+            case TOP_ARTISTS -> controller.getTopArtists("medium_term", 10, principal);
+            case ARTIST -> controller.getArtist(spotifyId(random.nextInt(artistIds)), null, null, principal);
+            case SEARCH -> controller.search(SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)], "artist", null, principal);
+        };
+        try {
+            ResponseEntity<?> entity = response.block(Duration.ofSeconds(30));
+            return entity != null ? entity.getStatusCode().value() : -1;
+        } catch (RuntimeException e) {
+            return -1; // Timed out or escaped the controller's error handling
+        }
+    }
+
+    private Timer timer(Operation operation) {
+        return Timer.builder("loadtest." + operation.name().toLowerCase())
+                .publishPercentiles(0.5, 0.99)
+                .distributionStatisticExpiry(Duration.ofHours(1))
+                .register(latencies);
+    }
+
+    private boolean report(FakeSpotifyServer fake, CatalogCache catalogCache) {
+        double seconds = duration.toMillis() / 1000.0;
+        long totalRequests = 0;
+        long totalErrors = 0;
+        double worstP99 = 0;
+
+        System.out.printf("[LOAD TEST] sessions=%d concurrency=%d duration=%s%n", sessions, concurrency, duration);
+        System.out.printf("%-12s %10s %10s %10s %10s %8s  %s%n", "operation", "requests", "req/s", "p50 ms", "p99 ms", "errors", "statuses");
+        for (Operation operation : Operation.values()) {
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.get(operation).forEach((status, count) -> counts.put(status, count.sum()));
+            long requests = counts.values().stream().mapToLong(Long::longValue).sum();
+            long errors = counts.entrySet().stream()
+                    .filter(e -> e.getKey() < 0 || e.getKey() >= 400)
+                    .mapToLong(Map.Entry::getValue).sum();
+            double p50 = percentile(operation, 0.5);
+            double p99 = percentile(operation, 0.99);
+            totalRequests += requests;
+            totalErrors += errors;
+            worstP99 = Math.max(worstP99, p99);
+            System.out.printf("%-12s %10d %10.1f %10.1f %10.1f %7.2f%%  %s%n", operation.name().toLowerCase(), requests,
+                    requests / seconds, p50, p99, requests > 0 ? 100.0 * errors / requests : 0, counts);
+        }
+
+        double errorRate = totalRequests > 0 ? (double) totalErrors / totalRequests : 0;
+        System.out.printf("[LOAD TEST] total %d requests, %.1f req/s, %.2f%% errors%n",
+                totalRequests, totalRequests / seconds, 100 * errorRate);
+        System.out.printf("[LOAD TEST] upstream: %d requests, %d injected 500s, %d injected 429s, %d token refreshes%n",
+                fake.requestCount(), fake.injectedErrorCount(), fake.injectedThrottleCount(), fake.tokenRefreshCount());
+        System.out.printf("[LOAD TEST] catalog cache: hit rate %.1f%%, %d entries%n",
+                100 * catalogCache.stats().hitRate(), catalogCache.size());
+
+        boolean passed = errorRate <= maxErrorRate && worstP99 <= maxP99.toMillis();
+        if (!passed) {
+            System.out.printf("[LOAD TEST] FAILED: error rate %.2f%% (max %.2f%%), worst p99 %.1f ms (max %d ms)%n",
+                    100 * errorRate, 100 * maxErrorRate, worstP99, maxP99.toMillis());
+        }
+        return passed;
+    }
+
+    private double percentile(Operation operation, double percentile) {
+        for (ValueAtPercentile value : timer(operation).takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static void defaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+}
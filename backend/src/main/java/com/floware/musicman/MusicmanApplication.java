@@ -3,11 +3,13 @@ package com.floware.musicman;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.env.Environment;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class MusicmanApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(MusicmanApplication.class, args);
@@ -0,0 +1,104 @@
+package com.floware.musicman.analytics;
+
+import com.floware.musicman.dto.ListeningProfileDTO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Genre counts without boxing: open addressing over parallel key and count arrays, grown at
+ * half load. A user's top artists span a few dozen genres, so the table stays small and a count
+ * is one probe and an int increment. Not thread-safe; filled once, then only read.
+ */
+final class GenreCounter {
+
+    private String[] keys;
+    private int[] counts;
+    private int size;
+
+    GenreCounter() {
+        this(32);
+    }
+
+    GenreCounter(int expectedGenres) {
+        int capacity = Integer.highestOneBit(Math.max(expectedGenres, 4) * 2 - 1) << 1;
+        this.keys = new String[capacity];
+        this.counts = new int[capacity];
+    }
+
+    void increment(String genre) {
+        add(genre, 1);
+    }
+
+    void add(String genre, int delta) {
+        int slot = slot(keys, genre);
+        if (keys[slot] != null) {
+            counts[slot] += delta;
+            return;
+        }
+        keys[slot] = genre;
+        counts[slot] = delta;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    void addAll(GenreCounter other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != null) {
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+    }
+
+    int get(String genre) {
+        int slot = slot(keys, genre);
+        return keys[slot] != null ? counts[slot] : 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Most common first, ties by name so the order is stable; share is relative to total
+    List<ListeningProfileDTO.GenreCount> top(int limit, int total) {
+        List<ListeningProfileDTO.GenreCount> genres = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                genres.add(new ListeningProfileDTO.GenreCount(keys[i], counts[i],
+                        total > 0 ? (double) counts[i] / total : 0));
+            }
+        }
+        genres.sort(Comparator.comparingInt(ListeningProfileDTO.GenreCount::getCount).reversed()
+                .thenComparing(ListeningProfileDTO.GenreCount::getGenre));
+        return genres.size() <= limit ? genres : new ArrayList<>(genres.subList(0, limit));
+    }
+
+    // Helpers
+
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new String[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    // Linear probing from the spread hash; the table is never full, so this terminates
+    private static int slot(String[] table, String genre) {
+        int h = genre.hashCode();
+        int mask = table.length - 1;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (table[slot] != null && !table[slot].equals(genre)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,207 @@
+package com.floware.musicman.analytics;
+
+import com.floware.musicman.config.ListeningProfileProperties;
+import com.floware.musicman.dto.ArtistDTO;
+import com.floware.musicman.dto.ListeningProfileDTO;
+import com.floware.musicman.model.TimeRange;
+import com.floware.musicman.session.SessionEndedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Aggregates a user's top artists for all three time ranges into one listening profile: genre
+ * histograms, popularity distributions and how much the ranges overlap. The ranges are loaded
+ * in parallel. Each range's aggregate is kept with the list it was computed from, so when only
+ * one range's list changed (say the short-term one after a refresh) only that range is counted
+ * again and the cross-range parts are rebuilt from the kept aggregates. An unchanged profile is
+ * served as it was. A user's profile is dropped when their session ends.
+ */
+@Component
+public class ListeningProfileEngine {
+
+    private static final int POPULARITY_BUCKETS = 10;
+    private static final TimeRange[] RANGES = TimeRange.values();
+
+    private final ListeningProfileProperties properties;
+    // Holders are replaced on invalidation, so a computation that finishes after a logout lands in a detached one
+    private final Cache<String, AtomicReference<Computed>> profiles;
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder computed = new LongAdder();
+    private final LongAdder rangesAggregated = new LongAdder();
+
+    public ListeningProfileEngine(ListeningProfileProperties properties) {
+        this.properties = properties;
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumUsers())
+                .expireAfterAccess(properties.getRetention())
+                .build();
+    }
+
+    // The loader gets a range and the number of artists to analyze; typically served by the top-artists cache
+    public Mono<ListeningProfileDTO> profile(String spotifyId, BiFunction<TimeRange, Integer, Mono<List<ArtistDTO>>> loader) {
+        return Mono.defer(() -> {
+            AtomicReference<Computed> holder = profiles.get(spotifyId, id -> new AtomicReference<>());
+            int limit = properties.getArtistsPerRange();
+            return Mono.zip(loader.apply(TimeRange.SHORT_TERM, limit), loader.apply(TimeRange.MEDIUM_TERM, limit),
+                            loader.apply(TimeRange.LONG_TERM, limit))
+                    .map(lists -> update(holder, Map.of(
+                            TimeRange.SHORT_TERM, lists.getT1(),
+                            TimeRange.MEDIUM_TERM, lists.getT2(),
+                            TimeRange.LONG_TERM, lists.getT3())));
+        });
+    }
+
+    @EventListener
+    public void onSessionEnded(SessionEndedEvent event) {
+        invalidate(event.spotifyId());
+    }
+
+    public void invalidate(String spotifyId) {
+        profiles.invalidate(spotifyId);
+    }
+
+    public long size() {
+        return profiles.estimatedSize();
+    }
+
+    public long reusedCount() {
+        return reused.sum();
+    }
+
+    public long computedCount() {
+        return computed.sum();
+    }
+
+    public long rangesAggregatedCount() {
+        return rangesAggregated.sum();
+    }
+
+    // Helpers
+
+    private ListeningProfileDTO update(AtomicReference<Computed> holder, Map<TimeRange, List<ArtistDTO>> lists) {
+        Computed previous = holder.get();
+        EnumMap<TimeRange, RangeStats> ranges = new EnumMap<>(TimeRange.class);
+        boolean changed = previous == null;
+        for (TimeRange range : RANGES) {
+            RangeStats kept = previous != null ? previous.ranges().get(range) : null;
+            List<ArtistDTO> artists = lists.get(range);
+            // Cached lists come back as the same instance while unchanged, so this is usually an identity check
+            if (kept != null && kept.artists().equals(artists)) {
+                ranges.put(range, kept);
+            } else {
+                ranges.put(range, RangeStats.of(artists));
+                rangesAggregated.increment();
+                changed = true;
+            }
+        }
+        if (!changed) {
+            reused.increment();
+            return previous.profile();
+        }
+        computed.increment();
+        ListeningProfileDTO profile = combine(ranges);
+        holder.set(new Computed(ranges, profile));
+        return profile;
+    }
+
+    private ListeningProfileDTO combine(EnumMap<TimeRange, RangeStats> ranges) {
+        Map<String, ListeningProfileDTO.RangeProfile> rangeProfiles = new LinkedHashMap<>();
+        GenreCounter allGenres = new GenreCounter();
+        int allArtists = 0;
+        for (Map.Entry<TimeRange, RangeStats> entry : ranges.entrySet()) {
+            RangeStats stats = entry.getValue();
+            rangeProfiles.put(entry.getKey().param(), new ListeningProfileDTO.RangeProfile(
+                    stats.artists().size(),
+                    stats.genres().top(properties.getTopGenres(), stats.artists().size()),
+                    stats.popularity()));
+            allGenres.addAll(stats.genres());
+            allArtists += stats.artists().size();
+        }
+
+        List<ListeningProfileDTO.RangeOverlap> overlap = new ArrayList<>();
+        for (int i = 0; i < RANGES.length; i++) {
+            for (int j = i + 1; j < RANGES.length; j++) {
+                overlap.add(overlap(RANGES[i], ranges.get(RANGES[i]), RANGES[j], ranges.get(RANGES[j])));
+            }
+        }
+
+        // Short-term order, so the staples the user plays most right now come first
+        List<String> staples = new ArrayList<>();
+        int inAllRanges = 0;
+        for (ArtistDTO artist : ranges.get(TimeRange.SHORT_TERM).artists()) {
+            if (ranges.get(TimeRange.MEDIUM_TERM).ids().contains(artist.getId())
+                    && ranges.get(TimeRange.LONG_TERM).ids().contains(artist.getId())) {
+                inAllRanges++;
+                if (staples.size() < properties.getStaples()) {
+                    staples.add(artist.getName());
+                }
+            }
+        }
+
+        return new ListeningProfileDTO(rangeProfiles, allGenres.top(properties.getTopGenres(), allArtists),
+                overlap, inAllRanges, staples, Instant.now());
+    }
+
+    private static ListeningProfileDTO.RangeOverlap overlap(TimeRange from, RangeStats a, TimeRange to, RangeStats b) {
+        Set<String> smaller = a.ids().size() <= b.ids().size() ? a.ids() : b.ids();
+        Set<String> larger = smaller == a.ids() ? b.ids() : a.ids();
+        int shared = 0;
+        for (String id : smaller) {
+            if (larger.contains(id)) {
+                shared++;
+            }
+        }
+        int union = a.ids().size() + b.ids().size() - shared;
+        return new ListeningProfileDTO.RangeOverlap(from.param(), to.param(), shared,
+                union > 0 ? (double) shared / union : 0);
+    }
+
+    private record Computed(EnumMap<TimeRange, RangeStats> ranges, ListeningProfileDTO profile) {
+    }
+
+    // One range's aggregate, kept with the list it was computed from
+    record RangeStats(List<ArtistDTO> artists, Set<String> ids, GenreCounter genres,
+                      ListeningProfileDTO.PopularityDistribution popularity) {
+
+        static RangeStats of(List<ArtistDTO> artists) {
+            Set<String> ids = new HashSet<>(artists.size() * 2);
+            GenreCounter genres = new GenreCounter();
+            int[] buckets = new int[POPULARITY_BUCKETS];
+            int[] popularities = new int[artists.size()];
+            long sum = 0;
+            for (int i = 0; i < artists.size(); i++) {
+                ArtistDTO artist = artists.get(i);
+                ids.add(artist.getId());
+                if (artist.getGenres() != null) {
+                    for (String genre : artist.getGenres()) {
+                        genres.increment(genre);
+                    }
+                }
+                int popularity = Math.max(0, Math.min(artist.getPopularity(), 100));
+                buckets[Math.min(popularity / 10, POPULARITY_BUCKETS - 1)]++;
+                popularities[i] = popularity;
+                sum += popularity;
+            }
+            Arrays.sort(popularities);
+            int median = popularities.length == 0 ? 0 : popularities[(popularities.length - 1) / 2];
+            double mean = popularities.length == 0 ? 0 : (double) sum / popularities.length;
+            return new RangeStats(artists, ids, genres, new ListeningProfileDTO.PopularityDistribution(buckets, mean, median));
+        }
+    }
+}
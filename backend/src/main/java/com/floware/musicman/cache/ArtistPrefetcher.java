@@ -0,0 +1,153 @@
+package com.floware.musicman.cache;
+
+import com.floware.musicman.client.SpotifyRateLimiter;
+import com.floware.musicman.config.PrefetchProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Speculatively warms the catalog cache for artists a user is likely to open next: after a
+ * top-artists list loads, each artist's details, top tracks and albums are fetched on a small
+ * low-priority pool. Prefetch only spends upstream budget user traffic is not using, and is
+ * dropped rather than delayed when there is none. Entries it loaded are remembered for a while
+ * so the share later read by user requests shows whether it pays off.
+ */
+@Component
+public class ArtistPrefetcher {
+
+    private static final List<CatalogResource> ARTIST_RESOURCES =
+            List.of(CatalogResource.ARTIST, CatalogResource.ARTIST_TOP_TRACKS, CatalogResource.ARTIST_ALBUMS);
+
+    private final PrefetchProperties properties;
+    private final CatalogCache catalogCache;
+    private final SpotifyRateLimiter rateLimiter;
+    private final ThreadPoolExecutor executor;
+    private final Cache<CatalogCache.CatalogKey, Boolean> recentlyQueued;
+    private final Cache<CatalogCache.CatalogKey, Boolean> prefetched;
+    private final LongAdder fetched = new LongAdder();
+    private final LongAdder alreadyCached = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder used = new LongAdder();
+
+    public ArtistPrefetcher(PrefetchProperties properties, CatalogCache catalogCache, SpotifyRateLimiter rateLimiter) {
+        this.properties = properties;
+        this.catalogCache = catalogCache;
+        this.rateLimiter = rateLimiter;
+        this.executor = new ThreadPoolExecutor(
+                properties.getConcurrency(),
+                properties.getConcurrency(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                Thread.ofPlatform().daemon().priority(Thread.MIN_PRIORITY).name("artist-prefetch-", 0).factory());
+        long trackedKeys = (long) properties.getQueueCapacity() * 10;
+        this.recentlyQueued = Caffeine.newBuilder()
+                .maximumSize(trackedKeys)
+                .expireAfterWrite(properties.getRequeueAfter())
+                .build();
+        this.prefetched = Caffeine.newBuilder()
+                .maximumSize(trackedKeys)
+                .expireAfterWrite(properties.getHitWindow())
+                .build();
+    }
+
+    // The loader fetches one resource for one artist through the catalog cache
+    public void prefetch(List<String> artistIds, BiFunction<CatalogResource, String, Mono<CatalogEntry>> loader) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (String artistId : artistIds.subList(0, Math.min(artistIds.size(), properties.getArtistsPerList()))) {
+            for (CatalogResource resource : ARTIST_RESOURCES) {
+                CatalogCache.CatalogKey key = new CatalogCache.CatalogKey(resource, artistId);
+                if (recentlyQueued.asMap().putIfAbsent(key, Boolean.TRUE) != null) {
+                    continue;
+                }
+                try {
+                    executor.execute(() -> load(key, loader));
+                } catch (RejectedExecutionException e) {
+                    recentlyQueued.invalidate(key);
+                    dropped.increment();
+                }
+            }
+        }
+    }
+
+    // Called for user-initiated catalog reads; counts the first read of each prefetched entry
+    public void recordRequest(CatalogResource resource, String id) {
+        if (prefetched.asMap().remove(new CatalogCache.CatalogKey(resource, id)) != null) {
+            used.increment();
+        }
+    }
+
+    public long fetchedCount() {
+        return fetched.sum();
+    }
+
+    public long alreadyCachedCount() {
+        return alreadyCached.sum();
+    }
+
+    public long skippedCount() {
+        return skipped.sum();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    public long usedCount() {
+        return used.sum();
+    }
+
+    public int queueSize() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Helpers
+
+    private void load(CatalogCache.CatalogKey key, BiFunction<CatalogResource, String, Mono<CatalogEntry>> loader) {
+        if (catalogCache.getIfPresent(key.resource(), key.id()) != null) {
+            alreadyCached.increment();
+            return;
+        }
+        if (!hasSpareBudget()) {
+            recentlyQueued.invalidate(key); // A later list view may find budget to spare
+            skipped.increment();
+            return;
+        }
+        try {
+            loader.apply(key.resource(), key.id()).block(properties.getLoadTimeout());
+            prefetched.put(key, Boolean.TRUE);
+            fetched.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+        }
+    }
+
+    private boolean hasSpareBudget() {
+        return rateLimiter.backoffRemaining().isZero()
+                && rateLimiter.getAvailablePermits() >= properties.getMinAvailablePermits()
+                && rateLimiter.getInFlight() < rateLimiter.getConcurrencyLimit() * properties.getMaxWindowUtilization();
+    }
+}
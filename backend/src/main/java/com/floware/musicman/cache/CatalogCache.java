@@ -0,0 +1,150 @@
+package com.floware.musicman.cache;
+
+import com.floware.musicman.config.CatalogCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * User-independent cache for Spotify catalog lookups, keyed by resource type and id.
+ * Caffeine's W-TinyLFU policy keeps the frequently requested artists and albums resident
+ * once the size bound is reached. Entries outlive their TTL by the stale retention period
+ * so an expired entry can be revalidated upstream instead of re-downloaded, and served as a
+ * stale fallback while Spotify is slow or failing.
+ */
+@Component
+public class CatalogCache {
+
+    private final CatalogCacheProperties properties;
+    private final Cache<CatalogKey, CatalogEntry> cache;
+    private final SingleFlight<CatalogKey, CatalogEntry> loads = new SingleFlight<>();
+    private final LongAdder staleServed = new LongAdder();
+
+    public CatalogCache(CatalogCacheProperties properties) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<CatalogKey, CatalogEntry>() {
+                    @Override
+                    public long expireAfterCreate(CatalogKey key, CatalogEntry value, long currentTime) {
+                        return retentionNanos(key);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(CatalogKey key, CatalogEntry value, long currentTime, long currentDuration) {
+                        return retentionNanos(key);
+                    }
+
+                    @Override
+                    public long expireAfterRead(CatalogKey key, CatalogEntry value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public Mono<String> get(CatalogResource resource, String id, Supplier<Mono<String>> loader) {
+        return getEntry(resource, id, stale -> loader.get().map(body -> CatalogEntry.fetched(body, null)))
+                .map(CatalogEntry::body);
+    }
+
+    // Fresh entries are served as is; the loader receives the stale entry (or null) so it can send a conditional request
+    public Mono<CatalogEntry> getEntry(CatalogResource resource, String id,
+                                       Function<CatalogEntry, Mono<CatalogEntry>> loader) {
+        CatalogKey key = new CatalogKey(resource, id);
+        return Mono.defer(() -> {
+            CatalogEntry cached = cache.getIfPresent(key);
+            if (cached != null && cached.isFresh()) {
+                return Mono.just(cached);
+            }
+            Supplier<Mono<CatalogEntry>> fetch = () -> loader.apply(cached)
+                    .map(entry -> entry.freshUntil(Instant.now().plus(properties.ttlFor(resource))))
+                    .doOnNext(entry -> cache.put(key, entry));
+            // Concurrent misses for the same key share one upstream call, made with the first caller's token.
+            // Should Spotify reject that token, the other callers retry with their own, as MicroBatcher does,
+            // so one revoked session fails only its own request.
+            AtomicBoolean ownCall = new AtomicBoolean();
+            Mono<CatalogEntry> load = loads.execute(key, () -> {
+                        ownCall.set(true);
+                        return fetch.get();
+                    })
+                    .onErrorResume(e -> !ownCall.get() && isTokenRejected(e), e -> fetch.get());
+            return cached != null ? revalidate(key, cached, load) : load;
+        });
+    }
+
+    // Lookup without loading, for callers that fetch misses outside the cache; stale entries are not returned
+    public String getIfPresent(CatalogResource resource, String id) {
+        CatalogEntry cached = cache.getIfPresent(new CatalogKey(resource, id));
+        return cached != null && cached.isFresh() ? cached.body() : null;
+    }
+
+    public void invalidate(CatalogResource resource, String id) {
+        cache.invalidate(new CatalogKey(resource, id));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long coalescedCount() {
+        return loads.coalescedCount();
+    }
+
+    public long staleServedCount() {
+        return staleServed.sum();
+    }
+
+    // Helpers
+
+    // Stale-while-revalidate and stale-if-error: the expired entry is served if the refresh fails
+    // (including an open circuit) or takes longer than staleTimeout; the refresh carries on regardless
+    private Mono<CatalogEntry> revalidate(CatalogKey key, CatalogEntry stale, Mono<CatalogEntry> load) {
+        Mono<CatalogEntry> refresh = load.cache();
+        refresh.subscribe(null, e -> System.out.println("[CATALOG CACHE] Refresh failed for " + key + ": " + e.getMessage()));
+        return refresh
+                .timeout(properties.getStaleTimeout())
+                .onErrorResume(CatalogCache::isUpstreamFailure, e -> {
+                    staleServed.increment();
+                    return Mono.just(stale);
+                });
+    }
+
+    // Not found and other client errors are answers, not outages, so they are not papered over
+    private static boolean isUpstreamFailure(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return !response.getStatusCode().is4xxClientError()
+                    || response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return !(e instanceof ResponseStatusException);
+    }
+
+    private static boolean isTokenRejected(Throwable e) {
+        return e instanceof WebClientResponseException response
+                && response.getStatusCode().value() == HttpStatus.UNAUTHORIZED.value();
+    }
+
+    private long retentionNanos(CatalogKey key) {
+        return properties.ttlFor(key.resource()).plus(properties.getStaleRetention()).toNanos();
+    }
+
+    record CatalogKey(CatalogResource resource, String id) {
+    }
+}
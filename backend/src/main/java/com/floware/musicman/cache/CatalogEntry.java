@@ -0,0 +1,36 @@
+package com.floware.musicman.cache;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A cached catalog body with its validators: a strong ETag computed once from the body for our
+ * own clients, and the ETag Spotify sent (if any) for revalidating upstream once it goes stale.
+ */
+public record CatalogEntry(String body, String etag, String upstreamEtag, Instant freshUntil) {
+
+    // freshUntil is stamped by the cache from the resource TTL when the entry is stored
+    public static CatalogEntry fetched(String body, String upstreamEtag) {
+        return new CatalogEntry(body, strongEtag(body), upstreamEtag, Instant.EPOCH);
+    }
+
+    public boolean isFresh() {
+        return Instant.now().isBefore(freshUntil);
+    }
+
+    public Duration maxAge() {
+        Duration remaining = Duration.between(Instant.now(), freshUntil);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    CatalogEntry freshUntil(Instant until) {
+        return new CatalogEntry(body, etag, upstreamEtag, until);
+    }
+
+    static String strongEtag(String body) {
+        return "\"" + DigestUtils.md5DigestAsHex(body.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
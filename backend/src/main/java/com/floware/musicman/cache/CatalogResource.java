@@ -0,0 +1,14 @@
+package com.floware.musicman.cache;
+
+// Public Spotify catalog data that is identical for every user and safe to share
+public enum CatalogResource {
+    ARTIST,
+    ALBUM,
+    ARTIST_TOP_TRACKS,
+    ARTIST_ALBUMS;
+
+    // Lower-case name used as a metric tag, e.g. artist-top-tracks
+    public String tagValue() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
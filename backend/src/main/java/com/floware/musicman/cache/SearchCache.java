@@ -0,0 +1,89 @@
+package com.floware.musicman.cache;
+
+import com.floware.musicman.config.SearchCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Search results shared across users, keyed by normalized query, type set, limit and offset, so
+ * "Daft Punk", " daft  punk" and "DAFT PUNK" with types in any order are one entry. Every
+ * result loaded from Spotify also feeds the typeahead index.
+ */
+@Component
+public class SearchCache {
+
+    private final Cache<SearchKey, String> cache;
+    // Cancellable, so a search nobody waits for anymore (e.g. the client went away) stops upstream
+    private final SingleFlight<SearchKey, String> loads = new SingleFlight<>(true);
+    private final TypeaheadIndex typeaheadIndex;
+
+    public SearchCache(SearchCacheProperties properties, TypeaheadIndex typeaheadIndex) {
+        this.typeaheadIndex = typeaheadIndex;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    // The loader gets the normalized key, so the upstream request matches what is cached under it
+    public Mono<String> get(String query, List<String> types, int limit, Function<SearchKey, Mono<String>> loader) {
+        return get(query, types, limit, 0, loader);
+    }
+
+    public Mono<String> get(String query, List<String> types, int limit, int offset,
+                            Function<SearchKey, Mono<String>> loader) {
+        SearchKey key = SearchKey.of(query, types, limit, offset);
+        return Mono.defer(() -> {
+            String cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return loads.execute(key, () -> loader.apply(key)
+                    .doOnNext(body -> {
+                        cache.put(key, body);
+                        typeaheadIndex.indexSearchResult(body);
+                    }));
+        });
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long coalescedCount() {
+        return loads.coalescedCount();
+    }
+
+    // Lower case, NFKC-folded, trimmed and with runs of whitespace collapsed to one space
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .trim()
+                .replaceAll("\\s+", " ");
+    }
+
+    public record SearchKey(String query, List<String> types, int limit, int offset) {
+
+        static SearchKey of(String query, List<String> types, int limit, int offset) {
+            return new SearchKey(normalize(query), types.stream().sorted().distinct().toList(), limit, offset);
+        }
+
+        // Spotify's comma-separated type parameter
+        public String typeParam() {
+            return String.join(",", types);
+        }
+    }
+}
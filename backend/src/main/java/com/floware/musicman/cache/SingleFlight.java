@@ -0,0 +1,59 @@
+package com.floware.musicman.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key onto one in-flight upstream call.
+ * Every waiter receives the same value or the same error; the key is released
+ * as soon as the call terminates so the next caller starts a fresh one. By default the call
+ * runs to completion even if every waiter cancels; cancellable flights stop it once the last
+ * waiter is gone instead.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final boolean cancellable;
+
+    public SingleFlight() {
+        this(false);
+    }
+
+    public SingleFlight(boolean cancellable) {
+        this.cancellable = cancellable;
+    }
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<V>> self = new AtomicReference<>();
+            Mono<V> shared = Mono.defer(call)
+                    .doFinally(signal -> inFlight.remove(key, self.get()));
+            // Reference counted: the upstream subscription is cancelled with the last waiter
+            Mono<V> candidate = cancellable
+                    ? shared.flux().replay(1).refCount().singleOrEmpty()
+                    : shared.cache();
+            self.set(candidate);
+
+            Mono<V> existing = inFlight.putIfAbsent(key, candidate);
+            if (existing != null) {
+                coalesced.increment();
+                return existing;
+            }
+            return candidate;
+        });
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
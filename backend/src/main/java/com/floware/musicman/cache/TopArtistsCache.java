@@ -0,0 +1,137 @@
+package com.floware.musicman.cache;
+
+import com.floware.musicman.config.TopArtistsCacheProperties;
+import com.floware.musicman.dto.ArtistDTO;
+import com.floware.musicman.model.TimeRange;
+import com.floware.musicman.session.SessionEndedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Per-user top artists, one list per time range. A list fetched for the largest limit serves
+ * every smaller limit. Past the soft TTL the cached list is returned at once and refreshed in
+ * the background; past the hard TTL the request waits for Spotify, falling back to the old list
+ * only if that fails. A user's lists are dropped when their session ends, so memory follows the
+ * active sessions.
+ */
+@Component
+public class TopArtistsCache {
+
+    private final TopArtistsCacheProperties properties;
+    // Replaced as a whole on invalidation, so a load that finishes after a logout lands in a detached map
+    private final Cache<String, ConcurrentMap<TimeRange, TopArtists>> cache;
+    private final SingleFlight<LoadKey, TopArtists> loads = new SingleFlight<>();
+    // The Caffeine cache holds users, so list-level outcomes are counted here
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TopArtistsCache(TopArtistsCacheProperties properties) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumUsers())
+                .expireAfterAccess(properties.getHardTtl().plus(properties.getStaleRetention()))
+                .build();
+    }
+
+    // The loader gets the number of artists to fetch, at least the requested limit
+    public Mono<List<ArtistDTO>> get(String spotifyId, TimeRange timeRange, int limit,
+                                     Function<Integer, Mono<List<ArtistDTO>>> loader) {
+        return Mono.defer(() -> {
+            ConcurrentMap<TimeRange, TopArtists> lists = cache.get(spotifyId, id -> new ConcurrentHashMap<>());
+            TopArtists cached = lists.get(timeRange);
+            Instant now = Instant.now();
+            if (cached != null && cached.covers(limit) && now.isBefore(cached.hardExpiry())) {
+                if (now.isBefore(cached.softExpiry())) {
+                    hits.increment();
+                } else {
+                    staleHits.increment();
+                    load(lists, spotifyId, timeRange, cached.fetchSize(), loader)
+                            .subscribe(null, e -> System.out.println("[TOP ARTISTS] Background refresh failed for user: "
+                                    + spotifyId + " - " + e.getMessage()));
+                }
+                return Mono.just(cached.slice(limit));
+            }
+            misses.increment();
+            int fetchSize = Math.max(limit, properties.getFetchSize());
+            Mono<List<ArtistDTO>> loaded = load(lists, spotifyId, timeRange, fetchSize, loader)
+                    .map(list -> list.slice(limit));
+            if (cached == null || !cached.covers(limit)
+                    || !now.isBefore(cached.hardExpiry().plus(properties.getStaleRetention()))) {
+                return loaded;
+            }
+            // Past the hard TTL, but still better than an error while Spotify is failing
+            return loaded.onErrorResume(e -> {
+                staleHits.increment();
+                return Mono.just(cached.slice(limit));
+            });
+        });
+    }
+
+    @EventListener
+    public void onSessionEnded(SessionEndedEvent event) {
+        invalidate(event.spotifyId());
+    }
+
+    public void invalidate(String spotifyId) {
+        cache.invalidate(spotifyId);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long staleHitCount() {
+        return staleHits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long coalescedCount() {
+        return loads.coalescedCount();
+    }
+
+    // Helpers
+
+    private Mono<TopArtists> load(ConcurrentMap<TimeRange, TopArtists> lists, String spotifyId, TimeRange timeRange,
+                                  int fetchSize, Function<Integer, Mono<List<ArtistDTO>>> loader) {
+        return loads.execute(new LoadKey(spotifyId, timeRange, fetchSize), () -> loader.apply(fetchSize)
+                .map(items -> {
+                    Instant now = Instant.now();
+                    return new TopArtists(List.copyOf(items), fetchSize,
+                            now.plus(properties.getSoftTtl()), now.plus(properties.getHardTtl()));
+                })
+                .doOnNext(loaded -> lists.put(timeRange, loaded)));
+    }
+
+    private record LoadKey(String spotifyId, TimeRange timeRange, int fetchSize) {
+    }
+
+    private record TopArtists(List<ArtistDTO> items, int fetchSize, Instant softExpiry, Instant hardExpiry) {
+
+        // Fewer items than were asked for means Spotify has no more, so any larger limit is covered too
+        boolean covers(int limit) {
+            return limit <= fetchSize || items.size() < fetchSize;
+        }
+
+        List<ArtistDTO> slice(int limit) {
+            return items.size() <= limit ? items : items.subList(0, limit);
+        }
+    }
+}
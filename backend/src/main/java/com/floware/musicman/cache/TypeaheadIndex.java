@@ -0,0 +1,118 @@
+package com.floware.musicman.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.floware.musicman.config.SearchCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prefix index over artist, album and track names seen in search results. Names are stored
+ * normalized in a sorted map, once in full and once from each later word, so "punk" finds
+ * "Daft Punk"; a prefix lookup is a range scan and never calls Spotify. A Caffeine side index
+ * over the same keys bounds the map: when it evicts a term, the term leaves the map too, so
+ * names from new searches keep getting in once the index is full.
+ */
+@Component
+public class TypeaheadIndex {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String[] SECTIONS = {"artists", "albums", "tracks"};
+
+    // Key: indexed term, NUL, type and id, so equal names of different items do not collide
+    private final ConcurrentSkipListMap<String, Suggestion> entries = new ConcurrentSkipListMap<>();
+    // Same keys; decides which terms to drop once maxEntries is reached
+    private final Cache<String, Suggestion> retained;
+    private final AtomicInteger size = new AtomicInteger();
+    private final int candidates;
+
+    public TypeaheadIndex(SearchCacheProperties properties) {
+        this.candidates = properties.getTypeaheadCandidates();
+        this.retained = Caffeine.newBuilder()
+                .maximumSize(properties.getTypeaheadMaxEntries())
+                // Evict on the writing thread, so the map never runs far past its bound
+                .executor(Runnable::run)
+                .<String, Suggestion>evictionListener((key, suggestion, cause) -> {
+                    if (entries.remove(key) != null) {
+                        size.decrementAndGet();
+                    }
+                })
+                .build();
+    }
+
+    public void indexSearchResult(String body) {
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(body);
+        } catch (Exception e) {
+            System.out.println("[TYPEAHEAD] Skipping unparseable search result: " + e.getMessage());
+            return;
+        }
+        for (String section : SECTIONS) {
+            String type = section.substring(0, section.length() - 1);
+            for (JsonNode item : root.path(section).path("items")) {
+                if (item.hasNonNull("id") && item.hasNonNull("name")) {
+                    add(new Suggestion(type, item.get("id").asText(), item.get("name").asText(),
+                            item.path("popularity").asInt(0)));
+                }
+            }
+        }
+    }
+
+    // Most popular first among the first `candidates` prefix matches
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = SearchCache.normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Map<String, Suggestion> matches = new LinkedHashMap<>();
+        for (Suggestion suggestion : entries.subMap(normalized, normalized + Character.MAX_VALUE).values()) {
+            matches.putIfAbsent(suggestion.type() + ":" + suggestion.id(), suggestion);
+            if (matches.size() >= candidates) {
+                break;
+            }
+        }
+        List<Suggestion> ranked = new ArrayList<>(matches.values());
+        ranked.sort(Comparator.comparingInt(Suggestion::popularity).reversed()
+                .thenComparing(Suggestion::name));
+        return ranked.size() > limit ? List.copyOf(ranked.subList(0, limit)) : ranked;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    // Helpers
+
+    private void add(Suggestion suggestion) {
+        String name = SearchCache.normalize(suggestion.name());
+        String suffix = "\u0000" + suggestion.type() + ":" + suggestion.id();
+        int start = 0;
+        while (start < name.length()) {
+            // Written under the side index's lock for the key, so an eviction of the same key cannot interleave
+            retained.asMap().compute(name.substring(start) + suffix, (key, previous) -> {
+                if (entries.put(key, suggestion) == null) {
+                    size.incrementAndGet();
+                }
+                return suggestion;
+            });
+            int space = name.indexOf(' ', start);
+            if (space < 0) {
+                break;
+            }
+            start = space + 1;
+        }
+    }
+
+    public record Suggestion(String type, String id, String name, int popularity) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.floware.musicman.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// Additive-increase/multiplicative-decrease limit on concurrent upstream calls. Callers over the
+// limit wait in arrival order and are handed a slot by the release that frees it.
+class AimdConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final ArrayDeque<Runnable> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+
+    AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    private boolean tryAcquire() {
+        if (waiters.isEmpty() && inFlight < (int) limit) {
+            inFlight++;
+            return true;
+        }
+        return false;
+    }
+
+    // Takes a slot now, or queues onGranted; it later runs, outside the lock, with a slot already taken for it
+    synchronized boolean acquireOrWait(Runnable onGranted) {
+        if (tryAcquire()) {
+            return true;
+        }
+        waiters.add(onGranted);
+        return false;
+    }
+
+    // False when the waiter has already been handed its slot
+    synchronized boolean cancelWait(Runnable onGranted) {
+        return waiters.remove(onGranted);
+    }
+
+    void release(boolean throttled) {
+        List<Runnable> granted;
+        synchronized (this) {
+            inFlight--;
+            if (throttled) {
+                limit = Math.max(minLimit, limit / 2);
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            granted = grantWaiters();
+        }
+        granted.forEach(Runnable::run);
+    }
+
+    // Gives back a slot that no call used, leaving the limit as it is
+    void returnUnused() {
+        List<Runnable> granted;
+        synchronized (this) {
+            inFlight--;
+            granted = grantWaiters();
+        }
+        granted.forEach(Runnable::run);
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized int getWaiting() {
+        return waiters.size();
+    }
+
+    private List<Runnable> grantWaiters() {
+        List<Runnable> granted = new ArrayList<>();
+        while (!waiters.isEmpty() && inFlight < (int) limit) {
+            inFlight++;
+            granted.add(waiters.poll());
+        }
+        return granted;
+    }
+}
@@ -0,0 +1,114 @@
+package com.floware.musicman.client;
+
+import java.time.Duration;
+
+// Count-based circuit breaker for one upstream endpoint. Opens when the failure rate over the
+// last windowSize calls reaches the threshold, rejects calls while open, then lets a few trial
+// calls through: all succeeding closes it, any failing opens it again.
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    enum Outcome { SUCCESS, FAILURE, IGNORED }
+
+    static final long NO_PERMIT = -1;
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final boolean[] window;
+    private int windowCount;
+    private int windowNext;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration, int halfOpenCalls) {
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    // Returns a permit to pass to release, or NO_PERMIT if the call must not be made
+    synchronized long tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return generation;
+        }
+        if (state == State.HALF_OPEN && trialsStarted < halfOpenCalls) {
+            trialsStarted++;
+            return generation;
+        }
+        return NO_PERMIT;
+    }
+
+    // Every permit is released once; outcomes of calls started before the last state change are ignored
+    synchronized void release(long permit, Outcome outcome) {
+        if (permit != generation || outcome == Outcome.IGNORED) {
+            if (permit == generation && state == State.HALF_OPEN) {
+                trialsStarted--;
+            }
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (outcome == Outcome.FAILURE) {
+                transition(State.OPEN);
+            } else if (++trialsSucceeded >= halfOpenCalls) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        record(outcome == Outcome.FAILURE);
+        if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+            transition(State.OPEN);
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    // Time until the breaker lets a trial call through
+    synchronized Duration retryAfter() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openNanos - (System.nanoTime() - openedAt)));
+    }
+
+    // Helpers
+
+    private void record(boolean failed) {
+        if (windowCount == window.length) {
+            if (window[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % window.length;
+    }
+
+    private void transition(State next) {
+        state = next;
+        generation++;
+        openedAt = System.nanoTime();
+        trialsStarted = 0;
+        trialsSucceeded = 0;
+        windowCount = 0;
+        windowNext = 0;
+        windowFailures = 0;
+    }
+}
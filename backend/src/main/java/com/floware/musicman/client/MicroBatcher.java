@@ -0,0 +1,153 @@
+package com.floware.musicman.client;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * DataLoader-style aggregator: single-key loads arriving within a short window are collected
+ * and sent upstream as one multi-key call, whose results are split back to each caller.
+ * A batch is flushed when the window closes or as soon as it reaches the upstream size limit.
+ * The batch is sent with its first caller's token; should Spotify reject that token, the other
+ * callers' keys are loaded again with their own tokens, so one revoked session fails only itself.
+ */
+public class MicroBatcher<K, V> {
+
+    private final int maxBatchSize;
+    private final Duration window;
+    private final BiFunction<List<K>, String, Mono<Map<K, V>>> batchLoader;
+
+    private final Object lock = new Object();
+    private Map<K, List<Waiter<V>>> pending = new LinkedHashMap<>();
+    private String pendingAccessToken;
+    private long generation;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedKeys = new LongAdder();
+
+    public MicroBatcher(int maxBatchSize, Duration window, BiFunction<List<K>, String, Mono<Map<K, V>>> batchLoader) {
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.batchLoader = batchLoader;
+    }
+
+    // Completes empty when the upstream batch has no result for the key
+    public Mono<V> load(K key, String accessToken) {
+        return Mono.defer(() -> {
+            Sinks.One<V> sink = Sinks.one();
+            Map<K, List<Waiter<V>>> full = null;
+            String fullAccessToken = null;
+            long scheduledGeneration = -1;
+
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    // Catalog data is public, so the first caller's token serves the whole batch
+                    pendingAccessToken = accessToken;
+                    scheduledGeneration = generation;
+                }
+                pending.computeIfAbsent(key, k -> new ArrayList<>()).add(new Waiter<>(sink, accessToken));
+                if (pending.size() >= maxBatchSize) {
+                    full = pending;
+                    fullAccessToken = pendingAccessToken;
+                    pending = new LinkedHashMap<>();
+                    generation++;
+                    scheduledGeneration = -1;
+                }
+            }
+
+            if (full != null) {
+                dispatch(full, fullAccessToken, true);
+            } else if (scheduledGeneration >= 0) {
+                long flushGeneration = scheduledGeneration;
+                Schedulers.parallel().schedule(() -> flush(flushGeneration), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            return sink.asMono();
+        });
+    }
+
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    public long batchedKeyCount() {
+        return batchedKeys.sum();
+    }
+
+    // Helpers
+
+    private void flush(long expectedGeneration) {
+        Map<K, List<Waiter<V>>> batch;
+        String accessToken;
+        synchronized (lock) {
+            if (generation != expectedGeneration || pending.isEmpty()) {
+                return; // Already flushed because it filled up
+            }
+            batch = pending;
+            accessToken = pendingAccessToken;
+            pending = new LinkedHashMap<>();
+            generation++;
+        }
+        dispatch(batch, accessToken, true);
+    }
+
+    private void dispatch(Map<K, List<Waiter<V>>> batch, String accessToken, boolean retryOnRejectedToken) {
+        batches.increment();
+        batchedKeys.add(batch.size());
+        batchLoader.apply(new ArrayList<>(batch.keySet()), accessToken)
+                .defaultIfEmpty(Map.of())
+                .subscribe(
+                        results -> batch.forEach((key, waiters) -> {
+                            V value = results.get(key);
+                            for (Waiter<V> waiter : waiters) {
+                                if (value != null) {
+                                    waiter.sink().tryEmitValue(value);
+                                } else {
+                                    waiter.sink().tryEmitEmpty();
+                                }
+                            }
+                        }),
+                        error -> {
+                            if (retryOnRejectedToken && isTokenRejected(error)) {
+                                retryWithOwnTokens(batch, accessToken, error);
+                            } else {
+                                batch.values().forEach(waiters -> waiters.forEach(w -> w.sink().tryEmitError(error)));
+                            }
+                        });
+    }
+
+    // Callers holding the rejected token get the error; the rest are regrouped by token and sent once more
+    private void retryWithOwnTokens(Map<K, List<Waiter<V>>> batch, String rejectedToken, Throwable error) {
+        Map<String, Map<K, List<Waiter<V>>>> byToken = new LinkedHashMap<>();
+        batch.forEach((key, waiters) -> {
+            for (Waiter<V> waiter : waiters) {
+                if (Objects.equals(waiter.accessToken(), rejectedToken)) {
+                    waiter.sink().tryEmitError(error);
+                } else {
+                    byToken.computeIfAbsent(waiter.accessToken(), t -> new LinkedHashMap<>())
+                            .computeIfAbsent(key, k -> new ArrayList<>())
+                            .add(waiter);
+                }
+            }
+        });
+        byToken.forEach((accessToken, retry) -> dispatch(retry, accessToken, false));
+    }
+
+    private static boolean isTokenRejected(Throwable error) {
+        return error instanceof WebClientResponseException e && e.getStatusCode().value() == HttpStatus.UNAUTHORIZED.value();
+    }
+
+    private record Waiter<V>(Sinks.One<V> sink, String accessToken) {
+    }
+}
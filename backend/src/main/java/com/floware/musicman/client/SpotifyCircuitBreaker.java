@@ -0,0 +1,99 @@
+package com.floware.musicman.client;
+
+import com.floware.musicman.config.SpotifyProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint circuit breakers around calls to the Spotify Web API, keyed by the endpoint name
+ * callers set for metrics. 5xx responses, transport errors and slow calls count as failures;
+ * 4xx responses and our own rate limiting do not. While a breaker is open, calls fail at once
+ * with {@link SpotifyUnavailableException}, so callers can fall back to cached data instead of
+ * waiting on a degraded upstream. Sits outside the rate limiter, so rejected calls use no permits;
+ * {@link #wireTimer()} sits inside it, so only time on the wire decides whether a call was slow.
+ */
+@Component
+public class SpotifyCircuitBreaker implements ExchangeFilterFunction {
+
+    private static final String WIRE_TIME_ATTRIBUTE = SpotifyCircuitBreaker.class.getName() + ".wireTime";
+
+    private final SpotifyProperties.CircuitBreaker settings;
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public SpotifyCircuitBreaker(SpotifyProperties properties) {
+        this.settings = properties.getCircuitBreaker();
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!settings.isEnabled()) {
+            return next.exchange(request);
+        }
+        String endpoint = UpstreamMetricsFilter.endpointOf(request);
+        CircuitBreaker breaker = breakers.computeIfAbsent(endpoint, e -> new CircuitBreaker(settings.getWindowSize(),
+                settings.getMinimumCalls(), settings.getFailureRateThreshold(), settings.getOpenDuration(),
+                settings.getHalfOpenCalls()));
+        return Mono.defer(() -> {
+            long permit = breaker.tryAcquire();
+            if (permit == CircuitBreaker.NO_PERMIT) {
+                rejected.increment();
+                return Mono.error(new SpotifyUnavailableException(endpoint, breaker.retryAfter()));
+            }
+            long startedAt = System.nanoTime();
+            AtomicLong wireNanos = new AtomicLong(-1);
+            AtomicBoolean released = new AtomicBoolean();
+            return next.exchange(ClientRequest.from(request).attribute(WIRE_TIME_ATTRIBUTE, wireNanos).build())
+                    .doOnNext(response -> release(breaker, permit, released, response.statusCode().is5xxServerError()
+                            || callNanos(wireNanos, startedAt) > settings.getSlowCallThreshold().toNanos()
+                            ? CircuitBreaker.Outcome.FAILURE : CircuitBreaker.Outcome.SUCCESS))
+                    .doOnError(e -> release(breaker, permit, released, e instanceof SpotifyRateLimitException
+                            ? CircuitBreaker.Outcome.IGNORED : CircuitBreaker.Outcome.FAILURE))
+                    .doOnCancel(() -> release(breaker, permit, released, CircuitBreaker.Outcome.IGNORED));
+        });
+    }
+
+    // Goes inside the rate limiter: times each attempt from the moment it has its permit, so token
+    // bucket waits, Retry-After backoff and retried 429s never make a call count as slow
+    public ExchangeFilterFunction wireTimer() {
+        return (request, next) -> {
+            if (!(request.attribute(WIRE_TIME_ATTRIBUTE).orElse(null) instanceof AtomicLong wireNanos)) {
+                return next.exchange(request);
+            }
+            return Mono.defer(() -> {
+                long startedAt = System.nanoTime();
+                return next.exchange(request).doOnNext(response -> wireNanos.set(System.nanoTime() - startedAt));
+            });
+        };
+    }
+
+    public long getRejectedCalls() {
+        return rejected.sum();
+    }
+
+    public long getOpenCount() {
+        return breakers.values().stream().filter(b -> b.getState() != CircuitBreaker.State.CLOSED).count();
+    }
+
+    // The last attempt's time on the wire; the whole call when no wire timer is installed below
+    private static long callNanos(AtomicLong wireNanos, long startedAt) {
+        long wire = wireNanos.get();
+        return wire >= 0 ? wire : System.nanoTime() - startedAt;
+    }
+
+    private void release(CircuitBreaker breaker, long permit, AtomicBoolean released, CircuitBreaker.Outcome outcome) {
+        if (released.compareAndSet(false, true)) {
+            breaker.release(permit, outcome);
+        }
+    }
+}
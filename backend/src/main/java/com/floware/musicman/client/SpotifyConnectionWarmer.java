@@ -0,0 +1,56 @@
+package com.floware.musicman.client;
+
+import com.floware.musicman.config.SpotifyProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+/**
+ * Opens pooled connections to the Spotify hosts once the app is ready, so the first user
+ * requests find DNS resolved and TCP/TLS (and ALPN) already negotiated. Runs in the
+ * background and bypasses the rate limiter: the HEAD requests are not Web API calls.
+ */
+@Component
+public class SpotifyConnectionWarmer {
+
+    private final HttpClient httpClient;
+    private final SpotifyProperties.Http settings;
+    private final List<String> hosts;
+
+    public SpotifyConnectionWarmer(HttpClient spotifyHttpClient, SpotifyProperties properties) {
+        this.httpClient = spotifyHttpClient;
+        this.settings = properties.getHttp();
+        this.hosts = List.of(properties.getApiBaseUrl(), properties.getAccountsBaseUrl());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (settings.getWarmupConnections() <= 0) {
+            return;
+        }
+        // Initializes event loops and the DNS resolver before any connection is made
+        httpClient.warmup()
+                .thenMany(Flux.fromIterable(hosts))
+                .flatMap(this::warmHost)
+                .subscribe();
+    }
+
+    private Mono<Void> warmHost(String baseUrl) {
+        long started = System.nanoTime();
+        return Flux.range(0, settings.getWarmupConnections())
+                .flatMap(i -> httpClient.head()
+                        .uri(baseUrl)
+                        .responseSingle((response, body) -> body.then())
+                        .onErrorResume(e -> {
+                            System.out.println("[WARMUP] Could not open connection to " + baseUrl + ": " + e.getMessage());
+                            return Mono.empty();
+                        }))
+                .then(Mono.fromRunnable(() -> System.out.println("[WARMUP] Connections to " + baseUrl + " ready in "
+                        + (System.nanoTime() - started) / 1_000_000 + " ms")));
+    }
+}
@@ -0,0 +1,53 @@
+package com.floware.musicman.client;
+
+import com.floware.musicman.dto.SpotifyResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reads every page of a Spotify paging object. The first page is fetched on its own to learn
+ * {@code total}; the remaining offsets are then requested concurrently (bounded) and their items
+ * emitted in offset order, so a long list costs roughly two round trips instead of one per page.
+ */
+public class SpotifyPager {
+
+    // Fetches the page starting at offset with at most limit items
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        Mono<SpotifyResponse<T>> fetch(int offset, int limit);
+    }
+
+    private final int pageSize;
+    private final int concurrency;
+
+    public SpotifyPager(int pageSize, int concurrency) {
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+    }
+
+    // Completes once the first page has arrived, so upstream errors surface before anything is streamed
+    public <T> Mono<Flux<T>> fetchAll(PageFetcher<T> fetcher, int maxItems) {
+        int firstLimit = Math.min(pageSize, Math.max(1, maxItems));
+        return fetcher.fetch(0, firstLimit).map(first -> {
+            List<T> firstItems = itemsOf(first);
+            int total = Math.min(first.getTotal() != null ? first.getTotal() : firstItems.size(), maxItems);
+            if (firstItems.isEmpty() || firstItems.size() >= total) {
+                return Flux.fromIterable(firstItems).take(maxItems);
+            }
+
+            int remainingPages = (total + firstLimit - 1) / firstLimit - 1;
+            Flux<T> rest = Flux.range(1, remainingPages)
+                    .map(page -> page * firstLimit)
+                    .flatMapSequential(offset -> fetcher.fetch(offset, Math.min(firstLimit, total - offset)),
+                            concurrency)
+                    .concatMapIterable(SpotifyPager::itemsOf);
+            return Flux.fromIterable(firstItems).concatWith(rest).take(maxItems);
+        });
+    }
+
+    private static <T> List<T> itemsOf(SpotifyResponse<T> page) {
+        return page.getItems() != null ? page.getItems() : List.of();
+    }
+}
@@ -0,0 +1,15 @@
+package com.floware.musicman.client;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class SpotifyRateLimitException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public SpotifyRateLimitException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,226 @@
+package com.floware.musicman.client;
+
+import com.floware.musicman.config.SpotifyProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-side limiter shared by every call to api.spotify.com. Each call takes a token from
+ * the bucket and a slot in the AIMD concurrency window. A 429 shrinks the window and opens a
+ * global backoff window from Retry-After; idempotent GETs are retried with jittered backoff.
+ */
+@Component
+public class SpotifyRateLimiter implements ExchangeFilterFunction {
+
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final SpotifyProperties.RateLimit settings;
+    private final TokenBucket tokenBucket;
+    private final AimdConcurrencyLimit concurrencyLimit;
+    private final AtomicReference<Instant> backoffUntil = new AtomicReference<>(Instant.EPOCH);
+    private final LongAdder throttledResponses = new LongAdder();
+
+    public SpotifyRateLimiter(SpotifyProperties properties) {
+        this.settings = properties.getRateLimit();
+        this.tokenBucket = new TokenBucket(settings.getPermitsPerSecond(), settings.getBurst());
+        this.concurrencyLimit = new AimdConcurrencyLimit(
+                settings.getInitialConcurrency(), settings.getMinConcurrency(), settings.getMaxConcurrency());
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        Mono<ClientResponse> attempt = exchangeWithPermit(request, next);
+        if (!HttpMethod.GET.equals(request.method())) {
+            return attempt;
+        }
+
+        return attempt
+                .flatMap(response -> response.statusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()
+                        ? response.releaseBody().then(Mono.<ClientResponse>error(new SpotifyRateLimitException(
+                                "Spotify rate limit reached", backoffRemaining())))
+                        : Mono.just(response))
+                .retryWhen(Retry.backoff(settings.getMaxRetries(), settings.getRetryBackoff())
+                        .jitter(0.5)
+                        .filter(e -> e instanceof SpotifyRateLimitException && !(e instanceof PermitUnavailableException))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit.getLimit();
+    }
+
+    public int getInFlight() {
+        return concurrencyLimit.getInFlight();
+    }
+
+    public int getWaiting() {
+        return concurrencyLimit.getWaiting();
+    }
+
+    public double getAvailablePermits() {
+        return tokenBucket.available();
+    }
+
+    public long getThrottledResponses() {
+        return throttledResponses.sum();
+    }
+
+    public Duration backoffRemaining() {
+        Duration remaining = Duration.between(Instant.now(), backoffUntil.get());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    // Helpers
+
+    // holdsSlot settles who gives the slot back when a grant races a cancel, so it is returned exactly once
+    private Mono<ClientResponse> exchangeWithPermit(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            AtomicBoolean holdsSlot = new AtomicBoolean();
+            return acquire(holdsSlot)
+                    .then(Mono.defer(() -> {
+                        AtomicBoolean throttled = new AtomicBoolean();
+                        return next.exchange(request)
+                                .doOnNext(response -> {
+                                    if (response.statusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                                        throttled.set(true);
+                                        throttledResponses.increment();
+                                        startBackoff(response.headers().asHttpHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+                                    }
+                                })
+                                .doOnError(e -> throttled.set(true))
+                                .doFinally(signal -> {
+                                    if (holdsSlot.getAndSet(false)) {
+                                        concurrencyLimit.release(throttled.get());
+                                    }
+                                });
+                    }))
+                    .doOnCancel(() -> {
+                        // A cancelled caller's slot goes back without counting as a completed call
+                        if (holdsSlot.getAndSet(false)) {
+                            concurrencyLimit.returnUnused();
+                        }
+                    });
+        });
+    }
+
+    private Mono<Void> acquire(AtomicBoolean holdsSlot) {
+        return Mono.defer(() -> {
+            long waitNanos = Math.max(tokenBucket.reserve(), backoffRemaining().toNanos());
+            if (waitNanos > settings.getMaxWait().toNanos()) {
+                tokenBucket.refund();
+                return Mono.error(new PermitUnavailableException(Duration.ofNanos(waitNanos)));
+            }
+            Mono<Long> wait = waitNanos > 0 ? Mono.delay(Duration.ofNanos(waitNanos)) : Mono.empty();
+            // A caller that gives up on the slot made no call, so its bucket token goes back
+            return wait.then(acquireSlot(holdsSlot))
+                    .doOnError(PermitUnavailableException.class, e -> tokenBucket.refund());
+        });
+    }
+
+    // Queues for a concurrency slot instead of polling; the release that frees one hands it over directly
+    private Mono<Void> acquireSlot(AtomicBoolean holdsSlot) {
+        return Mono.create(sink -> {
+            SlotWaiter waiter = new SlotWaiter(sink, holdsSlot);
+            if (concurrencyLimit.acquireOrWait(waiter)) {
+                holdsSlot.set(true);
+                sink.success();
+                return;
+            }
+            waiter.timeout = Schedulers.parallel().schedule(() -> {
+                if (waiter.giveUp()) {
+                    sink.error(new PermitUnavailableException(settings.getMaxWait()));
+                }
+            }, settings.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+            sink.onCancel(waiter::giveUp);
+        });
+    }
+
+    private void startBackoff(String retryAfter) {
+        Instant until = Instant.now().plus(parseRetryAfter(retryAfter));
+        backoffUntil.accumulateAndGet(until, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+        System.out.println("[RATE LIMIT] Spotify returned 429, backing off until " + backoffUntil.get());
+    }
+
+    static Duration parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return DEFAULT_RETRY_AFTER;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Instant at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                Duration delay = Duration.between(Instant.now(), at);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ex) {
+                return DEFAULT_RETRY_AFTER;
+            }
+        }
+    }
+
+    private final class SlotWaiter implements Runnable {
+        private final MonoSink<Void> sink;
+        private final AtomicBoolean holdsSlot;
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private volatile Disposable timeout;
+
+        SlotWaiter(MonoSink<Void> sink, AtomicBoolean holdsSlot) {
+            this.sink = sink;
+            this.holdsSlot = holdsSlot;
+        }
+
+        // Called by a release with a slot already taken for this waiter
+        @Override
+        public void run() {
+            holdsSlot.set(true);
+            if (settled.compareAndSet(false, true)) {
+                if (timeout != null) {
+                    timeout.dispose();
+                }
+                sink.success();
+            } else if (holdsSlot.getAndSet(false)) {
+                concurrencyLimit.returnUnused(); // Timed out or cancelled while the slot was on its way
+            }
+        }
+
+        // Returns false when the slot was granted first
+        boolean giveUp() {
+            if (!settled.compareAndSet(false, true)) {
+                return false;
+            }
+            concurrencyLimit.cancelWait(this); // Should a release have just dequeued it, run() returns the slot
+            if (timeout != null) {
+                timeout.dispose();
+            }
+            return true;
+        }
+    }
+
+    // Raised locally when no permit is available within maxWait; never retried
+    static class PermitUnavailableException extends SpotifyRateLimitException {
+        PermitUnavailableException(Duration retryAfter) {
+            super("Spotify request budget exhausted", retryAfter);
+        }
+    }
+}
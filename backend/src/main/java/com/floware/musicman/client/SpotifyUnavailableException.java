@@ -0,0 +1,18 @@
+package com.floware.musicman.client;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+// Raised without calling Spotify while the circuit for an endpoint is open
+@Getter
+public class SpotifyUnavailableException extends RuntimeException {
+    private final String endpoint;
+    private final Duration retryAfter;
+
+    public SpotifyUnavailableException(String endpoint, Duration retryAfter) {
+        super("Spotify is unavailable for " + endpoint);
+        this.endpoint = endpoint;
+        this.retryAfter = retryAfter;
+    }
+}
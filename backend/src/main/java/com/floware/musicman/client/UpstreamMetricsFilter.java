@@ -0,0 +1,67 @@
+package com.floware.musicman.client;
+
+import com.floware.musicman.config.SpotifyClientConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Times every exchange with Spotify as spotify.upstream.requests, tagged by the logical
+ * endpoint name the caller set with {@link #endpoint(String)} and by the response status.
+ * Sits inside the rate limiter, so each attempt is timed and permit waits are not included.
+ */
+@Component
+public class UpstreamMetricsFilter implements ExchangeFilterFunction {
+
+    public static final String METRIC_NAME = "spotify.upstream.requests";
+    private static final String ENDPOINT_ATTRIBUTE = UpstreamMetricsFilter.class.getName() + ".endpoint";
+
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Usage: webClient.get().uri(...).attributes(UpstreamMetricsFilter.endpoint("artist"))
+    public static Consumer<Map<String, Object>> endpoint(String name) {
+        return attributes -> attributes.put(ENDPOINT_ATTRIBUTE, name);
+    }
+
+    // The name set with endpoint(String), or the bounded URI template when none was set
+    public static String endpointOf(ClientRequest request) {
+        return request.attribute(ENDPOINT_ATTRIBUTE)
+                .map(Object::toString)
+                .orElseGet(() -> SpotifyClientConfig.uriTagValue(request.url().getPath()));
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String endpoint = endpointOf(request);
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return next.exchange(request)
+                    .doOnNext(response -> stop(sample, endpoint, request, String.valueOf(response.statusCode().value())))
+                    .doOnError(e -> stop(sample, endpoint, request, e instanceof TimeoutException ? "TIMEOUT" : "IO_ERROR"))
+                    .doOnCancel(() -> stop(sample, endpoint, request, "CANCELLED"));
+        });
+    }
+
+    private void stop(Timer.Sample sample, String endpoint, ClientRequest request, String status) {
+        sample.stop(Timer.builder(METRIC_NAME)
+                .description("Latency of calls to the Spotify APIs")
+                .tag("endpoint", endpoint)
+                .tag("method", request.method().name())
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
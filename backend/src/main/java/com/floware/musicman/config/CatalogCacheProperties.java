@@ -0,0 +1,30 @@
+package com.floware.musicman.config;
+
+import com.floware.musicman.cache.CatalogResource;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "musicman.catalog-cache")
+public class CatalogCacheProperties {
+    private long maximumSize = 10_000;
+    private Duration artistTtl = Duration.ofHours(6);
+    private Duration albumTtl = Duration.ofHours(24);
+    private Duration artistTopTracksTtl = Duration.ofHours(1);
+    private Duration artistAlbumsTtl = Duration.ofHours(6);
+    // Expired entries are kept this much longer so they can be revalidated upstream with If-None-Match
+    private Duration staleRetention = Duration.ofHours(24);
+    // A request for an expired entry waits this long for the refresh before the stale entry is served
+    private Duration staleTimeout = Duration.ofSeconds(1);
+
+    public Duration ttlFor(CatalogResource resource) {
+        return switch (resource) {
+            case ARTIST -> artistTtl;
+            case ALBUM -> albumTtl;
+            case ARTIST_TOP_TRACKS -> artistTopTracksTtl;
+            case ARTIST_ALBUMS -> artistAlbumsTtl;
+        };
+    }
+}
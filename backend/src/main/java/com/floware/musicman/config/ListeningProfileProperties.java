@@ -0,0 +1,21 @@
+package com.floware.musicman.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "musicman.listening-profile")
+public class ListeningProfileProperties {
+    // Top artists analyzed per time range; at most the top-artists cache fetch size avoids extra loads
+    private int artistsPerRange = 50;
+    // Genres listed per range and overall, most common first
+    private int topGenres = 20;
+    // Names listed for artists that appear in every range
+    private int staples = 10;
+    // Users held at once; entries are also dropped when the user's session ends
+    private long maximumUsers = 10_000;
+    // Profiles not requested for this long are dropped
+    private Duration retention = Duration.ofHours(24);
+}
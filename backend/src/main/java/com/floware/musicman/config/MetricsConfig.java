@@ -0,0 +1,159 @@
+package com.floware.musicman.config;
+
+import com.floware.musicman.analytics.ListeningProfileEngine;
+import com.floware.musicman.cache.ArtistPrefetcher;
+import com.floware.musicman.cache.CatalogCache;
+import com.floware.musicman.cache.SearchCache;
+import com.floware.musicman.cache.TopArtistsCache;
+import com.floware.musicman.cache.TypeaheadIndex;
+import com.floware.musicman.client.SpotifyCircuitBreaker;
+import com.floware.musicman.client.SpotifyRateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Gauges over state the client components already track; upstream latency is timed by UpstreamMetricsFilter
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder spotifyRateLimiterMetrics(SpotifyRateLimiter rateLimiter) {
+        return registry -> {
+            Gauge.builder("spotify.ratelimit.concurrency.limit", rateLimiter, SpotifyRateLimiter::getConcurrencyLimit)
+                    .register(registry);
+            Gauge.builder("spotify.ratelimit.inflight", rateLimiter, SpotifyRateLimiter::getInFlight)
+                    .register(registry);
+            Gauge.builder("spotify.ratelimit.waiting", rateLimiter, SpotifyRateLimiter::getWaiting)
+                    .description("Calls queued for a concurrency slot")
+                    .register(registry);
+            Gauge.builder("spotify.ratelimit.permits.available", rateLimiter, SpotifyRateLimiter::getAvailablePermits)
+                    .register(registry);
+            Gauge.builder("spotify.ratelimit.backoff.seconds", rateLimiter, r -> r.backoffRemaining().toMillis() / 1000.0)
+                    .register(registry);
+            FunctionCounter.builder("spotify.ratelimit.throttled", rateLimiter, SpotifyRateLimiter::getThrottledResponses)
+                    .description("429 responses from Spotify")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder spotifyCircuitBreakerMetrics(SpotifyCircuitBreaker circuitBreaker) {
+        return registry -> {
+            Gauge.builder("spotify.circuit.open", circuitBreaker, SpotifyCircuitBreaker::getOpenCount)
+                    .description("Endpoints whose circuit is open or half-open")
+                    .register(registry);
+            FunctionCounter.builder("spotify.circuit.rejected", circuitBreaker, SpotifyCircuitBreaker::getRejectedCalls)
+                    .description("Calls failed fast without reaching Spotify")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder catalogCacheMetrics(CatalogCache catalogCache) {
+        return registry -> {
+            Gauge.builder("catalog.cache.size", catalogCache, CatalogCache::size)
+                    .register(registry);
+            FunctionCounter.builder("catalog.cache.requests", catalogCache, c -> c.stats().hitCount())
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("catalog.cache.requests", catalogCache, c -> c.stats().missCount())
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("catalog.cache.evictions", catalogCache, c -> c.stats().evictionCount())
+                    .register(registry);
+            FunctionCounter.builder("catalog.cache.coalesced", catalogCache, CatalogCache::coalescedCount)
+                    .description("Cache misses that joined an in-flight upstream load")
+                    .register(registry);
+            FunctionCounter.builder("catalog.cache.stale", catalogCache, CatalogCache::staleServedCount)
+                    .description("Expired entries served because the refresh failed or was too slow")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder searchCacheMetrics(SearchCache searchCache, TypeaheadIndex typeaheadIndex) {
+        return registry -> {
+            Gauge.builder("search.cache.size", searchCache, SearchCache::size)
+                    .register(registry);
+            FunctionCounter.builder("search.cache.requests", searchCache, c -> c.stats().hitCount())
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("search.cache.requests", searchCache, c -> c.stats().missCount())
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("search.cache.coalesced", searchCache, SearchCache::coalescedCount)
+                    .register(registry);
+            Gauge.builder("search.typeahead.entries", typeaheadIndex, TypeaheadIndex::size)
+                    .description("Indexed name terms")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder topArtistsCacheMetrics(TopArtistsCache topArtistsCache) {
+        return registry -> {
+            Gauge.builder("top.artists.cache.users", topArtistsCache, TopArtistsCache::size)
+                    .register(registry);
+            FunctionCounter.builder("top.artists.cache.requests", topArtistsCache, TopArtistsCache::hitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("top.artists.cache.requests", topArtistsCache, TopArtistsCache::staleHitCount)
+                    .tag("result", "stale")
+                    .description("Served past the soft TTL while a background refresh runs")
+                    .register(registry);
+            FunctionCounter.builder("top.artists.cache.requests", topArtistsCache, TopArtistsCache::missCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("top.artists.cache.coalesced", topArtistsCache, TopArtistsCache::coalescedCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder listeningProfileMetrics(ListeningProfileEngine engine) {
+        return registry -> {
+            Gauge.builder("listening.profile.users", engine, ListeningProfileEngine::size)
+                    .register(registry);
+            FunctionCounter.builder("listening.profile.requests", engine, ListeningProfileEngine::computedCount)
+                    .tag("result", "computed")
+                    .register(registry);
+            FunctionCounter.builder("listening.profile.requests", engine, ListeningProfileEngine::reusedCount)
+                    .tag("result", "reused")
+                    .description("Served as computed before because no range changed")
+                    .register(registry);
+            FunctionCounter.builder("listening.profile.ranges.aggregated", engine, ListeningProfileEngine::rangesAggregatedCount)
+                    .description("Ranges counted again; below three per computed profile when only some ranges changed")
+                    .register(registry);
+        };
+    }
+
+    // Hit rate: prefetch.used over prefetch.loads{result=fetched}
+    @Bean
+    public MeterBinder artistPrefetcherMetrics(ArtistPrefetcher prefetcher) {
+        return registry -> {
+            FunctionCounter.builder("prefetch.loads", prefetcher, ArtistPrefetcher::fetchedCount)
+                    .tag("result", "fetched")
+                    .register(registry);
+            FunctionCounter.builder("prefetch.loads", prefetcher, ArtistPrefetcher::alreadyCachedCount)
+                    .tag("result", "cached")
+                    .register(registry);
+            FunctionCounter.builder("prefetch.loads", prefetcher, ArtistPrefetcher::skippedCount)
+                    .tag("result", "skipped")
+                    .description("Not started because user traffic was using the upstream budget")
+                    .register(registry);
+            FunctionCounter.builder("prefetch.loads", prefetcher, ArtistPrefetcher::droppedCount)
+                    .tag("result", "dropped")
+                    .register(registry);
+            FunctionCounter.builder("prefetch.loads", prefetcher, ArtistPrefetcher::failedCount)
+                    .tag("result", "failed")
+                    .register(registry);
+            FunctionCounter.builder("prefetch.used", prefetcher, ArtistPrefetcher::usedCount)
+                    .description("Prefetched entries later read by a user request")
+                    .register(registry);
+            Gauge.builder("prefetch.queue", prefetcher, ArtistPrefetcher::queueSize)
+                    .register(registry);
+        };
+    }
+}
@@ -2,13 +2,16 @@ package com.floware.musicman.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.oauth2.client.*;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 
 @Configuration
 public class OAuthClientConfig {
 
+    // Built on first use rather than at startup; nothing on the startup path needs it
     @Bean
+    @Lazy
     public OAuth2AuthorizedClientManager authorizedClientManager(
             ClientRegistrationRepository clientRegistrationRepository,
             OAuth2AuthorizedClientService authorizedClientService
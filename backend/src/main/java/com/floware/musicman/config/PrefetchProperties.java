@@ -0,0 +1,27 @@
+package com.floware.musicman.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "musicman.prefetch")
+public class PrefetchProperties {
+    // Warm artist, top tracks and albums for the artists on a freshly loaded top-artists list
+    private boolean enabled = false;
+    // Leading artists of each list that are prefetched
+    private int artistsPerList = 10;
+    // Background loads running at once, and loads allowed to wait for a worker
+    private int concurrency = 2;
+    private int queueCapacity = 200;
+    // Prefetch only uses spare upstream budget: it is skipped below this many bucket permits,
+    // above this share of the concurrency window, or while Spotify's Retry-After backoff is active
+    private double minAvailablePermits = 10;
+    private double maxWindowUtilization = 0.5;
+    private Duration loadTimeout = Duration.ofSeconds(5);
+    // An artist is not queued again within this period, whatever the outcome
+    private Duration requeueAfter = Duration.ofMinutes(10);
+    // How long a prefetched entry counts towards the hit rate if a user request reads it
+    private Duration hitWindow = Duration.ofMinutes(30);
+}
@@ -0,0 +1,17 @@
+package com.floware.musicman.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "musicman.search-cache")
+public class SearchCacheProperties {
+    private long maximumSize = 5_000;
+    private Duration ttl = Duration.ofMinutes(10);
+    // Names indexed for typeahead; once full, rarely seen names make room for new ones
+    private int typeaheadMaxEntries = 200_000;
+    // Prefix matches considered before ranking by popularity
+    private int typeaheadCandidates = 200;
+}
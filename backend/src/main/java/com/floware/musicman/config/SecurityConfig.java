@@ -8,6 +8,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseCookie;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -31,8 +32,10 @@ public class SecurityConfig {
     private final UserSessionService userSessionService;
     private final OAuth2AuthorizedClientService clientService;
 
+    // The filter chain has to be ready for the first request; the client service is only needed
+    // by the login and logout handlers, so it is resolved when one of them first runs
     public SecurityConfig(UserSessionService userSessionService,
-                          OAuth2AuthorizedClientService clientService) {
+                          @Lazy OAuth2AuthorizedClientService clientService) {
         this.userSessionService = userSessionService;
         this.clientService = clientService;
     }
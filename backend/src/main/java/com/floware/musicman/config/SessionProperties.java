@@ -0,0 +1,66 @@
+package com.floware.musicman.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "musicman.session")
+public class SessionProperties {
+    // How long before expiry the background scheduler refreshes a token
+    private Duration refreshAhead = Duration.ofMinutes(5);
+    private Duration refreshRetryDelay = Duration.ofSeconds(30);
+    // Sessions without a request for this long are not refreshed ahead; their next request refreshes them
+    private Duration refreshIdleWindow = Duration.ofHours(1);
+    // How long a replica waits for another replica's refresh of the same user; after that the request
+    // keeps the old token while it is still valid, or fails, but never refreshes without the lock
+    private Duration refreshLockWait = Duration.ofSeconds(5);
+    private int refreshThreads = 2;
+    private int refreshQueueCapacity = 1_000;
+    private StoreType store = StoreType.MEMORY;
+    private Mapped mapped = new Mapped();
+    private Redis redis = new Redis();
+
+    public enum StoreType {
+        // On-heap map; sessions are lost on restart
+        MEMORY,
+        // Fixed-size records in memory-mapped files; sessions survive restarts
+        MAPPED,
+        // Shared Redis instance, so any replica can serve any user
+        REDIS
+    }
+
+    @Data
+    public static class Mapped {
+        private Path directory = Path.of("data/sessions");
+        // Beyond this the least recently used sessions are evicted
+        private int capacity = 1_000_000;
+        // Each segment is its own file, lock and LRU list
+        private int segments = 16;
+        // Record slots are sized for the longest values; longer ones are rejected
+        private int maxIdLength = 128;
+        private int maxAccessTokenLength = 1024;
+        private int maxRefreshTokenLength = 512;
+    }
+
+    @Data
+    public static class Redis {
+        private String uri = "redis://localhost:6379";
+        private String keyPrefix = "musicman:session:";
+        // Replicas publish session ids here when they change or drop a session
+        private String invalidationChannel = "musicman:session:invalidations";
+        // Idle sessions are dropped by Redis after this; every write renews it
+        private Duration ttl = Duration.ofDays(30);
+        private Duration commandTimeout = Duration.ofSeconds(2);
+        // Per-replica read cache; the TTL bounds staleness should an invalidation be missed
+        private int nearCacheSize = 10_000;
+        private Duration nearCacheTtl = Duration.ofSeconds(30);
+        // How long the sessions.active gauge reuses a key count, since counting scans the keyspace
+        private Duration sizeRefreshInterval = Duration.ofSeconds(30);
+        // Per-user lock held while a replica refreshes a token; must not share the session key prefix
+        private String refreshLockKeyPrefix = "musicman:refresh-lock:";
+        private Duration refreshLockTtl = Duration.ofSeconds(10);
+    }
+}
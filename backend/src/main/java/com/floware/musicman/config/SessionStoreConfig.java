@@ -0,0 +1,24 @@
+package com.floware.musicman.config;
+
+import com.floware.musicman.session.InMemorySessionStore;
+import com.floware.musicman.session.MappedSessionStore;
+import com.floware.musicman.session.RedisSessionStore;
+import com.floware.musicman.session.SessionStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+// Picks the session store from musicman.session.store; Spring closes it on shutdown
+@Configuration
+public class SessionStoreConfig {
+
+    @Bean
+    public SessionStore sessionStore(SessionProperties sessionProperties) throws IOException {
+        return switch (sessionProperties.getStore()) {
+            case MEMORY -> new InMemorySessionStore();
+            case MAPPED -> new MappedSessionStore(sessionProperties.getMapped());
+            case REDIS -> new RedisSessionStore(sessionProperties.getRedis());
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package com.floware.musicman.config;
+
+import com.floware.musicman.client.SpotifyCircuitBreaker;
+import com.floware.musicman.client.SpotifyRateLimiter;
+import com.floware.musicman.client.UpstreamMetricsFilter;
+import io.netty.channel.ChannelOption;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.regex.Pattern;
+
+// One Reactor Netty client, and so one set of connection pools, for every call to Spotify
+@Configuration
+public class SpotifyClientConfig {
+
+    // Spotify ids are 22 base62 characters
+    private static final Pattern SPOTIFY_ID_SEGMENT = Pattern.compile("/[0-9A-Za-z]{22}(?=/|$)");
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider spotifyConnectionProvider(SpotifyProperties properties) {
+        SpotifyProperties.Http http = properties.getHttp();
+        return ConnectionProvider.builder("spotify")
+                .maxConnections(http.getMaxConnections())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+                .maxIdleTime(http.getMaxIdleTime())
+                .maxLifeTime(http.getMaxLifeTime())
+                .evictInBackground(http.getEvictInBackground())
+                .lifo() // Reuse the warmest connection and let the rest age out
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public HttpClient spotifyHttpClient(ConnectionProvider spotifyConnectionProvider, SpotifyProperties properties) {
+        SpotifyProperties.Http http = properties.getHttp();
+        HttpClient client = HttpClient.create(spotifyConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(http.getResponseTimeout())
+                .compress(http.isCompression())
+                .resolver(spec -> spec
+                        .cacheMaxTimeToLive(http.getDnsCacheTtl())
+                        .cacheNegativeTimeToLive(http.getDnsCacheTtl()))
+                .metrics(true, SpotifyClientConfig::uriTagValue);
+        // h2 is negotiated over TLS, so a plain-http stand-in (e.g. the load-test server) gets HTTP/1.1
+        if (http.isHttp2() && isHttps(properties.getApiBaseUrl()) && isHttps(properties.getAccountsBaseUrl())) {
+            client = client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+        return client;
+    }
+
+    @Bean
+    public ReactorClientHttpConnector spotifyClientHttpConnector(HttpClient spotifyHttpClient) {
+        return new ReactorClientHttpConnector(spotifyHttpClient);
+    }
+
+    @Bean
+    public WebClient spotifyWebClient(WebClient.Builder builder,
+                                      ReactorClientHttpConnector spotifyClientHttpConnector,
+                                      SpotifyCircuitBreaker circuitBreaker,
+                                      SpotifyRateLimiter rateLimiter,
+                                      UpstreamMetricsFilter metricsFilter,
+                                      SpotifyProperties properties) {
+        // The circuit breaker sees each call's final outcome after retries, and open circuits use no permits.
+        // The rate limiter wraps the breaker's wire timer and the metrics filter, so each attempt is timed
+        // without its permit wait.
+        return builder.clone()
+                .baseUrl(properties.getApiBaseUrl())
+                .clientConnector(spotifyClientHttpConnector)
+                .filter(circuitBreaker)
+                .filter(rateLimiter)
+                .filter(circuitBreaker.wireTimer())
+                .filter(metricsFilter)
+                .build();
+    }
+
+    // The accounts service has its own limits, so token calls skip the Web API rate limiter
+    @Bean
+    public WebClient spotifyAccountsWebClient(WebClient.Builder builder,
+                                              ReactorClientHttpConnector spotifyClientHttpConnector,
+                                              UpstreamMetricsFilter metricsFilter,
+                                              SpotifyProperties properties) {
+        return builder.clone()
+                .baseUrl(properties.getAccountsBaseUrl())
+                .clientConnector(spotifyClientHttpConnector)
+                .filter(metricsFilter)
+                .build();
+    }
+
+    private static boolean isHttps(String baseUrl) {
+        return baseUrl.startsWith("https://");
+    }
+
+    // Keeps the metric uri tag bounded: ids and query strings are collapsed. Public for
+    // UpstreamMetricsFilter, which tags its own timers the same way.
+    public static String uriTagValue(String uri) {
+        int query = uri.indexOf('?');
+        String path = query >= 0 ? uri.substring(0, query) : uri;
+        return SPOTIFY_ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+}
@@ -0,0 +1,89 @@
+package com.floware.musicman.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "musicman.spotify")
+public class SpotifyProperties {
+    // Overridable so tests and the load-test harness can point at a local stand-in
+    private String apiBaseUrl = "https://api.spotify.com/v1";
+    private String accountsBaseUrl = "https://accounts.spotify.com";
+    // Upper bound for each leg of the composite artist page before it is reported as missing
+    private Duration artistPageLegTimeout = Duration.ofSeconds(3);
+    private RateLimit rateLimit = new RateLimit();
+    private Batch batch = new Batch();
+    private Http http = new Http();
+    private Paging paging = new Paging();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Data
+    public static class RateLimit {
+        // Token bucket shared by every upstream call
+        private double permitsPerSecond = 20;
+        private int burst = 40;
+        // AIMD concurrency window: +1 per window of successes, halved on 429 or transport errors
+        private int initialConcurrency = 16;
+        private int minConcurrency = 2;
+        private int maxConcurrency = 64;
+        // Retries of idempotent GETs answered with 429
+        private int maxRetries = 2;
+        private Duration retryBackoff = Duration.ofMillis(250);
+        // Calls that would wait longer than this for a permit fail fast instead
+        private Duration maxWait = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Batch {
+        // Collect single-id artist and album lookups onto Spotify's multi-id endpoints
+        private boolean enabled = true;
+        private Duration window = Duration.ofMillis(5);
+    }
+
+    @Data
+    public static class Http {
+        // One pool per remote host (api.spotify.com, accounts.spotify.com), shared by every WebClient
+        private int maxConnections = 100;
+        private int pendingAcquireMaxCount = 500;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        // Close idle connections before Spotify's load balancers do, so we never write to a dead socket
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration responseTimeout = Duration.ofSeconds(10);
+        // Negotiated through ALPN; falls back to HTTP/1.1 when the server does not offer h2
+        private boolean http2 = true;
+        private boolean compression = true;
+        private Duration dnsCacheTtl = Duration.ofMinutes(1);
+        // Connections opened per host at startup so the first requests skip the TCP and TLS handshakes
+        private int warmupConnections = 4;
+    }
+
+    @Data
+    public static class Paging {
+        // Spotify's largest page for top items, artist albums and album tracks
+        private int pageSize = 50;
+        // Pages of one list requested at the same time once the total is known
+        private int concurrency = 4;
+        // Ceiling on items per list, whatever the caller asks for
+        private int maxItems = 1_000;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        // One breaker per logical endpoint (artist, search, top-artists, ...)
+        private boolean enabled = true;
+        // Failure rate over the last windowSize calls that opens the breaker, once minimumCalls are seen
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        // Successful calls slower than this count as failures
+        private Duration slowCallThreshold = Duration.ofSeconds(2);
+        // Open breakers fail fast for this long, then let halfOpenCalls trial calls through
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+    }
+}
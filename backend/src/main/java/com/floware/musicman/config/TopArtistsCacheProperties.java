@@ -0,0 +1,21 @@
+package com.floware.musicman.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "musicman.top-artists-cache")
+public class TopArtistsCacheProperties {
+    // Past this a cached list is still served, but refreshed in the background
+    private Duration softTtl = Duration.ofHours(6);
+    // Past this a cached list is not served and the request waits for Spotify
+    private Duration hardTtl = Duration.ofHours(24);
+    // Lists past the hard TTL are kept this much longer, served only when loading a new one fails
+    private Duration staleRetention = Duration.ofHours(24);
+    // Users held at once; entries are also dropped when the user's session ends
+    private long maximumUsers = 10_000;
+    // Artists fetched per load, so smaller limits are slices of one upstream result
+    private int fetchSize = 50;
+}
@@ -1,19 +1,50 @@
 package com.floware.musicman.controller;
 
+import com.floware.musicman.cache.CatalogEntry;
+import com.floware.musicman.cache.CatalogResource;
+import com.floware.musicman.cache.TypeaheadIndex;
+import com.floware.musicman.client.SpotifyRateLimitException;
+import com.floware.musicman.client.SpotifyUnavailableException;
 import com.floware.musicman.dto.ArtistDTO;
+import com.floware.musicman.dto.ArtistPageDTO;
+import com.floware.musicman.dto.ListeningProfileDTO;
+import com.floware.musicman.json.JsonProjection;
+import com.floware.musicman.json.ResponseProjections;
+import com.floware.musicman.model.TimeRange;
 import com.floware.musicman.model.UserProfile;
 import com.floware.musicman.service.SpotifyService;
 import com.floware.musicman.service.UserSessionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/spotify")
@@ -21,6 +52,12 @@ import java.util.List;
 @CrossOrigin
 public class SpotifyController {
 
+    // RFC 7234 warn-code for responses served past their freshness
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+    // Upstream and connection timeouts bound a pass-through, so the async request itself never times out
+    private static final long NO_TIMEOUT = -1;
+    private static final ServerSentEvent<String> SEARCH_DONE = ServerSentEvent.builder("{}").event("done").build();
+
     private final SpotifyService spotifyService;
     private final UserSessionService userSessionService;
 
@@ -34,103 +71,446 @@ public class SpotifyController {
     }
 
     @GetMapping("/me/top/artists")
-    public ResponseEntity<List<ArtistDTO>> getTopArtists(@AuthenticationPrincipal OAuth2User principal) {
-        try {
-            String spotifyId = principal.getAttribute("id");
-            String accessToken = userSessionService.getAccessToken(spotifyId);
-            List<ArtistDTO> artists = spotifyService.getTopArtists(accessToken);
-            return ResponseEntity.ok(artists);
-        } catch (IllegalStateException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
+    public Mono<ResponseEntity<List<ArtistDTO>>> getTopArtists(@RequestParam(name = "time_range", defaultValue = "medium_term") String timeRange,
+                                                               @RequestParam(defaultValue = "10") int limit,
+                                                               @AuthenticationPrincipal OAuth2User principal) {
+        TimeRange range = timeRange(timeRange);
+        return withAccessToken(principal, accessToken ->
+                spotifyService.getTopArtists(principal.getAttribute("id"), range, limit, accessToken))
+                .map(ResponseEntity::ok)
+                .onErrorResume(IllegalStateException.class, e ->
+                        Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).<List<ArtistDTO>>body(null)))
+                .onErrorResume(SpotifyRateLimitException.class, e ->
+                        Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(e))
+                                .<List<ArtistDTO>>body(null)))
+                .onErrorResume(SpotifyUnavailableException.class, e ->
+                        Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(e.getRetryAfter()))
+                                .<List<ArtistDTO>>body(null)))
+                .onErrorResume(e -> Mono.just(ResponseEntity.internalServerError().<List<ArtistDTO>>build()));
+    }
+
+    // Genre histogram, popularity distribution and overlap across the short, medium and long term top artists
+    @GetMapping("/me/listening-profile")
+    public Mono<ResponseEntity<ListeningProfileDTO>> getListeningProfile(@AuthenticationPrincipal OAuth2User principal) {
+        return withAccessToken(principal, accessToken ->
+                spotifyService.getListeningProfile(principal.getAttribute("id"), accessToken))
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(errorStatus(e)));
     }
 
     @GetMapping("/artists/{id}")
-    public ResponseEntity<String> getArtist(@PathVariable String id,
-                                            @AuthenticationPrincipal OAuth2User principal) {
-        try {
-            String spotifyId = principal.getAttribute("id");
-            String accessToken = userSessionService.getAccessToken(spotifyId);
-            return ResponseEntity.ok(spotifyService.getArtistById(id, accessToken));
-        } catch (Exception e) {
-            return handleErrorResponse(e);
+    public Mono<ResponseEntity<String>> getArtist(@PathVariable String id,
+                                                  @RequestParam(required = false) String fields,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  @AuthenticationPrincipal OAuth2User principal) {
+        return catalogResponse(principal, CatalogResource.ARTIST, fields, ifNoneMatch,
+                accessToken -> spotifyService.getArtistEntry(id, accessToken));
+    }
+
+    @GetMapping("/artists")
+    public Mono<ResponseEntity<String>> getArtists(@RequestParam List<String> ids,
+                                                   @AuthenticationPrincipal OAuth2User principal) {
+        if (ids.isEmpty() || ids.size() > SpotifyService.MAX_ARTISTS_PER_REQUEST) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body("Between 1 and " + SpotifyService.MAX_ARTISTS_PER_REQUEST + " ids are allowed"));
         }
+        return withAccessToken(principal, accessToken -> spotifyService.getArtistsByIds(ids, accessToken))
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(handleErrorResponse(e)));
+    }
+
+    // Artist, top tracks and albums in a single round trip, with partial results when a section fails
+    @GetMapping("/artists/{id}/page")
+    public Mono<ResponseEntity<ArtistPageDTO>> getArtistPage(@PathVariable String id,
+                                                             @AuthenticationPrincipal OAuth2User principal) {
+        return withAccessToken(principal, accessToken -> spotifyService.getArtistPage(id, accessToken))
+                .map(page -> page.getMissing().size() == 3
+                        ? ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(page)
+                        : ResponseEntity.ok(page))
+                .onErrorResume(IllegalStateException.class, e ->
+                        Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).<ArtistPageDTO>body(null)))
+                .onErrorResume(e -> Mono.just(errorStatus(e)));
     }
 
     @GetMapping("/artists/{id}/top-tracks")
-    public ResponseEntity<String> getArtistTopTracks(@PathVariable String id,
-                                            @AuthenticationPrincipal OAuth2User principal) {
-        try {
-            String spotifyId = principal.getAttribute("id");
-            String accessToken = userSessionService.getAccessToken(spotifyId);
-            return ResponseEntity.ok(spotifyService.getArtistTopTracks(id, accessToken));
-        } catch (Exception e) {
-            return handleErrorResponse(e);
-        }
+    public Mono<ResponseEntity<String>> getArtistTopTracks(@PathVariable String id,
+                                                           @RequestParam(required = false) String fields,
+                                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                           @AuthenticationPrincipal OAuth2User principal) {
+        return catalogResponse(principal, CatalogResource.ARTIST_TOP_TRACKS, fields, ifNoneMatch,
+                accessToken -> spotifyService.getArtistTopTracksEntry(id, accessToken));
     }
     @GetMapping("/artists/{id}/albums")
-    public ResponseEntity<String> getArtistAlbums(@PathVariable String id,
-                                            @AuthenticationPrincipal OAuth2User principal) {
-        try {
-            String spotifyId = principal.getAttribute("id");
-            String accessToken = userSessionService.getAccessToken(spotifyId);
-            return ResponseEntity.ok(spotifyService.getArtistAlbums(id, accessToken));
-        } catch (Exception e) {
-            return handleErrorResponse(e);
+    public Mono<ResponseEntity<String>> getArtistAlbums(@PathVariable String id,
+                                                        @RequestParam(required = false) String fields,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                        @AuthenticationPrincipal OAuth2User principal) {
+        return catalogResponse(principal, CatalogResource.ARTIST_ALBUMS, fields, ifNoneMatch,
+                accessToken -> spotifyService.getArtistAlbumsEntry(id, accessToken));
+    }
+
+    @GetMapping("/albums")
+    public Mono<ResponseEntity<String>> getAlbums(@RequestParam List<String> ids,
+                                                  @AuthenticationPrincipal OAuth2User principal) {
+        if (ids.isEmpty() || ids.size() > SpotifyService.MAX_ALBUMS_PER_REQUEST) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body("Between 1 and " + SpotifyService.MAX_ALBUMS_PER_REQUEST + " ids are allowed"));
         }
+        return withAccessToken(principal, accessToken -> spotifyService.getAlbumsByIds(ids, accessToken))
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(handleErrorResponse(e)));
     }
 
     @GetMapping("/albums/{id}")
-    public ResponseEntity<String> getAlbum(@PathVariable String id,
-                                           @AuthenticationPrincipal OAuth2User principal) {
-        try {
-            String spotifyId = principal.getAttribute("id");
-            String accessToken = userSessionService.getAccessToken(spotifyId);
-            return ResponseEntity.ok(spotifyService.getAlbumById(id, accessToken));
-        } catch (Exception e) {
-            return handleErrorResponse(e);
-        }
+    public Mono<ResponseEntity<String>> getAlbum(@PathVariable String id,
+                                                 @RequestParam(required = false) String fields,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @AuthenticationPrincipal OAuth2User principal) {
+        return catalogResponse(principal, CatalogResource.ALBUM, fields, ifNoneMatch,
+                accessToken -> spotifyService.getAlbumEntry(id, accessToken));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<String> search(
+    public Mono<ResponseEntity<String>> search(
             @RequestParam String query,
             @RequestParam(defaultValue = "album,artist,track") String type,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal OAuth2User principal) {
-        try {
-            String spotifyId = principal.getAttribute("id");
-            String accessToken = userSessionService.getAccessToken(spotifyId);
+        return withAccessToken(principal, accessToken -> {
+            List<String> filteredTypes = filterSearchTypes(type);
+            JsonProjection projection = projection(fields, ResponseProjections.SEARCH);
 
-            // Validate types
-            String[] validTypes = {"album", "artist", "track"};
-            String[] requestedTypes = type.split(",");
-            List<String> filteredTypes = new ArrayList<>();
+            return spotifyService.searchSpotify(query, filteredTypes, accessToken).map(projection::apply);
+        })
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(handleErrorResponse(e)));
+    }
 
-            for (String t : requestedTypes) {
-                if (Arrays.asList(validTypes).contains(t.trim().toLowerCase())) {
-                    filteredTypes.add(t.trim().toLowerCase());
-                }
+    // Answered from the in-memory name index, so it is cheap enough to call on every keystroke
+    @GetMapping("/search/typeahead")
+    public ResponseEntity<List<TypeaheadIndex.Suggestion>> typeahead(@RequestParam String prefix,
+                                                                     @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(30)).cachePrivate())
+                .body(spotifyService.typeahead(prefix, Math.min(limit, 50)));
+    }
+
+    // Server-Sent Events, one per type as soon as that type's upstream search returns, so the page
+    // shows the fastest type first. Limit and offset apply to each type.
+    //   event: album|artist|track  data: the projected result, shaped like /search with one section
+    //   event: failed              data: {"type","status","message"} for a type that failed
+    //   event: done                after the last type; EventSource clients close on it
+    // MVC writes the events as they arrive and cancels the searches still running when the client goes away.
+    @GetMapping("/search/stream")
+    public Mono<ResponseEntity<Flux<ServerSentEvent<String>>>> searchByType(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "album,artist,track") String type,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) String fields,
+            @AuthenticationPrincipal OAuth2User principal) {
+        return withAccessToken(principal, accessToken -> {
+            JsonProjection projection = projection(fields, ResponseProjections.SEARCH);
+            Flux<ServerSentEvent<String>> events = spotifyService.searchByType(query, filterSearchTypes(type),
+                            Math.max(1, Math.min(limit, 50)), Math.max(0, Math.min(offset, 1000)), accessToken)
+                    .map(section -> searchEvent(section, projection));
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .cacheControl(CacheControl.noCache())
+                    .body(events.concatWithValues(SEARCH_DONE)));
+        })
+                .onErrorResume(e -> Mono.just(errorStatus(e)));
+    }
+
+    // Keeps the valid, normalized types in request order; all types when none are valid
+    static List<String> filterSearchTypes(String type) {
+        String[] validTypes = {"album", "artist", "track"};
+        String[] requestedTypes = type.split(",");
+        List<String> filteredTypes = new ArrayList<>();
+
+        for (String t : requestedTypes) {
+            if (Arrays.asList(validTypes).contains(t.trim().toLowerCase())) {
+                filteredTypes.add(t.trim().toLowerCase());
             }
+        }
+
+        if (filteredTypes.isEmpty()) {
+            filteredTypes = Arrays.asList(validTypes);
+        }
+        return filteredTypes;
+    }
+
+    // Catalog bodies carry a strong ETag and a private max-age of the entry's remaining freshness.
+    // The body is projected per request and the ETag varies with the projection.
+    private Mono<ResponseEntity<String>> catalogResponse(OAuth2User principal, CatalogResource resource, String fields,
+                                                         String ifNoneMatch, Function<String, Mono<CatalogEntry>> call) {
+        return withAccessToken(principal, accessToken -> {
+            JsonProjection projection = projection(fields, ResponseProjections.forResource(resource));
+            return call.apply(accessToken).map(entry -> {
+                String etag = projection.etagFor(entry.etag());
+                CacheControl cacheControl = CacheControl.maxAge(entry.maxAge()).cachePrivate();
+                if (etagMatches(ifNoneMatch, etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                            .eTag(etag)
+                            .cacheControl(cacheControl)
+                            .<String>build();
+                }
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                        .eTag(etag)
+                        .cacheControl(cacheControl);
+                if (!entry.isFresh()) {
+                    // Served from the last good copy because Spotify was failing or slow
+                    response.header(HttpHeaders.WARNING, STALE_WARNING);
+                }
+                return response.body(projection.apply(entry.body()));
+            });
+        })
+                .onErrorResume(e -> Mono.just(handleErrorResponse(e)));
+    }
+
+    // fields=... overrides the endpoint's compact default; fields=* returns the upstream body untouched
+    private JsonProjection projection(String fields, JsonProjection defaultProjection) {
+        if (fields == null) {
+            return defaultProjection;
+        }
+        try {
+            return JsonProjection.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static TimeRange timeRange(String value) {
+        try {
+            return TimeRange.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 
-            if (filteredTypes.isEmpty()) {
-                filteredTypes = Arrays.asList(validTypes);
+    // If-None-Match uses weak comparison, so a W/ prefix on either side is ignored
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String expected = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(expected)) {
+                return true;
             }
+        }
+        return false;
+    }
 
+    // Pass-through endpoints: the upstream body is copied to the response as raw bytes, chunk by chunk as it arrives
 
-            return ResponseEntity.ok(spotifyService.searchSpotify(query, type, accessToken));
-        } catch (Exception e) {
-            return handleErrorResponse(e);
+    @GetMapping("/raw/artists/{id}")
+    public Mono<ResponseEntity<ResponseBodyEmitter>> streamArtist(@PathVariable String id,
+                                                                    @AuthenticationPrincipal OAuth2User principal) {
+        return passThrough(principal, accessToken -> spotifyService.streamArtist(id, accessToken));
+    }
+
+    @GetMapping("/raw/artists/{id}/top-tracks")
+    public Mono<ResponseEntity<ResponseBodyEmitter>> streamArtistTopTracks(@PathVariable String id,
+                                                                             @AuthenticationPrincipal OAuth2User principal) {
+        return passThrough(principal, accessToken -> spotifyService.streamArtistTopTracks(id, accessToken));
+    }
+
+    @GetMapping("/raw/artists/{id}/albums")
+    public Mono<ResponseEntity<ResponseBodyEmitter>> streamArtistAlbums(@PathVariable String id,
+                                                                          @AuthenticationPrincipal OAuth2User principal) {
+        return passThrough(principal, accessToken -> spotifyService.streamArtistAlbums(id, accessToken));
+    }
+
+    @GetMapping("/raw/albums/{id}")
+    public Mono<ResponseEntity<ResponseBodyEmitter>> streamAlbum(@PathVariable String id,
+                                                                   @AuthenticationPrincipal OAuth2User principal) {
+        return passThrough(principal, accessToken -> spotifyService.streamAlbum(id, accessToken));
+    }
+
+    @GetMapping("/raw/search")
+    public Mono<ResponseEntity<ResponseBodyEmitter>> streamSearch(@RequestParam String query,
+                                                                    @RequestParam(defaultValue = "album,artist,track") String type,
+                                                                    @AuthenticationPrincipal OAuth2User principal) {
+        return passThrough(principal, accessToken -> spotifyService.streamSearch(query, filterSearchTypes(type), accessToken));
+    }
+
+    // Paged lists as NDJSON, one Spotify item per line; later pages are fetched while earlier ones are written.
+    // MVC writes the items as they arrive without holding a thread between them.
+
+    @GetMapping(value = "/stream/me/top/artists", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<JsonNode>>> streamTopArtists(@RequestParam(name = "time_range", defaultValue = "medium_term") String timeRange,
+                                                                        @RequestParam(defaultValue = "50") int max,
+                                                                        @AuthenticationPrincipal OAuth2User principal) {
+        TimeRange range = timeRange(timeRange);
+        return ndjson(principal, accessToken -> spotifyService.streamTopArtists(range, max, accessToken));
+    }
+
+    @GetMapping(value = "/stream/artists/{id}/albums", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<JsonNode>>> streamAllArtistAlbums(@PathVariable String id,
+                                                                             @RequestParam(defaultValue = "1000") int max,
+                                                                             @AuthenticationPrincipal OAuth2User principal) {
+        return ndjson(principal, accessToken -> spotifyService.streamArtistAlbums(id, max, accessToken));
+    }
+
+    @GetMapping(value = "/stream/albums/{id}/tracks", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<JsonNode>>> streamAlbumTracks(@PathVariable String id,
+                                                                         @RequestParam(defaultValue = "1000") int max,
+                                                                         @AuthenticationPrincipal OAuth2User principal) {
+        return ndjson(principal, accessToken -> spotifyService.streamAlbumTracks(id, max, accessToken));
+    }
+
+    // The first page is awaited before the status is sent, so auth and upstream errors still map to a status
+    private Mono<ResponseEntity<Flux<JsonNode>>> ndjson(OAuth2User principal,
+                                                        Function<String, Mono<Flux<JsonNode>>> call) {
+        return withAccessToken(principal, call)
+                .map(items -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(items))
+                .onErrorResume(e -> Mono.just(errorStatus(e)));
+    }
+
+    private ServerSentEvent<String> searchEvent(SpotifyService.SearchSection section, JsonProjection projection) {
+        if (!section.isFailed()) {
+            return ServerSentEvent.builder(projection.apply(section.body())).event(section.type()).build();
+        }
+        ResponseEntity<String> error = handleErrorResponse(section.error());
+        ObjectNode data = JsonNodeFactory.instance.objectNode()
+                .put("type", section.type())
+                .put("status", error.getStatusCode().value())
+                .put("message", error.getBody());
+        return ServerSentEvent.builder(data.toString()).event("failed").build();
+    }
+
+    private Mono<ResponseEntity<ResponseBodyEmitter>> passThrough(
+            OAuth2User principal, Function<String, Mono<ResponseEntity<Flux<DataBuffer>>>> call) {
+        return withAccessToken(principal, call)
+                .map(upstream -> ResponseEntity.status(upstream.getStatusCode())
+                        .headers(passThroughHeaders(upstream.getHeaders()))
+                        .body(writeBuffers(upstream.getBody())))
+                .onErrorResume(e -> Mono.just(errorBody(e)));
+    }
+
+    private ResponseEntity<ResponseBodyEmitter> errorBody(Throwable e) {
+        ResponseEntity<String> error = handleErrorResponse(e);
+        return ResponseEntity.status(error.getStatusCode())
+                .headers(error.getHeaders())
+                .body(writeString(error.getBody()));
+    }
+
+    // Content type (with charset) and encoding are forwarded so the bytes are interpreted as upstream sent them
+    private HttpHeaders passThroughHeaders(HttpHeaders upstream) {
+        HttpHeaders headers = new HttpHeaders();
+        if (upstream.getContentType() != null) {
+            headers.setContentType(upstream.getContentType());
+        }
+        if (upstream.getContentLength() >= 0) {
+            headers.setContentLength(upstream.getContentLength());
+        }
+        String contentEncoding = upstream.getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        }
+        return headers;
+    }
+
+    // MVC only streams a Flux of events, text or JSON items and would collect a Flux of buffers first, so the
+    // chunks go through an emitter instead. No thread is held between chunks; each write runs on a bounded
+    // elastic worker rather than the Netty event loop. A failed write (the client went away) cancels the upstream.
+    private ResponseBodyEmitter writeBuffers(Flux<DataBuffer> body) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(NO_TIMEOUT);
+        Disposable subscription = chunksToWrite(body != null ? body : Flux.empty())
+                .subscribe(bytes -> send(emitter, bytes), e -> {
+                    // After a failed write the container ends the request itself
+                    if (!(e instanceof UncheckedIOException)) {
+                        emitter.completeWithError(e);
+                    }
+                }, emitter::complete);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(e -> subscription.dispose());
+        return emitter;
+    }
+
+    // Each chunk is copied off the pooled upstream buffer, which is released at once, and handed to a worker
+    // for writing. Package-private for PassThroughAllocationBenchmark, which measures this path.
+    static Flux<byte[]> chunksToWrite(Flux<DataBuffer> body) {
+        return body
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .publishOn(Schedulers.boundedElastic());
+    }
+
+    private ResponseBodyEmitter writeString(String body) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        if (body != null) {
+            send(emitter, body.getBytes(StandardCharsets.UTF_8));
+        }
+        emitter.complete();
+        return emitter;
+    }
+
+    // Raw bytes: the response headers are already set, so the converter's content type is ignored
+    private static void send(ResponseBodyEmitter emitter, byte[] bytes) {
+        try {
+            emitter.send(bytes, MediaType.APPLICATION_OCTET_STREAM);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    private ResponseEntity<String> handleErrorResponse(Exception e) {
+    // Resolves the caller's token lazily so session errors surface through the same error path
+    private <T> Mono<T> withAccessToken(OAuth2User principal, Function<String, Mono<T>> call) {
+        return Mono.defer(() -> {
+            String spotifyId = principal.getAttribute("id");
+            return call.apply(userSessionService.getAccessToken(spotifyId));
+        });
+    }
+
+    private ResponseEntity<String> handleErrorResponse(Throwable e) {
         if (e instanceof IllegalStateException) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("Session expired. Please reauthenticate.");
         }
+        if (e instanceof SpotifyRateLimitException rateLimited) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(rateLimited))
+                    .body("Spotify rate limit reached. Please retry shortly.");
+        }
+        if (e instanceof SpotifyUnavailableException unavailable) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(unavailable.getRetryAfter()))
+                    .body("Spotify is currently unavailable. Please retry shortly.");
+        }
+        if (e instanceof ResponseStatusException statusException) {
+            return ResponseEntity.status(statusException.getStatusCode())
+                    .body(statusException.getReason());
+        }
+        if (e instanceof WebClientResponseException.TooManyRequests) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("Spotify rate limit reached. Please retry shortly.");
+        }
         return ResponseEntity.internalServerError()
                 .body("Error processing request: " + e.getMessage());
     }
-}
\ No newline at end of file
+
+    // Status and headers of the error response, for endpoints whose body type cannot carry the message
+    private <T> ResponseEntity<T> errorStatus(Throwable e) {
+        ResponseEntity<String> error = handleErrorResponse(e);
+        return ResponseEntity.status(error.getStatusCode()).headers(error.getHeaders()).build();
+    }
+
+    private String retryAfterSeconds(SpotifyRateLimitException e) {
+        return retryAfterSeconds(e.getRetryAfter());
+    }
+
+    private String retryAfterSeconds(Duration retryAfter) {
+        return String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+}
@@ -2,9 +2,11 @@ package com.floware.musicman.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -17,7 +19,9 @@ public class ArtistDTO {
     private String name;
     private String imageUrl;
     private int popularity;
-    private String genre;
+    private String genre; // First genre, kept for existing clients
+    @Setter(AccessLevel.NONE) // Bound through unpackGenre
+    private List<String> genres = List.of();
 
     @JsonProperty("images")
     public void unpackImageUrl(List<Image> images) {
@@ -30,8 +34,10 @@ public class ArtistDTO {
     public void unpackGenre(List<String> genres) {
         if (genres != null && !genres.isEmpty()) {
             this.genre = genres.get(0);
+            this.genres = List.copyOf(genres);
         } else {
             this.genre = "Unknown"; // Default value
+            this.genres = List.of();
         }
     }
 
@@ -0,0 +1,26 @@
+package com.floware.musicman.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Artist, top tracks and albums in one document; upstream JSON is embedded as-is
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArtistPageDTO {
+    @JsonRawValue
+    private String artist;
+    @JsonRawValue
+    private String topTracks;
+    @JsonRawValue
+    private String albums;
+    private List<String> missing; // Sections that failed or timed out
+
+    public boolean isPartial() {
+        return missing != null && !missing.isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.floware.musicman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// A user's taste across the short, medium and long term top artists
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListeningProfileDTO {
+    private Map<String, RangeProfile> ranges; // Keyed by time_range value
+    private List<GenreCount> genres; // Summed over the ranges, so long-standing genres weigh more
+    private List<RangeOverlap> overlap;
+    private int inAllRanges;
+    private List<String> staples; // Names of artists in every range, by short-term rank
+    private Instant computedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RangeProfile {
+        private int artists;
+        private List<GenreCount> genres;
+        private PopularityDistribution popularity;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GenreCount {
+        private String genre;
+        private int count;
+        private double share; // Of the artists counted; artists have several genres, so shares add up past 1
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PopularityDistribution {
+        private int[] buckets; // Artists per popularity decile: 0-9, 10-19, ..., 90-100
+        private double mean;
+        private int median;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RangeOverlap {
+        private String from;
+        private String to;
+        private int shared;
+        private double jaccard;
+    }
+}
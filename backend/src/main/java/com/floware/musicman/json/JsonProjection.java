@@ -0,0 +1,239 @@
+package com.floware.musicman.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@code fields=} projection: comma-separated dot paths such as
+ * {@code id,name,images[0].url,tracks.items.name}. Arrays are transparent, so a path continues
+ * into every element unless an index restricts it; a path ending on an object keeps it whole.
+ * Applied while streaming tokens from parser to generator, so the source JSON is never built into
+ * a tree. A path that names an array or object keeps it even when nothing inside matched.
+ */
+public final class JsonProjection {
+
+    public static final JsonProjection ALL = new JsonProjection(null, "*");
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final Pattern SEGMENT = Pattern.compile("([A-Za-z0-9_\\-]+|\\*)(?:\\[(\\d{1,4})])?");
+    private static final int MAX_SPEC_LENGTH = 2_000;
+
+    private final Node root;
+    private final String canonical;
+
+    private JsonProjection(Node root, String canonical) {
+        this.root = root;
+        this.canonical = canonical;
+    }
+
+    // "*" keeps everything; invalid specs throw IllegalArgumentException
+    public static JsonProjection parse(String spec) {
+        if (spec == null || spec.isBlank() || spec.trim().equals("*")) {
+            return ALL;
+        }
+        if (spec.length() > MAX_SPEC_LENGTH) {
+            throw new IllegalArgumentException("fields is longer than " + MAX_SPEC_LENGTH + " characters");
+        }
+        Node root = new Node();
+        Set<String> paths = new TreeSet<>();
+        for (String rawPath : spec.split(",")) {
+            String path = rawPath.trim();
+            if (path.isEmpty()) {
+                continue;
+            }
+            paths.add(path);
+            Node node = root;
+            String[] segments = path.split("\\.", -1);
+            for (int i = 0; i < segments.length; i++) {
+                Matcher matcher = SEGMENT.matcher(segments[i]);
+                if (!matcher.matches()) {
+                    throw new IllegalArgumentException("Invalid fields path: " + path);
+                }
+                node = node.child(matcher.group(1), matcher.group(2));
+                if (i == segments.length - 1) {
+                    node.leaf = true;
+                }
+            }
+        }
+        return paths.isEmpty() ? ALL : new JsonProjection(root, String.join(",", paths));
+    }
+
+    public boolean isAll() {
+        return root == null;
+    }
+
+    public String apply(String json) {
+        if (isAll()) {
+            return json;
+        }
+        StringWriter out = new StringWriter(json.length() / 2);
+        try (JsonParser parser = FACTORY.createParser(json);
+             JsonGenerator generator = FACTORY.createGenerator(out)) {
+            if (parser.nextToken() != null) {
+                new Projector(parser, generator).value(root, true, null);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to project JSON", e);
+        }
+        if (out.getBuffer().isEmpty()) {
+            return json.stripLeading().startsWith("[") ? "[]" : "{}"; // Nothing matched
+        }
+        return out.toString();
+    }
+
+    // Distinguishes representations of the same entity: ETag "abc" becomes "abc-p1f2e3d"
+    public String etagFor(String etag) {
+        if (isAll() || etag == null || !etag.endsWith("\"")) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-p" + Integer.toHexString(canonical.hashCode()) + "\"";
+    }
+
+    @Override
+    public String toString() {
+        return canonical;
+    }
+
+    // Helpers
+
+    private static final class Node {
+        final Map<String, Node> children = new LinkedHashMap<>();
+        // Array elements this node keeps; null keeps all of them
+        Set<Integer> indexes;
+        boolean anyIndex;
+        boolean leaf;
+
+        Node child(String name, String index) {
+            Node child = children.computeIfAbsent(name, n -> new Node());
+            if (index == null) {
+                child.anyIndex = true;
+                child.indexes = null;
+            } else if (!child.anyIndex) {
+                if (child.indexes == null) {
+                    child.indexes = new HashSet<>();
+                }
+                child.indexes.add(Integer.parseInt(index));
+            }
+            return child;
+        }
+
+    }
+
+    // Copies the selected tokens from parser to generator. A container's start is held back until
+    // something inside it is written, so unselected branches leave no trace; a named path is kept
+    // even when nothing inside it matched, so "images[0]" on an artist without images still yields
+    // "images":[] for clients reading images[0]. Fields reached only through "*" are dropped when empty.
+    private static final class Projector {
+
+        private final JsonParser parser;
+        private final JsonGenerator generator;
+        private final Deque<PendingStart> pending = new ArrayDeque<>();
+
+        Projector(JsonParser parser, JsonGenerator generator) {
+            this.parser = parser;
+            this.generator = generator;
+        }
+
+        // The parser is on the first token of a value selected by node
+        void value(Node node, boolean named, String fieldName) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_OBJECT) {
+                PendingStart start = open(fieldName, false);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    Node child = node.children.get(name);
+                    boolean childNamed = child != null;
+                    if (!childNamed) {
+                        child = node.children.get("*");
+                    }
+                    parser.nextToken();
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else if (child.leaf && child.indexes == null) {
+                        copy(name);
+                    } else {
+                        value(child, childNamed, name);
+                    }
+                }
+                close(start, named);
+            } else if (token == JsonToken.START_ARRAY) {
+                PendingStart start = open(fieldName, true);
+                int index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (node.indexes != null && !node.indexes.contains(index)) {
+                        parser.skipChildren();
+                    } else if (node.leaf) {
+                        copy(null); // An indexed leaf such as images[0] keeps the selected elements whole
+                    } else {
+                        value(node, false, null);
+                    }
+                    index++;
+                }
+                close(start, named);
+            } else if (node.leaf) {
+                copy(fieldName);
+            }
+        }
+
+        private PendingStart open(String fieldName, boolean array) {
+            PendingStart start = new PendingStart(fieldName, array);
+            pending.addLast(start);
+            return start;
+        }
+
+        private void close(PendingStart start, boolean keepEmpty) throws IOException {
+            if (pending.peekLast() == start) {
+                if (!keepEmpty) {
+                    pending.removeLast();
+                    return;
+                }
+                flush();
+            }
+            if (start.array()) {
+                generator.writeEndArray();
+            } else {
+                generator.writeEndObject();
+            }
+        }
+
+        private void copy(String fieldName) throws IOException {
+            flush();
+            if (fieldName != null) {
+                generator.writeFieldName(fieldName);
+            }
+            generator.copyCurrentStructure(parser);
+        }
+
+        private void flush() throws IOException {
+            PendingStart start;
+            while ((start = pending.pollFirst()) != null) {
+                if (start.fieldName() != null) {
+                    generator.writeFieldName(start.fieldName());
+                }
+                if (start.array()) {
+                    generator.writeStartArray();
+                } else {
+                    generator.writeStartObject();
+                }
+            }
+        }
+    }
+
+    private record PendingStart(String fieldName, boolean array) {
+    }
+}
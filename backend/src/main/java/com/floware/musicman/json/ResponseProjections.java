@@ -0,0 +1,68 @@
+package com.floware.musicman.json;
+
+import com.floware.musicman.cache.CatalogResource;
+
+/**
+ * Default projections: the fields the frontend renders, without markets lists, extra image
+ * sizes and the other bulk Spotify sends. Callers wanting more pass {@code fields=} themselves,
+ * or {@code fields=*} for the untouched upstream body.
+ */
+public final class ResponseProjections {
+
+    private static final String ARTIST_FIELDS =
+            "id,name,images[0],genres,popularity,followers.total,external_urls,type,uri";
+    private static final String SIMPLE_ARTIST_FIELDS = "id,name";
+    private static final String SIMPLE_ALBUM_FIELDS =
+            "id,name,album_type,images[0],release_date,total_tracks,external_urls";
+
+    public static final JsonProjection ARTIST = JsonProjection.parse(ARTIST_FIELDS);
+
+    public static final JsonProjection ALBUM = JsonProjection.parse(
+            "id,name,album_type,images[0],label,popularity,genres,release_date,release_date_precision,"
+                    + "total_tracks,copyrights[0],external_urls,type,uri,"
+                    + prefixed("artists", SIMPLE_ARTIST_FIELDS) + ","
+                    + "tracks.items.id,tracks.items.name,tracks.items.duration_ms,tracks.items.explicit,"
+                    + "tracks.items.track_number,tracks.items.external_urls,"
+                    + prefixed("tracks.items.artists", SIMPLE_ARTIST_FIELDS) + ","
+                    + "tracks.total,tracks.next,tracks.offset,tracks.limit");
+
+    public static final JsonProjection ARTIST_TOP_TRACKS = JsonProjection.parse(trackFields("tracks"));
+
+    public static final JsonProjection ARTIST_ALBUMS = JsonProjection.parse(
+            prefixed("items", SIMPLE_ALBUM_FIELDS) + ","
+                    + prefixed("items.artists", SIMPLE_ARTIST_FIELDS) + ",total,next,offset,limit");
+
+    public static final JsonProjection SEARCH = JsonProjection.parse(
+            prefixed("artists.items", ARTIST_FIELDS) + ",artists.total,"
+                    + prefixed("albums.items", SIMPLE_ALBUM_FIELDS) + ","
+                    + prefixed("albums.items.artists", SIMPLE_ARTIST_FIELDS) + ",albums.total,"
+                    + trackFields("tracks.items") + ",tracks.total");
+
+    private ResponseProjections() {
+    }
+
+    public static JsonProjection forResource(CatalogResource resource) {
+        return switch (resource) {
+            case ARTIST -> ARTIST;
+            case ALBUM -> ALBUM;
+            case ARTIST_TOP_TRACKS -> ARTIST_TOP_TRACKS;
+            case ARTIST_ALBUMS -> ARTIST_ALBUMS;
+        };
+    }
+
+    // Helpers
+
+    private static String trackFields(String prefix) {
+        return prefixed(prefix, "id,name,duration_ms,explicit,popularity,external_urls") + ","
+                + prefixed(prefix + ".artists", SIMPLE_ARTIST_FIELDS) + ","
+                + prefixed(prefix + ".album", "id,name,images[0]");
+    }
+
+    private static String prefixed(String prefix, String fields) {
+        StringBuilder out = new StringBuilder();
+        for (String field : fields.split(",")) {
+            out.append(out.isEmpty() ? "" : ",").append(prefix).append('.').append(field);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.floware.musicman.model;
+
+import java.util.Locale;
+
+// Spotify's time_range for personalization endpoints: roughly 4 weeks, 6 months and several years
+public enum TimeRange {
+    SHORT_TERM,
+    MEDIUM_TERM,
+    LONG_TERM;
+
+    // Accepts "short_term" as well as "short", in any case
+    public static TimeRange parse(String value) {
+        String normalized = value.trim().toUpperCase(Locale.ROOT);
+        for (TimeRange range : values()) {
+            if (range.name().equals(normalized) || range.name().equals(normalized + "_TERM")) {
+                return range;
+            }
+        }
+        throw new IllegalArgumentException("Invalid time_range: " + value);
+    }
+
+    public String param() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
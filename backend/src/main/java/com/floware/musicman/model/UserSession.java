@@ -0,0 +1,21 @@
+package com.floware.musicman.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.Instant;
+
+// Value equality: stores other than the in-memory map hand back a fresh copy on every read
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class UserSession {
+    private final String accessToken;
+    private final String refreshToken;
+    private final Instant expiresAt;
+
+    public boolean isExpired() {
+        return Instant.now().isAfter(expiresAt);
+    }
+}
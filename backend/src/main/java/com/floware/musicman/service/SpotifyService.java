@@ -1,86 +1,434 @@
 package com.floware.musicman.service;
 
+import com.floware.musicman.analytics.ListeningProfileEngine;
+import com.floware.musicman.cache.ArtistPrefetcher;
+import com.floware.musicman.cache.CatalogCache;
+import com.floware.musicman.cache.CatalogEntry;
+import com.floware.musicman.cache.CatalogResource;
+import com.floware.musicman.cache.SearchCache;
+import com.floware.musicman.cache.TopArtistsCache;
+import com.floware.musicman.cache.TypeaheadIndex;
+import com.floware.musicman.client.MicroBatcher;
+import com.floware.musicman.client.SpotifyPager;
+import com.floware.musicman.client.UpstreamMetricsFilter;
+import com.floware.musicman.config.SpotifyProperties;
 import com.floware.musicman.dto.ArtistDTO;
+import com.floware.musicman.dto.ArtistPageDTO;
+import com.floware.musicman.dto.ListeningProfileDTO;
 import com.floware.musicman.dto.SpotifyResponse;
-import lombok.RequiredArgsConstructor;
+import com.floware.musicman.model.TimeRange;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.client.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.Collections;
-import java.util.List;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+// All calls are non-blocking: callers get the upstream Mono and no thread waits on Spotify.
+// Bodies are bound through type references the native image build cannot see, hence the hint.
 @Service
-@RequiredArgsConstructor
+@RegisterReflectionForBinding({ArtistDTO.class, ArtistPageDTO.class, ListeningProfileDTO.class, SpotifyResponse.class})
 public class SpotifyService {
 
+    // Spotify's limits for the multi-id endpoints
+    public static final int MAX_ARTISTS_PER_REQUEST = 50;
+    public static final int MAX_ALBUMS_PER_REQUEST = 20;
+    private static final int SEARCH_LIMIT = 10;
+
+    private static final ParameterizedTypeReference<SpotifyResponse<JsonNode>> JSON_PAGE =
+            new ParameterizedTypeReference<>() {};
+
     private final OAuth2AuthorizedClientManager clientManager;
-    private final WebClient webClient = WebClient.create("https://api.spotify.com/v1");
+    private final CatalogCache catalogCache;
+    private final SearchCache searchCache;
+    private final TypeaheadIndex typeaheadIndex;
+    private final TopArtistsCache topArtistsCache;
+    private final ArtistPrefetcher artistPrefetcher;
+    private final ListeningProfileEngine listeningProfileEngine;
+    private final SpotifyProperties spotifyProperties;
+    private final WebClient webClient;
+    private final MicroBatcher<String, String> artistBatcher;
+    private final MicroBatcher<String, String> albumBatcher;
+    private final SpotifyPager pager;
 
+    public SpotifyService(@Lazy OAuth2AuthorizedClientManager clientManager,
+                          CatalogCache catalogCache,
+                          SearchCache searchCache,
+                          TypeaheadIndex typeaheadIndex,
+                          TopArtistsCache topArtistsCache,
+                          ArtistPrefetcher artistPrefetcher,
+                          ListeningProfileEngine listeningProfileEngine,
+                          SpotifyProperties spotifyProperties,
+                          @Qualifier("spotifyWebClient") WebClient webClient) {
+        this.clientManager = clientManager;
+        this.catalogCache = catalogCache;
+        this.searchCache = searchCache;
+        this.typeaheadIndex = typeaheadIndex;
+        this.topArtistsCache = topArtistsCache;
+        this.artistPrefetcher = artistPrefetcher;
+        this.listeningProfileEngine = listeningProfileEngine;
+        this.spotifyProperties = spotifyProperties;
+        this.webClient = webClient;
+        this.artistBatcher = new MicroBatcher<>(MAX_ARTISTS_PER_REQUEST,
+                spotifyProperties.getBatch().getWindow(), this::fetchArtistsBatch);
+        this.albumBatcher = new MicroBatcher<>(MAX_ALBUMS_PER_REQUEST,
+                spotifyProperties.getBatch().getWindow(), this::fetchAlbumsBatch);
+        this.pager = new SpotifyPager(spotifyProperties.getPaging().getPageSize(),
+                spotifyProperties.getPaging().getConcurrency());
+    }
 
-    public List<ArtistDTO> getTopArtists(String accessToken) {
+    // Per user and time range; Spotify is only called when the cached list is past its soft TTL
+    public Mono<List<ArtistDTO>> getTopArtists(String spotifyId, TimeRange timeRange, int limit, String accessToken) {
+        return topArtists(spotifyId, timeRange, limit, accessToken)
+                // Users usually open one of these artists next, so warm their pages in the background
+                .doOnNext(artists -> artistPrefetcher.prefetch(artists.stream().map(ArtistDTO::getId).toList(),
+                        (resource, id) -> prefetchEntry(resource, id, accessToken)));
+    }
 
-        SpotifyResponse<ArtistDTO> response = webClient.get()
-                .uri("/me/top/artists?limit=10")
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<SpotifyResponse<ArtistDTO>>() {})
-                .block();
+    // All three ranges from the top-artists cache, loaded in parallel; only changed ranges are re-aggregated
+    public Mono<ListeningProfileDTO> getListeningProfile(String spotifyId, String accessToken) {
+        return listeningProfileEngine.profile(spotifyId,
+                (timeRange, limit) -> topArtists(spotifyId, timeRange, limit, accessToken));
+    }
+
+    // Paged lists as raw Spotify items, emitted in order while later pages are still loading
 
-        return response != null ? response.getItems() : Collections.emptyList();
+    public Mono<Flux<JsonNode>> streamTopArtists(TimeRange timeRange, int maxItems, String accessToken) {
+        return pager.fetchAll((offset, limit) -> fetchPage("/me/top/artists", "time_range=" + timeRange.param(), null,
+                offset, limit, "top-artists", JSON_PAGE, accessToken), cappedItems(maxItems));
     }
 
-    public String getArtistById(String id, String accessToken) {
-        return webClient.get()
-                .uri("/artists/{id}", id)
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+    public Mono<Flux<JsonNode>> streamArtistAlbums(String id, int maxItems, String accessToken) {
+        return pager.fetchAll((offset, limit) -> fetchPage("/artists/{id}/albums", null, id, offset, limit,
+                "artist-albums-page", JSON_PAGE, accessToken), cappedItems(maxItems));
     }
 
-    public String getArtistTopTracks(String id, String accessToken) {
-        return webClient.get()
-                .uri("/artists/{id}/top-tracks", id)
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+    public Mono<Flux<JsonNode>> streamAlbumTracks(String id, int maxItems, String accessToken) {
+        return pager.fetchAll((offset, limit) -> fetchPage("/albums/{id}/tracks", null, id, offset, limit,
+                "album-tracks-page", JSON_PAGE, accessToken), cappedItems(maxItems));
     }
 
-    public String getAlbumById(String id, String accessToken) {
-        return webClient.get()
-                .uri("/albums/{id}", id)
+    public Mono<String> getArtistById(String id, String accessToken) {
+        return getArtistEntry(id, accessToken).map(CatalogEntry::body);
+    }
+
+    public Mono<CatalogEntry> getArtistEntry(String id, String accessToken) {
+        artistPrefetcher.recordRequest(CatalogResource.ARTIST, id);
+        return artistEntry(id, accessToken);
+    }
+
+    // Multi-id lookups carry no per-item ETag, so batched entries are re-fetched rather than revalidated
+    private Mono<CatalogEntry> artistEntry(String id, String accessToken) {
+        if (spotifyProperties.getBatch().isEnabled()) {
+            return catalogCache.getEntry(CatalogResource.ARTIST, id, stale -> artistBatcher.load(id, accessToken)
+                    .switchIfEmpty(notFound("Artist", id))
+                    .map(body -> CatalogEntry.fetched(body, null)));
+        }
+        return fetchEntry(CatalogResource.ARTIST, id, "/artists/{id}", accessToken);
+    }
+
+    // Spotify's {"artists":[...]} shape, with null for unknown ids; cache misses are batched upstream
+    public Mono<String> getArtistsByIds(List<String> ids, String accessToken) {
+        return Flux.fromIterable(ids)
+                .flatMapSequential(id -> getArtistById(id, accessToken)
+                        .onErrorResume(ResponseStatusException.class, e -> Mono.empty())
+                        .defaultIfEmpty("null"))
+                .collect(Collectors.joining(",", "{\"artists\":[", "]}"));
+    }
+
+    public Mono<String> getArtistTopTracks(String id, String accessToken) {
+        return getArtistTopTracksEntry(id, accessToken).map(CatalogEntry::body);
+    }
+
+    public Mono<CatalogEntry> getArtistTopTracksEntry(String id, String accessToken) {
+        artistPrefetcher.recordRequest(CatalogResource.ARTIST_TOP_TRACKS, id);
+        return fetchEntry(CatalogResource.ARTIST_TOP_TRACKS, id, "/artists/{id}/top-tracks", accessToken);
+    }
+
+    public Mono<String> getAlbumById(String id, String accessToken) {
+        return getAlbumEntry(id, accessToken).map(CatalogEntry::body);
+    }
+
+    public Mono<CatalogEntry> getAlbumEntry(String id, String accessToken) {
+        if (spotifyProperties.getBatch().isEnabled()) {
+            return catalogCache.getEntry(CatalogResource.ALBUM, id, stale -> albumBatcher.load(id, accessToken)
+                    .switchIfEmpty(notFound("Album", id))
+                    .map(body -> CatalogEntry.fetched(body, null)));
+        }
+        return fetchEntry(CatalogResource.ALBUM, id, "/albums/{id}", accessToken);
+    }
+
+    public Mono<String> getAlbumsByIds(List<String> ids, String accessToken) {
+        return Flux.fromIterable(ids)
+                .flatMapSequential(id -> getAlbumById(id, accessToken)
+                        .onErrorResume(ResponseStatusException.class, e -> Mono.empty())
+                        .defaultIfEmpty("null"))
+                .collect(Collectors.joining(",", "{\"albums\":[", "]}"));
+    }
+
+    public Mono<String> getArtistAlbums(String id, String accessToken) {
+        return getArtistAlbumsEntry(id, accessToken).map(CatalogEntry::body);
+    }
+
+    public Mono<CatalogEntry> getArtistAlbumsEntry(String id, String accessToken) {
+        artistPrefetcher.recordRequest(CatalogResource.ARTIST_ALBUMS, id);
+        return fetchEntry(CatalogResource.ARTIST_ALBUMS, id, "/artists/{id}/albums", accessToken);
+    }
+
+    // Fetches the three sections concurrently; a failed or slow section is left out instead of failing the page.
+    // Only when Spotify rejects the token for every section does the page fail, as UNAUTHORIZED.
+    public Mono<ArtistPageDTO> getArtistPage(String id, String accessToken) {
+        return Mono.zip(
+                        artistPageSection("artist", getArtistById(id, accessToken)),
+                        artistPageSection("topTracks", getArtistTopTracks(id, accessToken)),
+                        artistPageSection("albums", getArtistAlbums(id, accessToken)))
+                .flatMap(sections -> {
+                    if (sections.getT1().isUnauthorized() && sections.getT2().isUnauthorized()
+                            && sections.getT3().isUnauthorized()) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                                "Spotify rejected the access token"));
+                    }
+                    List<String> missing = new ArrayList<>();
+                    if (sections.getT1().body() == null) missing.add("artist");
+                    if (sections.getT2().body() == null) missing.add("topTracks");
+                    if (sections.getT3().body() == null) missing.add("albums");
+                    return Mono.just(new ArtistPageDTO(
+                            sections.getT1().body(),
+                            sections.getT2().body(),
+                            sections.getT3().body(),
+                            missing));
+                });
+    }
+
+    // Results are shared by all users, keyed by normalized query and the sorted type set
+    public Mono<String> searchSpotify(String query, List<String> types, String accessToken) {
+        return searchSpotify(query, types, SEARCH_LIMIT, 0, accessToken);
+    }
+
+    // One upstream search per type, emitted in completion order so the fastest type is first out.
+    // A failed type becomes a failed section; cancelling stops the types still in flight.
+    public Flux<SearchSection> searchByType(String query, List<String> types, int limit, int offset, String accessToken) {
+        return Flux.fromIterable(types)
+                .flatMap(type -> searchSpotify(query, List.of(type), limit, offset, accessToken)
+                        .map(body -> new SearchSection(type, body, null))
+                        .onErrorResume(e -> {
+                            System.out.println("[SEARCH] Type " + type + " unavailable: " + e.getMessage());
+                            return Mono.just(new SearchSection(type, null, e));
+                        }), types.size());
+    }
+
+    private Mono<String> searchSpotify(String query, List<String> types, int limit, int offset, String accessToken) {
+        return searchCache.get(query, types, limit, offset, key -> webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/search")
+                        .queryParam("q", key.query())
+                        .queryParam("type", key.typeParam())
+                        .queryParam("limit", key.limit())
+                        .queryParam("offset", key.offset())
+                        .build())
+                .attributes(UpstreamMetricsFilter.endpoint("search"))
                 .headers(h -> h.setBearerAuth(accessToken))
                 .retrieve()
-                .bodyToMono(String.class)
-                .block();
+                .bodyToMono(String.class));
+    }
+
+    // Served from names already seen in search results; never calls Spotify
+    public List<TypeaheadIndex.Suggestion> typeahead(String prefix, int limit) {
+        return typeaheadIndex.suggest(prefix, limit);
+    }
+
+    // Pass-through variants: upstream DataBuffers are handed on as they arrive, never decoded to a String.
+    // Cache hits are still served from the catalog cache; misses stream without populating it.
+
+    public Mono<ResponseEntity<Flux<DataBuffer>>> streamArtist(String id, String accessToken) {
+        return passThrough(CatalogResource.ARTIST, id, b -> b.path("/artists/{id}").build(id), accessToken);
+    }
+
+    public Mono<ResponseEntity<Flux<DataBuffer>>> streamArtistTopTracks(String id, String accessToken) {
+        return passThrough(CatalogResource.ARTIST_TOP_TRACKS, id, b -> b.path("/artists/{id}/top-tracks").build(id), accessToken);
+    }
+
+    public Mono<ResponseEntity<Flux<DataBuffer>>> streamAlbum(String id, String accessToken) {
+        return passThrough(CatalogResource.ALBUM, id, b -> b.path("/albums/{id}").build(id), accessToken);
+    }
+
+    public Mono<ResponseEntity<Flux<DataBuffer>>> streamArtistAlbums(String id, String accessToken) {
+        return passThrough(CatalogResource.ARTIST_ALBUMS, id, b -> b.path("/artists/{id}/albums").build(id), accessToken);
+    }
+
+    // Types are the controller's filtered list, as for the JSON search
+    public Mono<ResponseEntity<Flux<DataBuffer>>> streamSearch(String query, List<String> types, String accessToken) {
+        return passThrough(null, null, b -> b
+                .path("/search")
+                .queryParam("q", query)
+                .queryParam("type", String.join(",", types))
+                .queryParam("limit", SEARCH_LIMIT)
+                .build(), accessToken);
+    }
+
+    // Helpers
+
+    // Same loads as the public lookups, but not counted as user reads of prefetched entries
+    private Mono<CatalogEntry> prefetchEntry(CatalogResource resource, String id, String accessToken) {
+        return switch (resource) {
+            case ARTIST -> artistEntry(id, accessToken);
+            case ARTIST_TOP_TRACKS -> fetchEntry(resource, id, "/artists/{id}/top-tracks", accessToken);
+            case ARTIST_ALBUMS -> fetchEntry(resource, id, "/artists/{id}/albums", accessToken);
+            case ALBUM -> Mono.error(new IllegalArgumentException("Albums are not prefetched"));
+        };
+    }
+
+    // A stale entry is revalidated with If-None-Match; on 304 its body is kept and only its freshness renewed
+    private Mono<CatalogEntry> fetchEntry(CatalogResource resource, String id, String path, String accessToken) {
+        return catalogCache.getEntry(resource, id, stale -> webClient.get()
+                .uri(path, id)
+                .attributes(UpstreamMetricsFilter.endpoint(resource.tagValue()))
+                .headers(h -> {
+                    h.setBearerAuth(accessToken);
+                    if (stale != null && stale.upstreamEtag() != null) {
+                        h.setIfNoneMatch(stale.upstreamEtag());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value() && stale != null) {
+                        return response.releaseBody().thenReturn(stale);
+                    }
+                    if (response.statusCode().is2xxSuccessful()) {
+                        String upstreamEtag = response.headers().asHttpHeaders().getETag();
+                        return response.bodyToMono(String.class)
+                                .map(body -> CatalogEntry.fetched(body, upstreamEtag));
+                    }
+                    return response.createError();
+                }));
     }
 
-    public String getArtistAlbums(String id, String accessToken) {
+    // query carries fixed extra parameters such as time_range; id fills a {id} placeholder in the path
+    private <T> Mono<SpotifyResponse<T>> fetchPage(String path, String query, String id, int offset, int limit,
+                                                   String endpoint, ParameterizedTypeReference<SpotifyResponse<T>> type,
+                                                   String accessToken) {
         return webClient.get()
-                .uri("/artists/{id}/albums", id)
+                .uri(uriBuilder -> uriBuilder
+                        .path(path)
+                        .query(query)
+                        .queryParam("limit", limit)
+                        .queryParam("offset", offset)
+                        .build(id != null ? new Object[]{id} : new Object[0]))
+                .attributes(UpstreamMetricsFilter.endpoint(endpoint))
                 .headers(h -> h.setBearerAuth(accessToken))
                 .retrieve()
-                .bodyToMono(String.class)
-                .block();
+                .bodyToMono(type);
+    }
+
+    private int cappedItems(int requested) {
+        return Math.max(1, Math.min(requested, spotifyProperties.getPaging().getMaxItems()));
     }
 
-    public String searchSpotify(String query, String type, String accessToken) {
+    private Mono<Map<String, String>> fetchArtistsBatch(List<String> ids, String accessToken) {
+        return fetchBatch("/artists", "artists", ids, accessToken);
+    }
+
+    private Mono<Map<String, String>> fetchAlbumsBatch(List<String> ids, String accessToken) {
+        return fetchBatch("/albums", "albums", ids, accessToken);
+    }
+
+    private Mono<Map<String, String>> fetchBatch(String path, String field, List<String> ids, String accessToken) {
         return webClient.get()
                 .uri(uriBuilder -> uriBuilder
-                        .path("/search")
-                        .queryParam("q", query)
-                        .queryParam("type", type)
-                        .queryParam("limit", 10)
+                        .path(path)
+                        .queryParam("ids", String.join(",", ids))
                         .build())
+                .attributes(UpstreamMetricsFilter.endpoint(field + "-batch"))
                 .headers(h -> h.setBearerAuth(accessToken))
                 .retrieve()
-                .bodyToMono(String.class)
-                .block();
+                .bodyToMono(JsonNode.class)
+                .map(body -> {
+                    Map<String, String> byId = new HashMap<>();
+                    for (JsonNode item : body.path(field)) {
+                        if (item.hasNonNull("id")) {
+                            byId.put(item.get("id").asText(), item.toString());
+                        }
+                    }
+                    return byId;
+                });
     }
 
-    // Helpers
+    private Mono<ResponseEntity<Flux<DataBuffer>>> passThrough(CatalogResource resource, String id,
+                                                              Function<UriBuilder, URI> uri, String accessToken) {
+        return Mono.defer(() -> {
+            if (resource != null) {
+                artistPrefetcher.recordRequest(resource, id);
+            }
+            String cached = resource != null ? catalogCache.getIfPresent(resource, id) : null;
+            if (cached != null) {
+                DataBuffer body = DefaultDataBufferFactory.sharedInstance.wrap(cached.getBytes(StandardCharsets.UTF_8));
+                return Mono.just(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(Flux.just(body)));
+            }
+            return webClient.get()
+                    .uri(uri)
+                    .attributes(UpstreamMetricsFilter.endpoint("raw-" + (resource != null ? resource.tagValue() : "search")))
+                    .headers(h -> h.setBearerAuth(accessToken))
+                    .retrieve()
+                    .toEntityFlux(DataBuffer.class);
+        });
+    }
 
+    private Mono<String> notFound(String resource, String id) {
+        return Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, resource + " not found: " + id));
+    }
+
+    private Mono<List<ArtistDTO>> topArtists(String spotifyId, TimeRange timeRange, int limit, String accessToken) {
+        return topArtistsCache.get(spotifyId, timeRange, cappedItems(limit), fetchSize -> pager.fetchAll(
+                        (offset, pageLimit) -> fetchPage("/me/top/artists", "time_range=" + timeRange.param(), null,
+                                offset, pageLimit, "top-artists",
+                                new ParameterizedTypeReference<SpotifyResponse<ArtistDTO>>() {}, accessToken),
+                        fetchSize)
+                .flatMap(Flux::collectList)
+                .defaultIfEmpty(Collections.emptyList()));
+    }
+
+    private Mono<PageSection> artistPageSection(String section, Mono<String> call) {
+        return call.timeout(spotifyProperties.getArtistPageLegTimeout())
+                .map(body -> new PageSection(body, null))
+                .defaultIfEmpty(new PageSection(null, null))
+                .onErrorResume(e -> {
+                    System.out.println("[ARTIST PAGE] Section " + section + " unavailable: " + e.getMessage());
+                    return Mono.just(new PageSection(null, e));
+                });
+    }
+
+    // One section of the artist page: its body, or null and the error it failed with
+    private record PageSection(String body, Throwable error) {
+
+        boolean isUnauthorized() {
+            return error instanceof WebClientResponseException.Unauthorized;
+        }
+    }
+
+    // One type's search result, or the error that type failed with
+    public record SearchSection(String type, String body, Throwable error) {
+
+        public boolean isFailed() {
+            return error != null;
+        }
+    }
 }
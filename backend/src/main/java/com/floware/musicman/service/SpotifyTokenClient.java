@@ -0,0 +1,82 @@
+package com.floware.musicman.service;
+
+import com.floware.musicman.client.UpstreamMetricsFilter;
+import com.floware.musicman.config.SpotifyProperties;
+import com.floware.musicman.model.UserSession;
+import lombok.Getter;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+@RegisterReflectionForBinding(SpotifyTokenClient.SpotifyTokenResponse.class) // Bound by Jackson in native images too
+public class SpotifyTokenClient {
+
+    // Shares the pooled, pre-warmed connections of the Spotify HTTP client
+    private final WebClient accountsWebClient;
+    private final Duration timeout;
+
+    private static final String SPOTIFY_TOKEN_PATH = "/api/token";
+
+    private final String CLIENT_ID;
+    private final String CLIENT_SECRET;
+
+    public SpotifyTokenClient(Environment env,
+                              @Qualifier("spotifyAccountsWebClient") WebClient accountsWebClient,
+                              SpotifyProperties spotifyProperties) {
+        this.accountsWebClient = accountsWebClient;
+        this.timeout = spotifyProperties.getHttp().getResponseTimeout();
+        this.CLIENT_ID = env.getProperty("SPOTIFY_CLIENT_ID");
+        this.CLIENT_SECRET = env.getProperty("SPOTIFY_CLIENT_SECRET");
+
+        System.out.println("SPOTIFY_CLIENT_ID: " + CLIENT_ID);
+        System.out.println("SPOTIFY_CLIENT_SECRET: " + (CLIENT_SECRET != null ? "[PROVIDED]" : "[NOT SET]"));
+    }
+
+    // Blocking on purpose: callers are request threads and the session refresh executor, never event loops
+    public UserSession refresh(String refreshToken) {
+        System.out.println("[REFRESH] Refreshing token with refresh_token: " + refreshToken);
+
+        SpotifyTokenResponse tokenResponse = accountsWebClient.post()
+                .uri(SPOTIFY_TOKEN_PATH)
+                .attributes(UpstreamMetricsFilter.endpoint("token"))
+                .headers(h -> h.setBasicAuth(CLIENT_ID, CLIENT_SECRET))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData("grant_type", "refresh_token")
+                        .with("refresh_token", refreshToken))
+                .retrieve()
+                .bodyToMono(SpotifyTokenResponse.class)
+                .block(timeout);
+
+        if (tokenResponse != null) {
+            Instant expiresAt = Instant.now().plusSeconds(tokenResponse.getExpires_in());
+
+            System.out.println("[REFRESH] New token received. Expires at: " + expiresAt);
+
+            return new UserSession(
+                    tokenResponse.getAccess_token(),
+                    refreshToken, // Spotify may not return a new refresh token
+                    expiresAt
+            );
+        } else {
+            System.out.println("[REFRESH] Failed to refresh token. Empty response");
+            throw new IllegalStateException("Failed to refresh token");
+        }
+    }
+
+    @Getter
+    static class SpotifyTokenResponse {
+        private String access_token;
+        private String token_type;
+        private int expires_in;
+        private String refresh_token;
+        private String scope;
+    }
+}
@@ -1,46 +1,123 @@
 package com.floware.musicman.service;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import org.springframework.core.env.Environment;
-import org.springframework.http.*;
+import com.floware.musicman.config.SessionProperties;
+import com.floware.musicman.model.UserSession;
+import com.floware.musicman.session.SessionEndedEvent;
+import com.floware.musicman.session.SessionStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
 
 @Service
 public class UserSessionService {
 
-    private final ConcurrentMap<String, UserSession> activeSessions = new ConcurrentHashMap<>();
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final Environment env;
+    private final SessionStore activeSessions;
+    private final ConcurrentMap<String, CompletableFuture<UserSession>> pendingRefreshes = new ConcurrentHashMap<>();
+    // Completed when another replica announces a change to the user's session, while we wait on its refresh
+    private final ConcurrentMap<String, CompletableFuture<Void>> remoteChanges = new ConcurrentHashMap<>();
+    // Users with a request on this replica in the current and the previous idle window; only they are
+    // refreshed ahead. Rotating two id sets avoids keeping a timestamp for every user.
+    private final Object activityLock = new Object();
+    private volatile Set<String> activeNow = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> activeBefore = ConcurrentHashMap.newKeySet();
+    private volatile long activityWindowEnds;
+    // Expiry-ordered index: refresh deadlines for refreshable sessions, expiry for the rest. Entries hold
+    // the id and the expiry they were scheduled for, never the session itself.
+    private final DelayQueue<SessionExpiry> expiryQueue = new DelayQueue<>();
+    private final SpotifyTokenClient tokenClient;
+    private final SessionProperties sessionProperties;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter coalescedRefreshes;
+    private final Timer cleanupTimer;
+    private Thread expiryDispatcher;
 
-    private static final String SPOTIFY_TOKEN_URL = "https://accounts.spotify.com/api/token";
+    public UserSessionService(SpotifyTokenClient tokenClient, SessionProperties sessionProperties,
+                              SessionStore sessionStore, MeterRegistry meterRegistry,
+                              ApplicationEventPublisher eventPublisher) {
+        this.tokenClient = tokenClient;
+        this.activeSessions = sessionStore;
+        this.sessionProperties = sessionProperties;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        this.activityWindowEnds = System.nanoTime() + sessionProperties.getRefreshIdleWindow().toNanos();
+        this.refreshExecutor = new ThreadPoolExecutor(
+                sessionProperties.getRefreshThreads(),
+                sessionProperties.getRefreshThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(sessionProperties.getRefreshQueueCapacity()),
+                Thread.ofPlatform().daemon().name("session-refresh-", 0).factory());
 
-    private final String CLIENT_ID;
-    private final String CLIENT_SECRET;
-
-    public UserSessionService(Environment env) {
-        this.env = env;
-        this.CLIENT_ID = env.getProperty("SPOTIFY_CLIENT_ID");
-        this.CLIENT_SECRET = env.getProperty("SPOTIFY_CLIENT_SECRET");
+        Gauge.builder("sessions.active", activeSessions, SessionStore::size)
+                .description("Sessions currently held in the session store")
+                .register(meterRegistry);
+        Gauge.builder("sessions.refresh.pending", pendingRefreshes, Map::size)
+                .description("Token refreshes in flight")
+                .register(meterRegistry);
+        Gauge.builder("sessions.expiry.queue", expiryQueue, DelayQueue::size)
+                .description("Sessions scheduled for proactive refresh or expiry")
+                .register(meterRegistry);
+        new ExecutorServiceMetrics(refreshExecutor, "session-refresh", Tags.empty()).bindTo(meterRegistry);
+        this.coalescedRefreshes = Counter.builder("sessions.refresh.coalesced")
+                .description("Callers that waited on another caller's refresh instead of starting one")
+                .register(meterRegistry);
+        this.cleanupTimer = Timer.builder("sessions.cleanup")
+                .description("Duration of expired-session sweeps")
+                .register(meterRegistry);
+        activeSessions.addChangeListener(spotifyId -> {
+            CompletableFuture<Void> changed = remoteChanges.remove(spotifyId);
+            if (changed != null) {
+                changed.complete(null);
+            }
+        });
+    }
 
-        System.out.println("SPOTIFY_CLIENT_ID: " + CLIENT_ID);
-        System.out.println("SPOTIFY_CLIENT_SECRET: " + (CLIENT_SECRET != null ? "[PROVIDED]" : "[NOT SET]"));
+    @PostConstruct
+    public void startExpiryDispatcher() {
+        // Sessions restored by a persistent store need their expiry deadlines back in the queue. None has
+        // been used since the restart, so refreshable ones are left to the request path like any idle session.
+        // Shared stores skip this: other replicas' sessions are refreshed on demand by the request path.
+        if (!activeSessions.isShared()) {
+            activeSessions.forEachExpiry((spotifyId, expiresAt, refreshable) -> {
+                if (!refreshable) {
+                    expiryQueue.offer(new SessionExpiry(spotifyId, expiresAt, expiresAt));
+                }
+            });
+        }
+        expiryDispatcher = Thread.ofPlatform().daemon().name("session-expiry").start(this::dispatchDueSessions);
     }
 
+    @PreDestroy
+    public void stopExpiryDispatcher() {
+        if (expiryDispatcher != null) {
+            expiryDispatcher.interrupt();
+        }
+        refreshExecutor.shutdownNow();
+    }
 
 
     public void storeUserSession(String spotifyId, String accessToken,
                                  String refreshToken, Instant expiresAt) {
         System.out.println("[STORE] Storing session for user: " + spotifyId);
         System.out.println("[STORE] Access token expires at: " + expiresAt);
-        activeSessions.put(spotifyId, new UserSession(accessToken, refreshToken, expiresAt));
+        UserSession session = new UserSession(accessToken, refreshToken, expiresAt);
+        activeSessions.put(spotifyId, session);
+        markActive(spotifyId);
+        scheduleExpiry(spotifyId, session);
     }
 
     public String getAccessToken(String spotifyId) {
@@ -49,23 +126,27 @@ public class UserSessionService {
             System.out.println("[GET] No session found for user: " + spotifyId);
             throw new IllegalStateException("Session not found");
         }
+        if (markActive(spotifyId) && !needsRefresh(session)) {
+            // First request since a restart or an idle spell puts the session back on the refresh schedule.
+            // Should the session still be queued, the second entry finds it already refreshed.
+            scheduleExpiry(spotifyId, session);
+        }
 
         System.out.println("[GET] Checking access token for user: " + spotifyId);
         System.out.println("[GET] Current time: " + Instant.now());
         System.out.println("[GET] Token expires at: " + session.getExpiresAt());
 
-        if (session.isExpired() || Instant.now().plusSeconds(60).isAfter(session.getExpiresAt())) {
+        if (needsRefresh(session)) {
             System.out.println("[GET] Token expired or expiring soon. Refreshing...");
             try {
-                UserSession refreshedSession = refreshToken(session.getRefreshToken());
-                activeSessions.put(spotifyId, refreshedSession);
+                UserSession refreshedSession = refreshSession(spotifyId, session, true).join();
                 System.out.println("[GET] Token successfully refreshed.");
                 return refreshedSession.getAccessToken();
-            } catch (Exception e) {
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
                 System.out.println("[GET] Token refresh failed for user: " + spotifyId);
-                System.out.println("[GET] Error: " + e.getMessage());
-                activeSessions.remove(spotifyId);
-                throw new IllegalStateException("Failed to refresh token: " + e.getMessage());
+                System.out.println("[GET] Error: " + cause.getMessage());
+                throw new IllegalStateException("Failed to refresh token: " + cause.getMessage());
             }
         }
 
@@ -73,41 +154,220 @@ public class UserSessionService {
         return session.getAccessToken();
     }
 
-    private UserSession refreshToken(String refreshToken) {
-        System.out.println("[REFRESH] Refreshing token with refresh_token: " + refreshToken);
+    // Single-flight per user: the first caller refreshes, concurrent callers for the same user
+    // wait on its future. Coordination is per key, so other users are never blocked. Across
+    // replicas the store's refresh lock does the same: a replica that loses it completes the
+    // future from the winner's session once the store announces the write. No thread is held
+    // while waiting, and the refresh token is only ever spent under the lock.
+    private CompletableFuture<UserSession> refreshSession(String spotifyId, UserSession staleSession,
+                                                          boolean dropOnFailure) {
+        CompletableFuture<UserSession> refresh = new CompletableFuture<>();
+        CompletableFuture<UserSession> inFlight = pendingRefreshes.putIfAbsent(spotifyId, refresh);
+        if (inFlight != null) {
+            coalescedRefreshes.increment();
+            return inFlight;
+        }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        headers.setBasicAuth(CLIENT_ID, CLIENT_SECRET);
+        try {
+            UserSession current = activeSessions.get(spotifyId);
+            if (current != null && !current.equals(staleSession) && !needsRefresh(current)) {
+                // Another caller finished a refresh between our read and claiming this one
+                refresh.complete(current);
+            } else if (!activeSessions.tryLockRefresh(spotifyId)) {
+                awaitRefreshElsewhere(spotifyId, staleSession, refresh);
+            } else {
+                try {
+                    UserSession refreshedSession = timedRefresh(staleSession.getRefreshToken(),
+                            dropOnFailure ? "request" : "background");
+                    // Only replace a session that still exists so a concurrent logout is not undone
+                    if (activeSessions.replaceIfPresent(spotifyId, refreshedSession)) {
+                        scheduleExpiry(spotifyId, refreshedSession);
+                    }
+                    refresh.complete(refreshedSession);
+                } finally {
+                    activeSessions.unlockRefresh(spotifyId);
+                }
+            }
+        } catch (Exception e) {
+            if (dropOnFailure && activeSessions.remove(spotifyId, staleSession)) {
+                sessionEnded(spotifyId);
+            }
+            refresh.completeExceptionally(e);
+        }
+        refresh.whenComplete((session, error) -> pendingRefreshes.remove(spotifyId, refresh));
+        return refresh;
+    }
+
+    // Another replica holds the refresh lock. Its write completes the refresh; should none arrive within
+    // refreshLockWait, the old token is kept while still valid, and the refresh fails otherwise. The session
+    // is not dropped on that failure, as the other replica's refresh may still succeed.
+    private void awaitRefreshElsewhere(String spotifyId, UserSession staleSession, CompletableFuture<UserSession> refresh) {
+        CompletableFuture.delayedExecutor(sessionProperties.getRefreshLockWait().toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> {
+                    remoteChanges.remove(spotifyId);
+                    if (refresh.isDone()) {
+                        return;
+                    }
+                    System.out.println("[REFRESH] Timed out waiting for another replica's refresh for user: " + spotifyId);
+                    if (!staleSession.isExpired()) {
+                        refresh.complete(staleSession);
+                    } else {
+                        refresh.completeExceptionally(new IllegalStateException("Token refresh on another replica timed out"));
+                    }
+                });
+        checkRefreshedElsewhere(spotifyId, staleSession, refresh);
+    }
 
-        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
-        body.add("grant_type", "refresh_token");
-        body.add("refresh_token", refreshToken);
+    // Listens before reading, so a write landing between the two is not missed. The store is read on the
+    // common pool rather than on the thread delivering the change, which belongs to the store's connection.
+    private void checkRefreshedElsewhere(String spotifyId, UserSession staleSession, CompletableFuture<UserSession> refresh) {
+        CompletableFuture<Void> changed = remoteChanges.computeIfAbsent(spotifyId, id -> new CompletableFuture<>());
+        try {
+            UserSession current = activeSessions.get(spotifyId);
+            if (current == null) {
+                refresh.completeExceptionally(new IllegalStateException("Session ended during refresh"));
+            } else if (!current.equals(staleSession) && !needsRefresh(current)) {
+                refresh.complete(current);
+            }
+        } catch (RuntimeException e) {
+            refresh.completeExceptionally(e);
+        }
+        if (refresh.isDone()) {
+            remoteChanges.remove(spotifyId, changed);
+        } else {
+            changed.thenRunAsync(() -> checkRefreshedElsewhere(spotifyId, staleSession, refresh));
+        }
+    }
 
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
+    // sessions.token.refresh: latency and count of calls to the accounts service, by trigger and outcome
+    private UserSession timedRefresh(String refreshToken, String trigger) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            UserSession refreshed = tokenClient.refresh(refreshToken);
+            outcome = "success";
+            return refreshed;
+        } finally {
+            sample.stop(Timer.builder("sessions.token.refresh")
+                    .description("Token refresh calls to the Spotify accounts service")
+                    .tag("trigger", trigger)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
 
-        ResponseEntity<SpotifyTokenResponse> response = restTemplate.exchange(
-                SPOTIFY_TOKEN_URL,
-                HttpMethod.POST,
-                request,
-                SpotifyTokenResponse.class
-        );
+    private void scheduleExpiry(String spotifyId, UserSession session) {
+        Instant dueAt = isRefreshable(session.getRefreshToken())
+                ? session.getExpiresAt().minus(sessionProperties.getRefreshAhead())
+                : session.getExpiresAt();
+        expiryQueue.offer(new SessionExpiry(spotifyId, session.getExpiresAt(), dueAt));
+    }
 
-        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-            SpotifyTokenResponse tokenResponse = response.getBody();
-            Instant expiresAt = Instant.now().plusSeconds(tokenResponse.getExpires_in());
+    private void dispatchDueSessions() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                processDueSession(expiryQueue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
-            System.out.println("[REFRESH] New token received. Expires at: " + expiresAt);
+    // A failure on one entry (store error, throwing event listener) must not stop the dispatcher,
+    // so the entry is logged and retried later instead
+    private void processDueSession(SessionExpiry due) {
+        try {
+            handleDueSession(due);
+        } catch (RuntimeException e) {
+            System.out.println("[SCHEDULER] Failed to process due session for user: " + due.spotifyId()
+                    + ", retrying in " + sessionProperties.getRefreshRetryDelay() + ". Error: " + e);
+            retryLater(due.spotifyId(), due.expiresAt());
+        }
+    }
 
-            return new UserSession(
-                    tokenResponse.getAccess_token(),
-                    refreshToken, // Spotify may not return a new refresh token
-                    expiresAt
-            );
-        } else {
-            System.out.println("[REFRESH] Failed to refresh token. Status: " + response.getStatusCode());
-            throw new IllegalStateException("Failed to refresh token");
+    private void handleDueSession(SessionExpiry due) {
+        UserSession current = activeSessions.get(due.spotifyId());
+        if (current == null || !current.getExpiresAt().equals(due.expiresAt())) {
+            return; // Superseded by a login or refresh, or already cleared
         }
+
+        if (!isRefreshable(current.getRefreshToken())) {
+            if (activeSessions.remove(due.spotifyId(), current)) {
+                System.out.println("[CLEANUP] Removing expired and unrefreshable session for user: " + due.spotifyId());
+                sessionEnded(due.spotifyId());
+            }
+            return;
+        }
+
+        if (isIdle(due.spotifyId())) {
+            // Not rescheduled; the next request refreshes the token and puts the session back in the queue
+            System.out.println("[SCHEDULER] Session idle, leaving refresh to the request path for user: " + due.spotifyId());
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> refreshInBackground(due.spotifyId(), current));
+        } catch (RejectedExecutionException e) {
+            // Retried rather than dropped, so a burst of due sessions is spread out instead of lost
+            System.out.println("[SCHEDULER] Refresh queue full, retrying in " + sessionProperties.getRefreshRetryDelay()
+                    + " for user: " + due.spotifyId());
+            retryLater(due.spotifyId(), current.getExpiresAt());
+        }
+    }
+
+    private void refreshInBackground(String spotifyId, UserSession session) {
+        try {
+            refreshSession(spotifyId, session, false).join();
+            System.out.println("[SCHEDULER] Proactively refreshed token for user: " + spotifyId);
+        } catch (CompletionException e) {
+            System.out.println("[SCHEDULER] Background refresh failed for user: " + spotifyId);
+            if (session.isExpired() && activeSessions.remove(spotifyId, session)) {
+                sessionEnded(spotifyId);
+            } else {
+                retryLater(spotifyId, session.getExpiresAt());
+            }
+        }
+    }
+
+    private void retryLater(String spotifyId, Instant expiresAt) {
+        Instant retryAt = Instant.now().plus(sessionProperties.getRefreshRetryDelay());
+        expiryQueue.offer(new SessionExpiry(spotifyId, expiresAt, retryAt));
+    }
+
+    // Returns true when the user had no request in the current or previous window, i.e. is back from an idle spell
+    private boolean markActive(String spotifyId) {
+        rotateActivityWindow();
+        boolean seenBefore = activeBefore.contains(spotifyId);
+        return activeNow.add(spotifyId) && !seenBefore;
+    }
+
+    // Idle means no request for at least one full window, and at most two
+    private boolean isIdle(String spotifyId) {
+        rotateActivityWindow();
+        return !activeNow.contains(spotifyId) && !activeBefore.contains(spotifyId);
+    }
+
+    private void rotateActivityWindow() {
+        long now = System.nanoTime();
+        if (now - activityWindowEnds < 0) {
+            return;
+        }
+        synchronized (activityLock) {
+            long overdue = now - activityWindowEnds;
+            if (overdue < 0) {
+                return;
+            }
+            long window = sessionProperties.getRefreshIdleWindow().toNanos();
+            // After a whole window without a rotation, nobody in the current set has been active lately either
+            activeBefore = overdue < window ? activeNow : ConcurrentHashMap.newKeySet();
+            activeNow = ConcurrentHashMap.newKeySet();
+            activityWindowEnds = now + window;
+        }
+    }
+
+    private boolean needsRefresh(UserSession session) {
+        return session.isExpired() || Instant.now().plusSeconds(60).isAfter(session.getExpiresAt());
     }
 
     public boolean isValidSession(String spotifyId) {
@@ -124,44 +384,42 @@ public class UserSessionService {
         if (spotifyId != null) {
             System.out.println("[CLEAR] Clearing session for user: " + spotifyId);
             activeSessions.remove(spotifyId);
+            sessionEnded(spotifyId);
         }
     }
 
+    // Only touches entries whose deadline has passed, so the cost is O(expired) rather than O(all sessions)
     public void cleanUpExpiredSessions() {
-        System.out.println("[CLEANUP] Checking for expired sessions to clean up...");
-        activeSessions.entrySet().removeIf(entry -> {
-            boolean expired = entry.getValue().isExpired();
-            boolean refreshable = isRefreshable(entry.getValue().getRefreshToken());
-            if (expired && !refreshable) {
-                System.out.println("[CLEANUP] Removing expired and unrefreshable session for user: " + entry.getKey());
-                return true;
+        System.out.println("[CLEANUP] Processing sessions past their refresh or expiry deadline...");
+        cleanupTimer.record(() -> {
+            SessionExpiry due;
+            while ((due = expiryQueue.poll()) != null) {
+                processDueSession(due);
             }
-            return false;
         });
     }
 
+    // Lets per-user caches drop what they hold for this user
+    private void sessionEnded(String spotifyId) {
+        activeNow.remove(spotifyId);
+        activeBefore.remove(spotifyId);
+        eventPublisher.publishEvent(new SessionEndedEvent(spotifyId));
+    }
+
     private boolean isRefreshable(String refreshToken) {
         return refreshToken != null && !refreshToken.isEmpty();
     }
 
-    @Getter
-    @AllArgsConstructor
-    private static class UserSession {
-        private final String accessToken;
-        private final String refreshToken;
-        private final Instant expiresAt;
-
-        public boolean isExpired() {
-            return Instant.now().isAfter(expiresAt);
+    // expiresAt identifies the session version the entry was scheduled for; a login or refresh supersedes it
+    private record SessionExpiry(String spotifyId, Instant expiresAt, Instant dueAt) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), dueAt));
         }
-    }
 
-    @Getter
-    private static class SpotifyTokenResponse {
-        private String access_token;
-        private String token_type;
-        private int expires_in;
-        private String refresh_token;
-        private String scope;
+        @Override
+        public int compareTo(Delayed other) {
+            return dueAt.compareTo(((SessionExpiry) other).dueAt);
+        }
     }
 }
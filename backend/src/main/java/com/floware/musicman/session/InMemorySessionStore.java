@@ -0,0 +1,48 @@
+package com.floware.musicman.session;
+
+import com.floware.musicman.model.UserSession;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+// Default store: an on-heap map, emptied by every restart
+public class InMemorySessionStore implements SessionStore {
+
+    private final ConcurrentMap<String, UserSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public UserSession get(String spotifyId) {
+        return sessions.get(spotifyId);
+    }
+
+    @Override
+    public void put(String spotifyId, UserSession session) {
+        sessions.put(spotifyId, session);
+    }
+
+    @Override
+    public boolean replaceIfPresent(String spotifyId, UserSession session) {
+        return sessions.computeIfPresent(spotifyId, (id, existing) -> session) != null;
+    }
+
+    @Override
+    public boolean remove(String spotifyId, UserSession expected) {
+        return sessions.remove(spotifyId, expected);
+    }
+
+    @Override
+    public void remove(String spotifyId) {
+        sessions.remove(spotifyId);
+    }
+
+    @Override
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, UserSession> action) {
+        sessions.forEach(action);
+    }
+}
@@ -0,0 +1,653 @@
+package com.floware.musicman.session;
+
+import com.floware.musicman.config.SessionProperties;
+import com.floware.musicman.model.UserSession;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Session store backed by memory-mapped files, so sessions survive restarts and live outside
+ * the Java heap. Sessions are spread over segments by id hash; each segment is one file holding
+ * a header, an open-addressing index (linear probing, backward-shift deletion) and an arena of
+ * fixed-layout records linked into an LRU list. A full segment evicts its least recently used
+ * session. Reopening a cleanly closed file uses it in place; after a crash the index and LRU
+ * order are rebuilt from the records. Writes are not atomic: a session being updated during the
+ * crash may come back with a mix of old and new token bytes, which Spotify rejects until that
+ * user logs in again.
+ *
+ * Tokens are stored unencrypted, so the files are created readable by the owner only.
+ */
+public class MappedSessionStore implements SessionStore {
+
+    private final Segment[] segments;
+
+    public MappedSessionStore(SessionProperties.Mapped settings) throws IOException {
+        if (settings.getSegments() <= 0 || settings.getCapacity() < settings.getSegments()) {
+            throw new IllegalArgumentException("Session store needs at least one segment and one slot per segment");
+        }
+        Files.createDirectories(settings.getDirectory());
+        RecordLayout layout = new RecordLayout(settings.getMaxIdLength(),
+                settings.getMaxAccessTokenLength(), settings.getMaxRefreshTokenLength());
+        int perSegment = (settings.getCapacity() + settings.getSegments() - 1) / settings.getSegments();
+        this.segments = new Segment[settings.getSegments()];
+        for (int i = 0; i < segments.length; i++) {
+            Path file = settings.getDirectory().resolve(String.format("sessions-%02d.dat", i));
+            segments[i] = new Segment(file, perSegment, layout);
+        }
+        System.out.println("[SESSION STORE] Opened " + size() + " persisted sessions from " + settings.getDirectory());
+    }
+
+    @Override
+    public UserSession get(String spotifyId) {
+        Key key = new Key(spotifyId);
+        return segmentFor(key).get(key);
+    }
+
+    @Override
+    public void put(String spotifyId, UserSession session) {
+        Key key = new Key(spotifyId);
+        segmentFor(key).put(key, session, false);
+    }
+
+    @Override
+    public boolean replaceIfPresent(String spotifyId, UserSession session) {
+        Key key = new Key(spotifyId);
+        return segmentFor(key).put(key, session, true);
+    }
+
+    @Override
+    public boolean remove(String spotifyId, UserSession expected) {
+        Key key = new Key(spotifyId);
+        return segmentFor(key).remove(key, expected);
+    }
+
+    @Override
+    public void remove(String spotifyId) {
+        Key key = new Key(spotifyId);
+        segmentFor(key).remove(key, null);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, UserSession> action) {
+        for (Segment segment : segments) {
+            segment.snapshot().forEach(entry -> action.accept(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    // Reads the fixed fields of each record in place, so no session or token is decoded
+    @Override
+    public void forEachExpiry(ExpiryVisitor visitor) {
+        for (Segment segment : segments) {
+            segment.forEachExpiry(visitor);
+        }
+    }
+
+    public long evictionCount() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            evictions += segment.evictions;
+        }
+        return evictions;
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+    }
+
+    // Helpers
+
+    private Segment segmentFor(Key key) {
+        return segments[(key.hash >>> 16) % segments.length];
+    }
+
+    private static final class Key {
+        final String id;
+        final byte[] bytes;
+        final int hash;
+
+        Key(String id) {
+            this.id = id;
+            this.bytes = id.getBytes(StandardCharsets.UTF_8);
+            int h = Arrays.hashCode(bytes) * 0x9E3779B9;
+            this.hash = h ^ (h >>> 15);
+        }
+    }
+
+    // Byte offsets within a record; variable-length fields follow the fixed header
+    private record RecordLayout(int maxId, int maxAccess, int maxRefresh) {
+        static final int STATE = 0;          // byte: 0 free, 1 used
+        static final int HASH = 4;           // int
+        static final int PREV = 8;           // int record number, -1 for none
+        static final int NEXT = 12;          // int, also links the free list
+        static final int EXPIRES_SECONDS = 16;
+        static final int EXPIRES_NANOS = 24;
+        static final int ID_LENGTH = 28;     // short
+        static final int ACCESS_LENGTH = 30; // short
+        static final int REFRESH_LENGTH = 32; // short, -1 for no refresh token
+        static final int LAST_ACCESS = 36;   // long epoch millis, orders the LRU rebuild
+        static final int PAYLOAD = 48;
+
+        int size() {
+            int size = PAYLOAD + maxId + maxAccess + maxRefresh;
+            return (size + 7) & ~7;
+        }
+    }
+
+    private static final class Segment {
+
+        private static final int MAGIC = 0x4D534553;
+        private static final int VERSION = 1;
+        private static final byte FREE = 0;
+        private static final byte USED = 1;
+        private static final int NONE = -1;
+        private static final int SLOT_SIZE = 8; // int hash, int record number + 1 (0 = empty)
+
+        // Header fields
+        private static final int H_MAGIC = 0;
+        private static final int H_VERSION = 4;
+        private static final int H_RECORD_SIZE = 8;
+        private static final int H_CAPACITY = 12;
+        private static final int H_SLOTS = 16;
+        private static final int H_SIZE = 20;
+        private static final int H_HEAD = 24;
+        private static final int H_TAIL = 28;
+        private static final int H_FREE = 32;
+        private static final int H_HIGH_WATER = 36;
+        private static final int H_DIRTY = 40;
+        private static final int HEADER_SIZE = 64;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Path file;
+        private final RecordLayout layout;
+        private final int capacity;
+        private final int recordSize;
+        private final int slots;
+        private final int mask;
+        private final int recordsOffset;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private volatile long evictions;
+        private boolean closed;
+
+        Segment(Path file, int capacity, RecordLayout layout) throws IOException {
+            this.file = file;
+            this.layout = layout;
+            this.capacity = capacity;
+            this.recordSize = layout.size();
+            int tableSize = 2;
+            while (tableSize < capacity * 2) {
+                tableSize <<= 1;
+            }
+            this.slots = tableSize;
+            this.mask = tableSize - 1;
+            this.recordsOffset = HEADER_SIZE + slots * SLOT_SIZE;
+            long fileSize = (long) recordsOffset + (long) capacity * recordSize;
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Session store segment would exceed 2 GB; use more segments");
+            }
+
+            boolean existed = Files.exists(file) && Files.size(file) > 0;
+            if (!existed) {
+                createOwnerOnly(file);
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (existed && !matchesLayout()) {
+                System.out.println("[SESSION STORE] " + file + " has a different layout, starting it empty");
+                channel.truncate(0);
+                existed = false;
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+
+            if (!existed) {
+                initialize();
+            } else if (buffer.getInt(H_DIRTY) != 0) {
+                System.out.println("[SESSION STORE] " + file + " was not closed cleanly, rebuilding its index");
+                rebuild();
+            }
+            buffer.putInt(H_DIRTY, 1);
+        }
+
+        UserSession get(Key key) {
+            lock.lock();
+            try {
+                ensureOpen();
+                int slot = find(key);
+                if (slot < 0) {
+                    return null;
+                }
+                int record = recordAt(slot);
+                touch(record);
+                return decode(record);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Returns whether the key was present before the call
+        boolean put(Key key, UserSession session, boolean onlyIfPresent) {
+            byte[] access = session.getAccessToken().getBytes(StandardCharsets.UTF_8);
+            byte[] refresh = session.getRefreshToken() != null
+                    ? session.getRefreshToken().getBytes(StandardCharsets.UTF_8)
+                    : null;
+            checkLength("Spotify id", key.bytes.length, layout.maxId());
+            checkLength("Access token", access.length, layout.maxAccess());
+            checkLength("Refresh token", refresh != null ? refresh.length : 0, layout.maxRefresh());
+
+            lock.lock();
+            try {
+                ensureOpen();
+                int slot = find(key);
+                if (slot >= 0) {
+                    int record = recordAt(slot);
+                    write(record, key, access, refresh, session.getExpiresAt());
+                    touch(record);
+                    return true;
+                }
+                if (onlyIfPresent) {
+                    return false;
+                }
+                if (header(H_SIZE) >= capacity) {
+                    evict(header(H_TAIL));
+                }
+                int record = allocate();
+                write(record, key, access, refresh, session.getExpiresAt());
+                buffer.put(recordOffset(record) + RecordLayout.STATE, USED);
+                insertSlot(key.hash, record);
+                pushFront(record);
+                setHeader(H_SIZE, header(H_SIZE) + 1);
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean remove(Key key, UserSession expected) {
+            lock.lock();
+            try {
+                ensureOpen();
+                int slot = find(key);
+                if (slot < 0) {
+                    return false;
+                }
+                int record = recordAt(slot);
+                if (expected != null && !expected.equals(decode(record))) {
+                    return false;
+                }
+                delete(slot, record);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            return buffer.getInt(H_SIZE);
+        }
+
+        List<Map.Entry<String, UserSession>> snapshot() {
+            lock.lock();
+            try {
+                ensureOpen();
+                List<Map.Entry<String, UserSession>> entries = new ArrayList<>(header(H_SIZE));
+                for (int record = header(H_HEAD); record != NONE; record = link(record, RecordLayout.NEXT)) {
+                    entries.add(Map.entry(decodeId(record), decode(record)));
+                }
+                return entries;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // The visitor runs under the segment lock, so it must not call back into the store
+        void forEachExpiry(ExpiryVisitor visitor) {
+            lock.lock();
+            try {
+                ensureOpen();
+                for (int record = header(H_HEAD); record != NONE; record = link(record, RecordLayout.NEXT)) {
+                    int offset = recordOffset(record);
+                    Instant expiresAt = Instant.ofEpochSecond(buffer.getLong(offset + RecordLayout.EXPIRES_SECONDS),
+                            buffer.getInt(offset + RecordLayout.EXPIRES_NANOS));
+                    visitor.visit(decodeId(record), expiresAt, buffer.getShort(offset + RecordLayout.REFRESH_LENGTH) > 0);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                buffer.putInt(H_DIRTY, 0);
+                buffer.force();
+                channel.close();
+                closed = true;
+            } catch (IOException e) {
+                System.out.println("[SESSION STORE] Failed to close " + file + ": " + e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Index
+
+        private int find(Key key) {
+            int slot = key.hash & mask;
+            while (true) {
+                int recordPlusOne = buffer.getInt(slotOffset(slot) + 4);
+                if (recordPlusOne == 0) {
+                    return -1;
+                }
+                if (buffer.getInt(slotOffset(slot)) == key.hash && idEquals(recordPlusOne - 1, key.bytes)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void insertSlot(int hash, int record) {
+            int slot = hash & mask;
+            while (buffer.getInt(slotOffset(slot) + 4) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            buffer.putInt(slotOffset(slot), hash);
+            buffer.putInt(slotOffset(slot) + 4, record + 1);
+        }
+
+        // Backward-shift deletion keeps probe sequences intact without tombstones
+        private void deleteSlot(int hole) {
+            int slot = hole;
+            while (true) {
+                slot = (slot + 1) & mask;
+                int recordPlusOne = buffer.getInt(slotOffset(slot) + 4);
+                if (recordPlusOne == 0) {
+                    break;
+                }
+                int home = buffer.getInt(slotOffset(slot)) & mask;
+                boolean staysPut = hole <= slot ? hole < home && home <= slot : hole < home || home <= slot;
+                if (!staysPut) {
+                    buffer.putInt(slotOffset(hole), buffer.getInt(slotOffset(slot)));
+                    buffer.putInt(slotOffset(hole) + 4, recordPlusOne);
+                    hole = slot;
+                }
+            }
+            buffer.putLong(slotOffset(hole), 0L);
+        }
+
+        private int recordAt(int slot) {
+            return buffer.getInt(slotOffset(slot) + 4) - 1;
+        }
+
+        private int slotOffset(int slot) {
+            return HEADER_SIZE + slot * SLOT_SIZE;
+        }
+
+        // Records and LRU list (head = most recently used)
+
+        private int allocate() {
+            int free = header(H_FREE);
+            if (free != NONE) {
+                setHeader(H_FREE, link(free, RecordLayout.NEXT));
+                return free;
+            }
+            int highWater = header(H_HIGH_WATER);
+            setHeader(H_HIGH_WATER, highWater + 1);
+            return highWater;
+        }
+
+        private void evict(int record) {
+            int slot = find(new Key(decodeId(record)));
+            delete(slot, record);
+            evictions++;
+        }
+
+        private void delete(int slot, int record) {
+            deleteSlot(slot);
+            unlink(record);
+            int offset = recordOffset(record);
+            buffer.put(offset + RecordLayout.STATE, FREE);
+            buffer.putInt(offset + RecordLayout.NEXT, header(H_FREE));
+            setHeader(H_FREE, record);
+            setHeader(H_SIZE, header(H_SIZE) - 1);
+        }
+
+        private void touch(int record) {
+            buffer.putLong(recordOffset(record) + RecordLayout.LAST_ACCESS, System.currentTimeMillis());
+            if (header(H_HEAD) != record) {
+                unlink(record);
+                pushFront(record);
+            }
+        }
+
+        private void pushFront(int record) {
+            int head = header(H_HEAD);
+            setLink(record, RecordLayout.PREV, NONE);
+            setLink(record, RecordLayout.NEXT, head);
+            if (head != NONE) {
+                setLink(head, RecordLayout.PREV, record);
+            }
+            setHeader(H_HEAD, record);
+            if (header(H_TAIL) == NONE) {
+                setHeader(H_TAIL, record);
+            }
+        }
+
+        private void unlink(int record) {
+            int prev = link(record, RecordLayout.PREV);
+            int next = link(record, RecordLayout.NEXT);
+            if (prev != NONE) {
+                setLink(prev, RecordLayout.NEXT, next);
+            } else {
+                setHeader(H_HEAD, next);
+            }
+            if (next != NONE) {
+                setLink(next, RecordLayout.PREV, prev);
+            } else {
+                setHeader(H_TAIL, prev);
+            }
+        }
+
+        private void write(int record, Key key, byte[] access, byte[] refresh, Instant expiresAt) {
+            int offset = recordOffset(record);
+            buffer.putInt(offset + RecordLayout.HASH, key.hash);
+            buffer.putLong(offset + RecordLayout.EXPIRES_SECONDS, expiresAt.getEpochSecond());
+            buffer.putInt(offset + RecordLayout.EXPIRES_NANOS, expiresAt.getNano());
+            buffer.putShort(offset + RecordLayout.ID_LENGTH, (short) key.bytes.length);
+            buffer.putShort(offset + RecordLayout.ACCESS_LENGTH, (short) access.length);
+            buffer.putShort(offset + RecordLayout.REFRESH_LENGTH, (short) (refresh != null ? refresh.length : -1));
+            buffer.putLong(offset + RecordLayout.LAST_ACCESS, System.currentTimeMillis());
+            int payload = offset + RecordLayout.PAYLOAD;
+            buffer.put(payload, key.bytes);
+            buffer.put(payload + layout.maxId(), access);
+            if (refresh != null) {
+                buffer.put(payload + layout.maxId() + layout.maxAccess(), refresh);
+            }
+        }
+
+        private UserSession decode(int record) {
+            int offset = recordOffset(record);
+            int payload = offset + RecordLayout.PAYLOAD;
+            String access = readString(payload + layout.maxId(), buffer.getShort(offset + RecordLayout.ACCESS_LENGTH));
+            short refreshLength = buffer.getShort(offset + RecordLayout.REFRESH_LENGTH);
+            String refresh = refreshLength >= 0
+                    ? readString(payload + layout.maxId() + layout.maxAccess(), refreshLength)
+                    : null;
+            Instant expiresAt = Instant.ofEpochSecond(buffer.getLong(offset + RecordLayout.EXPIRES_SECONDS),
+                    buffer.getInt(offset + RecordLayout.EXPIRES_NANOS));
+            return new UserSession(access, refresh, expiresAt);
+        }
+
+        private String decodeId(int record) {
+            int offset = recordOffset(record);
+            return readString(offset + RecordLayout.PAYLOAD, buffer.getShort(offset + RecordLayout.ID_LENGTH));
+        }
+
+        private boolean idEquals(int record, byte[] id) {
+            int offset = recordOffset(record);
+            if (buffer.getShort(offset + RecordLayout.ID_LENGTH) != id.length) {
+                return false;
+            }
+            int payload = offset + RecordLayout.PAYLOAD;
+            for (int i = 0; i < id.length; i++) {
+                if (buffer.get(payload + i) != id[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String readString(int offset, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int recordOffset(int record) {
+            return recordsOffset + record * recordSize;
+        }
+
+        private int link(int record, int field) {
+            return buffer.getInt(recordOffset(record) + field);
+        }
+
+        private void setLink(int record, int field, int value) {
+            buffer.putInt(recordOffset(record) + field, value);
+        }
+
+        private int header(int field) {
+            return buffer.getInt(field);
+        }
+
+        private void setHeader(int field, int value) {
+            buffer.putInt(field, value);
+        }
+
+        // Lifecycle
+
+        private boolean matchesLayout() throws IOException {
+            java.nio.ByteBuffer header = java.nio.ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            return header.getInt(H_MAGIC) == MAGIC
+                    && header.getInt(H_VERSION) == VERSION
+                    && header.getInt(H_RECORD_SIZE) == recordSize
+                    && header.getInt(H_CAPACITY) == capacity
+                    && header.getInt(H_SLOTS) == slots;
+        }
+
+        private void initialize() {
+            setHeader(H_MAGIC, MAGIC);
+            setHeader(H_VERSION, VERSION);
+            setHeader(H_RECORD_SIZE, recordSize);
+            setHeader(H_CAPACITY, capacity);
+            setHeader(H_SLOTS, slots);
+            resetState();
+            setHeader(H_HIGH_WATER, 0);
+        }
+
+        private void resetState() {
+            for (int slot = 0; slot < slots; slot++) {
+                buffer.putLong(slotOffset(slot), 0L);
+            }
+            setHeader(H_SIZE, 0);
+            setHeader(H_HEAD, NONE);
+            setHeader(H_TAIL, NONE);
+            setHeader(H_FREE, NONE);
+        }
+
+        // Re-derives index, LRU order and free list from the records themselves
+        private void rebuild() {
+            int highWater = Math.min(Math.max(header(H_HIGH_WATER), 0), capacity);
+            resetState();
+            setHeader(H_HIGH_WATER, highWater);
+
+            List<Integer> used = new ArrayList<>();
+            for (int record = 0; record < highWater; record++) {
+                if (buffer.get(recordOffset(record) + RecordLayout.STATE) == USED && isWellFormed(record)) {
+                    used.add(record);
+                } else {
+                    freeRecord(record);
+                }
+            }
+            used.sort(Comparator.comparingLong(record -> buffer.getLong(recordOffset(record) + RecordLayout.LAST_ACCESS)));
+            for (int record : used) {
+                Key key = new Key(decodeId(record));
+                int duplicate = find(key);
+                if (duplicate >= 0) {
+                    // Updates overwrite their record in place, so one id never has two records unless the
+                    // file is corrupt; the most recently used copy wins
+                    delete(duplicate, recordAt(duplicate));
+                }
+                insertSlot(key.hash, record);
+                pushFront(record);
+                setHeader(H_SIZE, header(H_SIZE) + 1);
+            }
+        }
+
+        private boolean isWellFormed(int record) {
+            int offset = recordOffset(record);
+            short idLength = buffer.getShort(offset + RecordLayout.ID_LENGTH);
+            short accessLength = buffer.getShort(offset + RecordLayout.ACCESS_LENGTH);
+            short refreshLength = buffer.getShort(offset + RecordLayout.REFRESH_LENGTH);
+            return idLength > 0 && idLength <= layout.maxId()
+                    && accessLength >= 0 && accessLength <= layout.maxAccess()
+                    && refreshLength >= -1 && refreshLength <= layout.maxRefresh();
+        }
+
+        private void freeRecord(int record) {
+            int offset = recordOffset(record);
+            buffer.put(offset + RecordLayout.STATE, FREE);
+            buffer.putInt(offset + RecordLayout.NEXT, header(H_FREE));
+            setHeader(H_FREE, record);
+        }
+
+        private void ensureOpen() {
+            if (closed) {
+                throw new IllegalStateException("Session store is closed");
+            }
+        }
+
+        private static void checkLength(String field, int length, int max) {
+            if (length > max) {
+                throw new IllegalArgumentException(field + " is " + length + " bytes, the session store allows " + max);
+            }
+        }
+
+        private static void createOwnerOnly(Path file) throws IOException {
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } else {
+                Files.createFile(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.floware.musicman.session;
+
+import com.floware.musicman.config.SessionProperties;
+import com.floware.musicman.model.UserSession;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.event.connection.ConnectionActivatedEvent;
+import io.lettuce.core.event.connection.ConnectionDeactivatedEvent;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import reactor.core.Disposable;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Session store shared by all backend replicas through Redis, so a user can be served by any
+ * replica. Reads go through a small per-replica near cache. Every write or removal is sent
+ * together with a pub/sub message (both pipelined on the same connection) that makes the other
+ * replicas drop their cached copy. Conditional removal runs as a Lua script so the compare and
+ * the delete are atomic across replicas. Token refreshes take a short per-user lock (SET NX PX),
+ * so two replicas never spend the same refresh token at once.
+ *
+ * A session is stored as one string value: expiry, access token and, if present, refresh token,
+ * separated by newlines.
+ */
+public class RedisSessionStore implements SessionStore {
+
+    private static final String COMPARE_AND_DELETE =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0";
+    private static final int SCAN_BATCH = 500;
+
+    private final SessionProperties.Redis settings;
+    private final String replicaId = UUID.randomUUID().toString();
+    private final RedisClient client;
+    private final StatefulRedisConnection<String, String> connection;
+    private final RedisAsyncCommands<String, String> commands;
+    private final StatefulRedisPubSubConnection<String, String> subscription;
+    private final Disposable connectionEvents;
+    private final Cache<String, UserSession> nearCache;
+    private final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+    // Bumped on every change seen by this replica; a read only fills the near cache if none happened meanwhile
+    private final AtomicLong changes = new AtomicLong();
+    private volatile int cachedSize;
+    private volatile long cachedSizeAt;
+
+    public RedisSessionStore(SessionProperties.Redis settings) {
+        this.settings = settings;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(settings.getNearCacheSize())
+                .expireAfterWrite(settings.getNearCacheTtl())
+                .build();
+
+        RedisURI uri = RedisURI.create(settings.getUri());
+        uri.setTimeout(settings.getCommandTimeout());
+        this.client = RedisClient.create(uri);
+        // RESP2 keeps pub/sub on its own connection and works with any Redis-protocol server
+        client.setOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build());
+        // Invalidations published while a connection is down are lost, so start over after any drop
+        this.connectionEvents = client.getResources().eventBus().get()
+                .filter(event -> event instanceof ConnectionDeactivatedEvent || event instanceof ConnectionActivatedEvent)
+                .subscribe(event -> invalidateAllLocal());
+
+        this.connection = client.connect();
+        this.commands = connection.async();
+        this.subscription = client.connectPubSub();
+        subscription.addListener(new RedisPubSubAdapter<>() {
+            @Override
+            public void message(String channel, String message) {
+                onInvalidation(message);
+            }
+        });
+        subscription.sync().subscribe(settings.getInvalidationChannel());
+        System.out.println("[SESSION STORE] Connected to Redis at " + uri.getHost()
+                + " as replica " + replicaId);
+    }
+
+    @Override
+    public UserSession get(String spotifyId) {
+        UserSession cached = nearCache.getIfPresent(spotifyId);
+        if (cached != null) {
+            return cached;
+        }
+        long changesBefore = changes.get();
+        UserSession session = decode(await(commands.get(key(spotifyId))));
+        if (session != null && changes.get() == changesBefore) {
+            nearCache.put(spotifyId, session);
+        }
+        return session;
+    }
+
+    @Override
+    public void put(String spotifyId, UserSession session) {
+        write(spotifyId, session, SetArgs.Builder.px(settings.getTtl().toMillis()));
+    }
+
+    @Override
+    public boolean replaceIfPresent(String spotifyId, UserSession session) {
+        return write(spotifyId, session, SetArgs.Builder.px(settings.getTtl().toMillis()).xx());
+    }
+
+    @Override
+    public boolean remove(String spotifyId, UserSession expected) {
+        changes.incrementAndGet();
+        nearCache.invalidate(spotifyId);
+        RedisFuture<Long> deleted = commands.eval(COMPARE_AND_DELETE, ScriptOutputType.INTEGER,
+                new String[]{key(spotifyId)}, encode(expected));
+        RedisFuture<Long> published = publishInvalidation(spotifyId);
+        boolean removed = await(deleted) == 1L;
+        await(published);
+        return removed;
+    }
+
+    @Override
+    public void remove(String spotifyId) {
+        changes.incrementAndGet();
+        nearCache.invalidate(spotifyId);
+        RedisFuture<Long> deleted = commands.del(key(spotifyId));
+        RedisFuture<Long> published = publishInvalidation(spotifyId);
+        await(deleted);
+        await(published);
+    }
+
+    // Counting scans the whole keyspace, so the result is reused for sizeRefreshInterval
+    @Override
+    public int size() {
+        long now = System.nanoTime();
+        if (cachedSizeAt == 0 || now - cachedSizeAt > settings.getSizeRefreshInterval().toNanos()) {
+            int[] count = {0};
+            scanKeys(keys -> count[0] += keys.size());
+            cachedSize = count[0];
+            cachedSizeAt = now;
+        }
+        return cachedSize;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, UserSession> action) {
+        int prefixLength = settings.getKeyPrefix().length();
+        scanKeys(keys -> {
+            for (KeyValue<String, String> entry : await(commands.mget(keys.toArray(String[]::new)))) {
+                if (entry.hasValue()) {
+                    action.accept(entry.getKey().substring(prefixLength), decode(entry.getValue()));
+                }
+            }
+        });
+    }
+
+    // Every replica can see every session; the one that wrote a session schedules its refresh
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    // The lock expires on its own should the holder die mid-refresh
+    @Override
+    public boolean tryLockRefresh(String spotifyId) {
+        return "OK".equals(await(commands.set(refreshLockKey(spotifyId), replicaId,
+                SetArgs.Builder.nx().px(settings.getRefreshLockTtl().toMillis()))));
+    }
+
+    // Only our own lock is released, not one another replica took after ours expired
+    @Override
+    public void unlockRefresh(String spotifyId) {
+        await(commands.eval(COMPARE_AND_DELETE, ScriptOutputType.INTEGER, new String[]{refreshLockKey(spotifyId)}, replicaId));
+    }
+
+    // Listeners run on the pub/sub connection's thread, so they must hand off any Redis call
+    @Override
+    public void addChangeListener(Consumer<String> listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        connectionEvents.dispose();
+        subscription.close();
+        connection.close();
+        client.shutdown();
+    }
+
+    // Helpers
+
+    private boolean write(String spotifyId, UserSession session, SetArgs args) {
+        String value = encode(session);
+        changes.incrementAndGet();
+        nearCache.invalidate(spotifyId);
+        RedisFuture<String> written = commands.set(key(spotifyId), value, args);
+        RedisFuture<Long> published = publishInvalidation(spotifyId);
+        boolean applied = "OK".equals(await(written));
+        await(published);
+        if (applied) {
+            nearCache.put(spotifyId, session);
+        }
+        return applied;
+    }
+
+    private RedisFuture<Long> publishInvalidation(String spotifyId) {
+        return commands.publish(settings.getInvalidationChannel(), replicaId + ":" + spotifyId);
+    }
+
+    private void onInvalidation(String message) {
+        int separator = message.indexOf(':');
+        if (separator < 0 || message.substring(0, separator).equals(replicaId)) {
+            return; // Our own write, the near cache is already up to date
+        }
+        String spotifyId = message.substring(separator + 1);
+        changes.incrementAndGet();
+        nearCache.invalidate(spotifyId);
+        changeListeners.forEach(listener -> listener.accept(spotifyId));
+    }
+
+    private void invalidateAllLocal() {
+        changes.incrementAndGet();
+        nearCache.invalidateAll();
+    }
+
+    private void scanKeys(Consumer<List<String>> batch) {
+        ScanArgs args = ScanArgs.Builder.matches(settings.getKeyPrefix() + "*").limit(SCAN_BATCH);
+        KeyScanCursor<String> cursor = await(commands.scan(args));
+        while (true) {
+            if (!cursor.getKeys().isEmpty()) {
+                batch.accept(cursor.getKeys());
+            }
+            if (cursor.isFinished()) {
+                return;
+            }
+            cursor = await(commands.scan(cursor, args));
+        }
+    }
+
+    private String key(String spotifyId) {
+        return settings.getKeyPrefix() + spotifyId;
+    }
+
+    // Outside the session key prefix, so scans never see locks
+    private String refreshLockKey(String spotifyId) {
+        return settings.getRefreshLockKeyPrefix() + spotifyId;
+    }
+
+    private <T> T await(RedisFuture<T> future) {
+        return LettuceFutures.awaitOrCancel(future, settings.getCommandTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    static String encode(UserSession session) {
+        if (session.getAccessToken().indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Access token must not contain line breaks");
+        }
+        String value = session.getExpiresAt() + "\n" + session.getAccessToken();
+        return session.getRefreshToken() != null ? value + "\n" + session.getRefreshToken() : value;
+    }
+
+    static UserSession decode(String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split("\n", 3);
+        return new UserSession(parts[1], parts.length > 2 ? parts[2] : null, Instant.parse(parts[0]));
+    }
+}
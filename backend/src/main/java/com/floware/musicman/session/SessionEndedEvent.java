@@ -0,0 +1,5 @@
+package com.floware.musicman.session;
+
+// Published when a user's session is removed by logout, expiry or a failed refresh
+public record SessionEndedEvent(String spotifyId) {
+}
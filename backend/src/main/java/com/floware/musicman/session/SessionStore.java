@@ -0,0 +1,66 @@
+package com.floware.musicman.session;
+
+import com.floware.musicman.model.UserSession;
+
+import java.time.Instant;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Storage for per-user Spotify sessions, keyed by Spotify id. Implementations must be safe for
+ * concurrent use; conditional operations compare sessions by value.
+ */
+public interface SessionStore extends AutoCloseable {
+
+    UserSession get(String spotifyId);
+
+    void put(String spotifyId, UserSession session);
+
+    // Replaces an existing session only, so a concurrent logout is not undone
+    boolean replaceIfPresent(String spotifyId, UserSession session);
+
+    // Removes the session only if it still equals the expected one
+    boolean remove(String spotifyId, UserSession expected);
+
+    void remove(String spotifyId);
+
+    int size();
+
+    // Visits a snapshot of all sessions, e.g. to reschedule refreshes after a restart
+    void forEach(BiConsumer<String, UserSession> action);
+
+    // Visits each session's id, expiry and whether it can be refreshed, without the tokens themselves,
+    // e.g. to rebuild the expiry schedule after a restart
+    default void forEachExpiry(ExpiryVisitor visitor) {
+        forEach((spotifyId, session) -> visitor.visit(spotifyId, session.getExpiresAt(),
+                session.getRefreshToken() != null && !session.getRefreshToken().isEmpty()));
+    }
+
+    // Shared stores are visible to every replica, so a restart must not take over their refresh schedule
+    default boolean isShared() {
+        return false;
+    }
+
+    // Cross-replica guard so one replica at a time refreshes a user's token. Stores used by a single
+    // replica need none, as the service's per-user single flight already covers them.
+    default boolean tryLockRefresh(String spotifyId) {
+        return true;
+    }
+
+    default void unlockRefresh(String spotifyId) {
+    }
+
+    // Called with the id of each session another replica writes or removes, e.g. to pick up a
+    // refresh that replica holds the lock for. Stores used by a single replica never call it.
+    default void addChangeListener(Consumer<String> listener) {
+    }
+
+    @Override
+    default void close() {
+    }
+
+    @FunctionalInterface
+    interface ExpiryVisitor {
+        void visit(String spotifyId, Instant expiresAt, boolean refreshable);
+    }
+}
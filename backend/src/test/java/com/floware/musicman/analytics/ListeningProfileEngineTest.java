@@ -0,0 +1,174 @@
+package com.floware.musicman.analytics;
+
+import com.floware.musicman.config.ListeningProfileProperties;
+import com.floware.musicman.dto.ArtistDTO;
+import com.floware.musicman.dto.ListeningProfileDTO;
+import com.floware.musicman.model.TimeRange;
+import com.floware.musicman.session.SessionEndedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListeningProfileEngineTest {
+
+    private final Map<TimeRange, List<ArtistDTO>> topArtists = new EnumMap<>(TimeRange.class);
+    private ListeningProfileProperties properties;
+    private ListeningProfileEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ListeningProfileProperties();
+        engine = new ListeningProfileEngine(properties);
+        topArtists.put(TimeRange.SHORT_TERM, List.of(
+                artist("a1", 95, "pop", "dance pop"),
+                artist("a2", 40, "indie"),
+                artist("a3", 100, "pop")));
+        topArtists.put(TimeRange.MEDIUM_TERM, List.of(
+                artist("a3", 100, "pop"),
+                artist("a1", 95, "pop", "dance pop"),
+                artist("a4", 10, "jazz")));
+        topArtists.put(TimeRange.LONG_TERM, List.of(
+                artist("a4", 10, "jazz"),
+                artist("a3", 100, "pop")));
+    }
+
+    @Test
+    void profile_GenreHistogramsPerRangeAndOverall() {
+        ListeningProfileDTO profile = profile("user1");
+
+        ListeningProfileDTO.RangeProfile shortTerm = profile.getRanges().get("short_term");
+        assertEquals(3, shortTerm.getArtists());
+        assertEquals(List.of(
+                new ListeningProfileDTO.GenreCount("pop", 2, 2 / 3.0),
+                new ListeningProfileDTO.GenreCount("dance pop", 1, 1 / 3.0),
+                new ListeningProfileDTO.GenreCount("indie", 1, 1 / 3.0)), shortTerm.getGenres());
+        assertEquals(List.of("short_term", "medium_term", "long_term"), List.copyOf(profile.getRanges().keySet()));
+
+        ListeningProfileDTO.GenreCount top = profile.getGenres().get(0);
+        assertEquals("pop", top.getGenre());
+        assertEquals(5, top.getCount());
+        assertEquals(5 / 8.0, top.getShare(), 1e-9);
+    }
+
+    @Test
+    void profile_PopularityDistribution() {
+        ListeningProfileDTO.PopularityDistribution popularity =
+                profile("user1").getRanges().get("short_term").getPopularity();
+
+        assertArrayEquals(new int[]{0, 0, 0, 0, 1, 0, 0, 0, 0, 2}, popularity.getBuckets()); // 100 lands in 90-100
+        assertEquals(235 / 3.0, popularity.getMean(), 1e-9);
+        assertEquals(95, popularity.getMedian());
+    }
+
+    @Test
+    void profile_OverlapBetweenRanges() {
+        ListeningProfileDTO profile = profile("user1");
+
+        ListeningProfileDTO.RangeOverlap shortMedium = profile.getOverlap().get(0);
+        assertEquals("short_term", shortMedium.getFrom());
+        assertEquals("medium_term", shortMedium.getTo());
+        assertEquals(2, shortMedium.getShared());
+        assertEquals(0.5, shortMedium.getJaccard(), 1e-9); // {a1, a3} of {a1, a2, a3, a4}
+        assertEquals(3, profile.getOverlap().size());
+        assertEquals(1, profile.getInAllRanges());
+        assertEquals(List.of("Artist a3"), profile.getStaples());
+    }
+
+    @Test
+    void profile_LoadsAllRangesWithTheConfiguredLimit() {
+        properties.setArtistsPerRange(20);
+        List<Integer> limits = new CopyOnWriteArrayList<>();
+
+        engine.profile("user1", (range, limit) -> {
+            limits.add(limit);
+            return Mono.just(topArtists.get(range));
+        }).block();
+
+        assertEquals(List.of(20, 20, 20), limits);
+    }
+
+    @Test
+    void profile_UnchangedRangesAreNotAggregatedAgain() {
+        ListeningProfileDTO first = profile("user1");
+        ListeningProfileDTO second = profile("user1");
+
+        assertSame(first, second);
+        assertEquals(3, engine.rangesAggregatedCount());
+        assertEquals(1, engine.reusedCount());
+
+        topArtists.put(TimeRange.SHORT_TERM, List.of(artist("a4", 10, "jazz")));
+        ListeningProfileDTO third = profile("user1");
+
+        assertEquals(4, engine.rangesAggregatedCount()); // Only the short-term range was counted again
+        assertEquals(2, engine.computedCount());
+        assertEquals(List.of(new ListeningProfileDTO.GenreCount("jazz", 1, 1.0)),
+                third.getRanges().get("short_term").getGenres());
+        assertSame(first.getRanges().get("long_term").getPopularity(), third.getRanges().get("long_term").getPopularity());
+        assertEquals(List.of("Artist a4"), third.getStaples());
+    }
+
+    @Test
+    void profile_IsPerUserAndDroppedWhenTheSessionEnds() {
+        profile("user1");
+        profile("user2");
+        assertEquals(6, engine.rangesAggregatedCount());
+
+        engine.onSessionEnded(new SessionEndedEvent("user1"));
+        profile("user1");
+        profile("user2");
+
+        assertEquals(9, engine.rangesAggregatedCount());
+        assertEquals(1, engine.reusedCount());
+    }
+
+    @Test
+    void profile_EmptyRangesAreZeroes() {
+        topArtists.replaceAll((range, artists) -> List.of());
+
+        ListeningProfileDTO profile = profile("user1");
+
+        assertTrue(profile.getGenres().isEmpty());
+        assertEquals(0, profile.getRanges().get("long_term").getPopularity().getMedian());
+        assertEquals(0, profile.getOverlap().get(0).getJaccard());
+    }
+
+    @Test
+    void artistDto_KeepsEveryGenre() throws Exception {
+        ArtistDTO artist = new ObjectMapper().readValue(
+                "{\"id\":\"a1\",\"name\":\"Daft Punk\",\"popularity\":80,\"genres\":[\"french house\",\"electro\"]}",
+                ArtistDTO.class);
+
+        assertEquals(List.of("french house", "electro"), artist.getGenres());
+        assertEquals("french house", artist.getGenre());
+    }
+
+    @Test
+    void genreCounter_GrowsPastItsInitialCapacity() {
+        GenreCounter counter = new GenreCounter(4);
+        for (int i = 0; i < 100; i++) {
+            counter.increment("genre" + (i % 40));
+        }
+
+        assertEquals(40, counter.size());
+        assertEquals(3, counter.get("genre0"));
+        assertEquals(2, counter.get("genre39"));
+        assertEquals(0, counter.get("missing"));
+        assertEquals("genre0", counter.top(1, 100).get(0).getGenre());
+    }
+
+    private ListeningProfileDTO profile(String spotifyId) {
+        return engine.profile(spotifyId, (range, limit) -> Mono.just(topArtists.get(range))).block();
+    }
+
+    private static ArtistDTO artist(String id, int popularity, String... genres) {
+        return new ArtistDTO(id, "Artist " + id, null, popularity, genres[0], List.of(genres));
+    }
+}
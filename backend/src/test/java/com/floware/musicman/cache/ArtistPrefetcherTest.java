@@ -0,0 +1,120 @@
+package com.floware.musicman.cache;
+
+import com.floware.musicman.client.SpotifyRateLimiter;
+import com.floware.musicman.config.CatalogCacheProperties;
+import com.floware.musicman.config.PrefetchProperties;
+import com.floware.musicman.config.SpotifyProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArtistPrefetcherTest {
+
+    private final Set<String> loaded = ConcurrentHashMap.newKeySet();
+    private PrefetchProperties properties;
+    private CatalogCache catalogCache;
+    private ArtistPrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PrefetchProperties();
+        properties.setEnabled(true);
+        catalogCache = new CatalogCache(new CatalogCacheProperties());
+        prefetcher = new ArtistPrefetcher(properties, catalogCache, new SpotifyRateLimiter(new SpotifyProperties()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.shutdown();
+    }
+
+    @Test
+    void prefetch_WarmsArtistPagesAndCountsUserReads() {
+        prefetcher.prefetch(List.of("artist1", "artist2"), loader());
+
+        assertEventually(() -> prefetcher.fetchedCount() == 6);
+        assertNotNull(catalogCache.getIfPresent(CatalogResource.ARTIST, "artist1"));
+        assertNotNull(catalogCache.getIfPresent(CatalogResource.ARTIST_TOP_TRACKS, "artist2"));
+        assertNotNull(catalogCache.getIfPresent(CatalogResource.ARTIST_ALBUMS, "artist2"));
+
+        prefetcher.recordRequest(CatalogResource.ARTIST, "artist1");
+        prefetcher.recordRequest(CatalogResource.ARTIST, "artist1");
+        prefetcher.recordRequest(CatalogResource.ALBUM, "artist1");
+
+        assertEquals(1, prefetcher.usedCount());
+    }
+
+    @Test
+    void prefetch_DoesNothingUnlessEnabled() throws Exception {
+        properties.setEnabled(false);
+
+        prefetcher.prefetch(List.of("artist1"), loader());
+        Thread.sleep(50);
+
+        assertTrue(loaded.isEmpty());
+        assertEquals(0, prefetcher.fetchedCount());
+    }
+
+    @Test
+    void prefetch_SkipsCachedEntriesAndRecentArtists() {
+        catalogCache.get(CatalogResource.ARTIST, "artist1", () -> Mono.just("{}")).block();
+
+        prefetcher.prefetch(List.of("artist1"), loader());
+        prefetcher.prefetch(List.of("artist1"), loader());
+
+        assertEventually(() -> prefetcher.fetchedCount() + prefetcher.alreadyCachedCount() == 3);
+        assertEquals(1, prefetcher.alreadyCachedCount());
+        assertEquals(Set.of("ARTIST_TOP_TRACKS:artist1", "ARTIST_ALBUMS:artist1"), loaded);
+    }
+
+    @Test
+    void prefetch_OnlyLeadingArtistsOfTheList() {
+        properties.setArtistsPerList(1);
+
+        prefetcher.prefetch(List.of("artist1", "artist2"), loader());
+
+        assertEventually(() -> prefetcher.fetchedCount() == 3);
+        assertNull(catalogCache.getIfPresent(CatalogResource.ARTIST, "artist2"));
+    }
+
+    @Test
+    void prefetch_SkippedWhenUpstreamBudgetIsLow() {
+        SpotifyProperties spotifyProperties = new SpotifyProperties();
+        spotifyProperties.getRateLimit().setBurst(5);
+        spotifyProperties.getRateLimit().setPermitsPerSecond(0.001);
+        prefetcher.shutdown();
+        prefetcher = new ArtistPrefetcher(properties, catalogCache, new SpotifyRateLimiter(spotifyProperties));
+
+        prefetcher.prefetch(List.of("artist1"), loader());
+
+        assertEventually(() -> prefetcher.skippedCount() == 3);
+        assertTrue(loaded.isEmpty());
+    }
+
+    private BiFunction<CatalogResource, String, Mono<CatalogEntry>> loader() {
+        return (resource, id) -> catalogCache.getEntry(resource, id, stale -> {
+            loaded.add(resource + ":" + id);
+            return Mono.just(CatalogEntry.fetched("{\"id\":\"" + id + "\"}", null));
+        });
+    }
+
+    private static void assertEventually(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.get()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.floware.musicman.cache;
+
+import com.floware.musicman.config.CatalogCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogCacheTest {
+
+    private CatalogCache catalogCache;
+
+    @BeforeEach
+    void setUp() {
+        catalogCache = new CatalogCache(new CatalogCacheProperties());
+    }
+
+    @Test
+    void get_LoadsOnceAndServesHits() {
+        AtomicInteger loads = new AtomicInteger();
+
+        String first = catalogCache.get(CatalogResource.ARTIST, "artist123", () -> {
+            loads.incrementAndGet();
+            return Mono.just("{\"id\":\"artist123\"}");
+        }).block();
+        String second = catalogCache.get(CatalogResource.ARTIST, "artist123", () -> {
+            loads.incrementAndGet();
+            return Mono.just("{\"id\":\"other\"}");
+        }).block();
+
+        assertEquals("{\"id\":\"artist123\"}", first);
+        assertEquals(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, catalogCache.stats().hitCount());
+        assertEquals(1, catalogCache.stats().missCount());
+    }
+
+    @Test
+    void get_KeysByResourceType() {
+        catalogCache.get(CatalogResource.ARTIST, "id1", () -> Mono.just("artist")).block();
+        String albums = catalogCache.get(CatalogResource.ARTIST_ALBUMS, "id1", () -> Mono.just("albums")).block();
+
+        assertEquals("albums", albums);
+        assertEquals(2, catalogCache.size());
+    }
+
+    @Test
+    void get_DoesNotCacheFailedLoads() {
+        assertThrows(RuntimeException.class, () -> catalogCache.get(CatalogResource.ALBUM, "album123",
+                () -> Mono.<String>error(new RuntimeException("Upstream error"))).block());
+
+        String album = catalogCache.get(CatalogResource.ALBUM, "album123", () -> Mono.just("album")).block();
+
+        assertEquals("album", album);
+    }
+
+    @Test
+    void get_WaitersRetryWithTheirOwnTokenWhenTheSharedCallIsUnauthorized() {
+        Sinks.One<String> revokedCall = Sinks.one();
+        Mono<String> revoked = catalogCache.get(CatalogResource.ARTIST, "artist123", revokedCall::asMono);
+        Mono<String> valid = catalogCache.get(CatalogResource.ARTIST, "artist123", () -> Mono.just("artist"));
+        AtomicReference<Throwable> revokedError = new AtomicReference<>();
+        AtomicReference<String> validBody = new AtomicReference<>();
+        revoked.subscribe(null, revokedError::set);
+        valid.subscribe(validBody::set);
+
+        revokedCall.tryEmitError(WebClientResponseException.create(401, "Unauthorized", null, null, null));
+
+        assertInstanceOf(WebClientResponseException.Unauthorized.class, revokedError.get());
+        assertEquals("artist", validBody.get());
+        assertEquals(1, catalogCache.coalescedCount());
+    }
+
+    @Test
+    void getEntry_HandsStaleEntryToLoaderForRevalidation() {
+        CatalogCacheProperties properties = new CatalogCacheProperties();
+        properties.setArtistTtl(Duration.ZERO);
+        CatalogCache expiringCache = new CatalogCache(properties);
+        AtomicReference<CatalogEntry> seenStale = new AtomicReference<>();
+
+        CatalogEntry first = expiringCache.getEntry(CatalogResource.ARTIST, "artist123",
+                stale -> Mono.just(CatalogEntry.fetched("{\"id\":\"artist123\"}", "\"upstream1\""))).block();
+        CatalogEntry second = expiringCache.getEntry(CatalogResource.ARTIST, "artist123", stale -> {
+            seenStale.set(stale);
+            return Mono.just(stale); // Upstream answered 304
+        }).block();
+
+        assertNotNull(seenStale.get());
+        assertEquals("\"upstream1\"", seenStale.get().upstreamEtag());
+        assertEquals(first.body(), second.body());
+        assertEquals(first.etag(), second.etag());
+        assertNull(expiringCache.getIfPresent(CatalogResource.ARTIST, "artist123"));
+    }
+
+    @Test
+    void getEntry_ServesStaleEntryWhenRefreshFails() {
+        CatalogCache expiringCache = expiringCache(Duration.ofSeconds(1));
+        expiringCache.get(CatalogResource.ARTIST, "artist123", () -> Mono.just("{\"id\":\"artist123\"}")).block();
+
+        CatalogEntry served = expiringCache.getEntry(CatalogResource.ARTIST, "artist123",
+                stale -> Mono.error(new RuntimeException("Circuit open"))).block();
+
+        assertEquals("{\"id\":\"artist123\"}", served.body());
+        assertFalse(served.isFresh());
+        assertEquals(1, expiringCache.staleServedCount());
+    }
+
+    @Test
+    void getEntry_ServesStaleEntryWhileSlowRefreshCompletesInBackground() throws Exception {
+        CatalogCache expiringCache = expiringCache(Duration.ofMillis(50));
+        expiringCache.get(CatalogResource.ARTIST, "artist123", () -> Mono.just("old")).block();
+
+        CatalogEntry served = expiringCache.getEntry(CatalogResource.ARTIST, "artist123",
+                stale -> Mono.delay(Duration.ofMillis(300)).thenReturn(CatalogEntry.fetched("new", null))).block();
+        Thread.sleep(500);
+        CatalogEntry afterRefresh = expiringCache.getEntry(CatalogResource.ARTIST, "artist123",
+                stale -> Mono.error(new RuntimeException("Upstream error"))).block();
+
+        assertEquals("old", served.body());
+        assertEquals("new", afterRefresh.body());
+    }
+
+    @Test
+    void getEntry_DoesNotMaskClientErrorsWithStaleEntry() {
+        CatalogCache expiringCache = expiringCache(Duration.ofSeconds(1));
+        expiringCache.get(CatalogResource.ARTIST, "artist123", () -> Mono.just("{}")).block();
+
+        assertThrows(ResponseStatusException.class, () -> expiringCache.getEntry(CatalogResource.ARTIST, "artist123",
+                stale -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND))).block());
+        assertEquals(0, expiringCache.staleServedCount());
+    }
+
+    private static CatalogCache expiringCache(Duration staleTimeout) {
+        CatalogCacheProperties properties = new CatalogCacheProperties();
+        properties.setArtistTtl(Duration.ZERO);
+        properties.setStaleTimeout(staleTimeout);
+        return new CatalogCache(properties);
+    }
+
+    @Test
+    void fetched_ComputesStableStrongEtag() {
+        CatalogEntry a = CatalogEntry.fetched("{\"id\":\"1\"}", null);
+        CatalogEntry b = CatalogEntry.fetched("{\"id\":\"1\"}", "\"ignored\"");
+
+        assertEquals(a.etag(), b.etag());
+        assertTrue(a.etag().startsWith("\"") && a.etag().endsWith("\""));
+        assertNotEquals(a.etag(), CatalogEntry.fetched("{\"id\":\"2\"}", null).etag());
+    }
+}
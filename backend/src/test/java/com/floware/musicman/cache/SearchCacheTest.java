@@ -0,0 +1,102 @@
+package com.floware.musicman.cache;
+
+import com.floware.musicman.config.SearchCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCacheTest {
+
+    private static final String RESULT =
+            "{\"artists\":{\"items\":[{\"id\":\"a1\",\"name\":\"Daft Punk\",\"popularity\":80}]}}";
+
+    private final List<SearchCache.SearchKey> upstreamKeys = new CopyOnWriteArrayList<>();
+    private TypeaheadIndex typeaheadIndex;
+    private SearchCache searchCache;
+
+    @BeforeEach
+    void setUp() {
+        SearchCacheProperties properties = new SearchCacheProperties();
+        typeaheadIndex = new TypeaheadIndex(properties);
+        searchCache = new SearchCache(properties, typeaheadIndex);
+    }
+
+    private Mono<String> search(String query, List<String> types) {
+        return searchCache.get(query, types, 10, key -> {
+            upstreamKeys.add(key);
+            return Mono.just(RESULT);
+        });
+    }
+
+    @Test
+    void get_EquivalentQueriesShareOneEntry() {
+        search("Daft Punk", List.of("artist", "album")).block();
+        search("  daft   PUNK ", List.of("album", "artist")).block();
+        search("ＤＡＦＴ punk", List.of("artist", "album", "artist")).block();
+
+        assertEquals(1, upstreamKeys.size());
+        assertEquals(new SearchCache.SearchKey("daft punk", List.of("album", "artist"), 10, 0), upstreamKeys.get(0));
+        assertEquals("album,artist", upstreamKeys.get(0).typeParam());
+        assertEquals(2, searchCache.stats().hitCount());
+    }
+
+    @Test
+    void get_DifferentTypeSetsAreSeparateEntries() {
+        search("daft punk", List.of("artist")).block();
+        search("daft punk", List.of("track")).block();
+
+        assertEquals(2, upstreamKeys.size());
+        assertEquals(2, searchCache.size());
+    }
+
+    @Test
+    void get_OffsetsAreSeparateEntries() {
+        search("daft punk", List.of("artist")).block();
+        searchCache.get("daft punk", List.of("artist"), 10, 10, key -> {
+            upstreamKeys.add(key);
+            return Mono.just(RESULT);
+        }).block();
+
+        assertEquals(2, upstreamKeys.size());
+        assertEquals(10, upstreamKeys.get(1).offset());
+    }
+
+    @Test
+    void get_AbandonedLoadIsCancelledAndNotCached() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Disposable waiter = searchCache.get("daft", List.of("artist"), 10,
+                key -> Mono.<String>never().doOnCancel(() -> cancelled.set(true))).subscribe();
+
+        waiter.dispose();
+        search("daft", List.of("artist")).block();
+
+        assertTrue(cancelled.get());
+        assertEquals(1, upstreamKeys.size());
+    }
+
+    @Test
+    void get_LoadedResultsFeedTheTypeaheadIndex() {
+        search("daft", List.of("artist")).block();
+
+        List<TypeaheadIndex.Suggestion> suggestions = typeaheadIndex.suggest("daf", 5);
+
+        assertEquals(List.of(new TypeaheadIndex.Suggestion("artist", "a1", "Daft Punk", 80)), suggestions);
+    }
+
+    @Test
+    void get_FailedLoadIsNotCached() {
+        searchCache.get("daft", List.of("artist"), 10, key -> Mono.error(new IllegalStateException("upstream down")))
+                .onErrorResume(e -> Mono.empty())
+                .block();
+        search("daft", List.of("artist")).block();
+
+        assertEquals(1, upstreamKeys.size());
+    }
+}
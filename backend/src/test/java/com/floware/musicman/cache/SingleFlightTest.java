@@ -0,0 +1,104 @@
+package com.floware.musicman.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void execute_ConcurrentCallersShareOneCall() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> upstream = Sinks.one();
+
+        AtomicReference<String> first = new AtomicReference<>();
+        AtomicReference<String> second = new AtomicReference<>();
+        singleFlight.execute("artist123", () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        }).subscribe(first::set);
+        singleFlight.execute("artist123", () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        }).subscribe(second::set);
+
+        upstream.tryEmitValue("{\"id\":\"artist123\"}");
+
+        assertEquals(1, calls.get());
+        assertEquals("{\"id\":\"artist123\"}", first.get());
+        assertEquals("{\"id\":\"artist123\"}", second.get());
+        assertEquals(1, singleFlight.coalescedCount());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_ErrorsPropagateToEveryWaiter() {
+        Sinks.One<String> upstream = Sinks.one();
+
+        AtomicReference<Throwable> first = new AtomicReference<>();
+        AtomicReference<Throwable> second = new AtomicReference<>();
+        singleFlight.execute("artist123", upstream::asMono).subscribe(v -> {}, first::set);
+        singleFlight.execute("artist123", upstream::asMono).subscribe(v -> {}, second::set);
+
+        upstream.tryEmitError(new RuntimeException("Upstream error"));
+
+        assertEquals("Upstream error", first.get().getMessage());
+        assertSame(first.get(), second.get());
+    }
+
+    @Test
+    void execute_CancellableFlightStopsWithTheLastWaiter() {
+        SingleFlight<String, String> cancellable = new SingleFlight<>(true);
+        AtomicInteger cancels = new AtomicInteger();
+        Sinks.One<String> upstream = Sinks.one();
+
+        Disposable first = cancellable.execute("search", () -> upstream.asMono()
+                .doOnCancel(cancels::incrementAndGet)).subscribe();
+        AtomicReference<String> second = new AtomicReference<>();
+        Disposable secondWaiter = cancellable.execute("search", upstream::asMono).subscribe(second::set);
+
+        first.dispose();
+        assertEquals(0, cancels.get()); // Still awaited by the second caller
+        secondWaiter.dispose();
+
+        assertEquals(1, cancels.get());
+        assertEquals(0, cancellable.inFlightCount());
+        assertNull(second.get());
+    }
+
+    @Test
+    void execute_CancellableFlightSharesOneCall() {
+        SingleFlight<String, String> cancellable = new SingleFlight<>(true);
+        Sinks.One<String> upstream = Sinks.one();
+
+        AtomicReference<String> first = new AtomicReference<>();
+        AtomicReference<String> second = new AtomicReference<>();
+        cancellable.execute("search", upstream::asMono).subscribe(first::set);
+        cancellable.execute("search", upstream::asMono).subscribe(second::set);
+        upstream.tryEmitValue("{}");
+
+        assertEquals("{}", first.get());
+        assertEquals("{}", second.get());
+        assertEquals(1, cancellable.coalescedCount());
+        assertEquals(0, cancellable.inFlightCount());
+    }
+
+    @Test
+    void execute_StartsFreshCallAfterCompletion() {
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.execute("artist123", () -> Mono.just("v" + calls.incrementAndGet())).block();
+        String second = singleFlight.execute("artist123", () -> Mono.just("v" + calls.incrementAndGet())).block();
+
+        assertEquals("v2", second);
+        assertEquals(0, singleFlight.coalescedCount());
+    }
+}
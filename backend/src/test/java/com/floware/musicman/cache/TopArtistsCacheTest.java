@@ -0,0 +1,182 @@
+package com.floware.musicman.cache;
+
+import com.floware.musicman.config.TopArtistsCacheProperties;
+import com.floware.musicman.dto.ArtistDTO;
+import com.floware.musicman.model.TimeRange;
+import com.floware.musicman.session.SessionEndedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopArtistsCacheTest {
+
+    private TopArtistsCacheProperties properties;
+    private TopArtistsCache topArtistsCache;
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Integer> fetchSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new TopArtistsCacheProperties();
+        properties.setFetchSize(20);
+        topArtistsCache = new TopArtistsCache(properties);
+    }
+
+    @Test
+    void get_SmallerLimitsAreSlicesOfOneLoad() {
+        List<ArtistDTO> ten = get("user1", TimeRange.MEDIUM_TERM, 10);
+        List<ArtistDTO> five = get("user1", TimeRange.MEDIUM_TERM, 5);
+        List<ArtistDTO> twenty = get("user1", TimeRange.MEDIUM_TERM, 20);
+
+        assertEquals(10, ten.size());
+        assertEquals(List.of("a0", "a1", "a2", "a3", "a4"), five.stream().map(ArtistDTO::getId).toList());
+        assertEquals(20, twenty.size());
+        assertEquals(List.of(20), fetchSizes);
+        assertEquals(2, topArtistsCache.hitCount());
+        assertEquals(1, topArtistsCache.missCount());
+    }
+
+    @Test
+    void get_LargerLimitLoadsAgain() {
+        get("user1", TimeRange.MEDIUM_TERM, 10);
+        List<ArtistDTO> forty = get("user1", TimeRange.MEDIUM_TERM, 40);
+
+        assertEquals(40, forty.size());
+        assertEquals(List.of(20, 40), fetchSizes);
+    }
+
+    @Test
+    void get_ShortListCoversAnyLimit() {
+        topArtistsCache.get("user1", TimeRange.SHORT_TERM, 10, size -> Mono.just(artists(3))).block();
+
+        List<ArtistDTO> all = topArtistsCache.get("user1", TimeRange.SHORT_TERM, 50,
+                size -> Mono.error(new AssertionError("Should be served from cache"))).block();
+
+        assertEquals(3, all.size());
+    }
+
+    @Test
+    void get_KeysByUserAndTimeRange() {
+        get("user1", TimeRange.SHORT_TERM, 10);
+        get("user1", TimeRange.LONG_TERM, 10);
+        get("user2", TimeRange.SHORT_TERM, 10);
+        get("user1", TimeRange.SHORT_TERM, 10);
+
+        assertEquals(3, loads.get());
+        assertEquals(2, topArtistsCache.size());
+    }
+
+    @Test
+    void get_PastSoftTtlServesCachedAndRefreshesInBackground() {
+        properties.setSoftTtl(Duration.ZERO);
+        topArtistsCache = new TopArtistsCache(properties);
+        topArtistsCache.get("user1", TimeRange.MEDIUM_TERM, 10, size -> Mono.just(artists(size))).block();
+
+        List<ArtistDTO> stale = topArtistsCache.get("user1", TimeRange.MEDIUM_TERM, 10,
+                size -> Mono.just(renamed(artists(size)))).block();
+        List<ArtistDTO> refreshed = topArtistsCache.get("user1", TimeRange.MEDIUM_TERM, 10,
+                size -> Mono.just(artists(size))).block();
+
+        assertEquals("a0", stale.get(0).getId());
+        assertEquals("b0", refreshed.get(0).getId());
+        assertEquals(2, topArtistsCache.staleHitCount());
+    }
+
+    @Test
+    void get_FailedBackgroundRefreshKeepsCachedList() {
+        properties.setSoftTtl(Duration.ZERO);
+        topArtistsCache = new TopArtistsCache(properties);
+        topArtistsCache.get("user1", TimeRange.MEDIUM_TERM, 10, size -> Mono.just(artists(size))).block();
+
+        List<ArtistDTO> stale = topArtistsCache.get("user1", TimeRange.MEDIUM_TERM, 10,
+                size -> Mono.error(new RuntimeException("Upstream error"))).block();
+        List<ArtistDTO> again = topArtistsCache.get("user1", TimeRange.MEDIUM_TERM, 10,
+                size -> Mono.error(new RuntimeException("Upstream error"))).block();
+
+        assertEquals("a0", stale.get(0).getId());
+        assertEquals("a0", again.get(0).getId());
+    }
+
+    @Test
+    void get_PastHardTtlWaitsForLoad() {
+        properties.setSoftTtl(Duration.ZERO);
+        properties.setHardTtl(Duration.ZERO);
+        topArtistsCache = new TopArtistsCache(properties);
+
+        get("user1", TimeRange.MEDIUM_TERM, 10);
+        List<ArtistDTO> reloaded = topArtistsCache.get("user1", TimeRange.MEDIUM_TERM, 10,
+                size -> Mono.just(renamed(artists(size)))).block();
+
+        assertEquals("b0", reloaded.get(0).getId());
+        assertEquals(0, topArtistsCache.staleHitCount());
+    }
+
+    @Test
+    void get_PastHardTtlFallsBackToOldListWhenLoadFails() throws Exception {
+        properties.setSoftTtl(Duration.ZERO);
+        properties.setHardTtl(Duration.ofMillis(1));
+        topArtistsCache = new TopArtistsCache(properties);
+        topArtistsCache.get("user1", TimeRange.MEDIUM_TERM, 10, size -> Mono.just(artists(size))).block();
+        Thread.sleep(5);
+
+        List<ArtistDTO> served = topArtistsCache.get("user1", TimeRange.MEDIUM_TERM, 10,
+                size -> Mono.<List<ArtistDTO>>error(new RuntimeException("Upstream error"))).block();
+
+        assertEquals("a0", served.get(0).getId());
+        assertEquals(1, topArtistsCache.staleHitCount());
+    }
+
+    @Test
+    void onSessionEnded_DropsTheUsersLists() {
+        get("user1", TimeRange.SHORT_TERM, 10);
+        get("user1", TimeRange.LONG_TERM, 10);
+        get("user2", TimeRange.SHORT_TERM, 10);
+
+        topArtistsCache.onSessionEnded(new SessionEndedEvent("user1"));
+        get("user1", TimeRange.SHORT_TERM, 10);
+        get("user2", TimeRange.SHORT_TERM, 10);
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_LoadFinishingAfterLogoutIsNotCached() {
+        Mono<List<ArtistDTO>> pending = topArtistsCache.get("user1", TimeRange.MEDIUM_TERM, 10, size -> {
+            topArtistsCache.invalidate("user1"); // Logout while the upstream call is in flight
+            return Mono.just(artists(size));
+        });
+
+        assertEquals(10, pending.block().size());
+        get("user1", TimeRange.MEDIUM_TERM, 10);
+        assertEquals(1, loads.get());
+        assertEquals(2, topArtistsCache.missCount());
+    }
+
+    private List<ArtistDTO> get(String spotifyId, TimeRange timeRange, int limit) {
+        return topArtistsCache.get(spotifyId, timeRange, limit, size -> {
+            loads.incrementAndGet();
+            fetchSizes.add(size);
+            return Mono.just(artists(size));
+        }).block();
+    }
+
+    private static List<ArtistDTO> artists(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new ArtistDTO("a" + i, "Artist " + i, null, 50, "Pop", List.of("Pop")))
+                .toList();
+    }
+
+    private static List<ArtistDTO> renamed(List<ArtistDTO> artists) {
+        return artists.stream()
+                .map(a -> new ArtistDTO("b" + a.getId().substring(1), a.getName(), null, 50, "Pop", List.of("Pop")))
+                .toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.floware.musicman.cache;
+
+import com.floware.musicman.config.SearchCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypeaheadIndexTest {
+
+    private static final String RESULT = "{"
+            + "\"artists\":{\"items\":["
+            + "{\"id\":\"a1\",\"name\":\"Daft Punk\",\"popularity\":80},"
+            + "{\"id\":\"a2\",\"name\":\"Dafuniks\",\"popularity\":40}]},"
+            + "\"albums\":{\"items\":[{\"id\":\"al1\",\"name\":\"Discovery\"}]},"
+            + "\"tracks\":{\"items\":[{\"id\":\"t1\",\"name\":\"Digital Love\",\"popularity\":70},"
+            + "{\"id\":\"t2\",\"name\":\"One More Time\",\"popularity\":85}]}}";
+
+    private TypeaheadIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TypeaheadIndex(new SearchCacheProperties());
+        index.indexSearchResult(RESULT);
+    }
+
+    @Test
+    void suggest_MatchesPrefixRankedByPopularity() {
+        List<TypeaheadIndex.Suggestion> suggestions = index.suggest("Daf", 10);
+
+        assertEquals(List.of("Daft Punk", "Dafuniks"), suggestions.stream().map(TypeaheadIndex.Suggestion::name).toList());
+    }
+
+    @Test
+    void suggest_MatchesLaterWordsOfAName() {
+        List<TypeaheadIndex.Suggestion> suggestions = index.suggest("tim", 10);
+
+        assertEquals(1, suggestions.size());
+        assertEquals("track", suggestions.get(0).type());
+        assertEquals("t2", suggestions.get(0).id());
+    }
+
+    @Test
+    void suggest_CoversAllTypesAndRespectsLimit() {
+        List<TypeaheadIndex.Suggestion> suggestions = index.suggest("d", 2);
+
+        assertEquals(List.of("Daft Punk", "Digital Love"), suggestions.stream().map(TypeaheadIndex.Suggestion::name).toList());
+        assertEquals(List.of("album"), index.suggest("disc", 5).stream().map(TypeaheadIndex.Suggestion::type).toList());
+    }
+
+    @Test
+    void suggest_ReturnsNothingForBlankOrUnknownPrefix() {
+        assertTrue(index.suggest("  ", 10).isEmpty());
+        assertTrue(index.suggest("zz", 10).isEmpty());
+    }
+
+    @Test
+    void indexSearchResult_StaysWithinMaxEntries() {
+        SearchCacheProperties properties = new SearchCacheProperties();
+        properties.setTypeaheadMaxEntries(2);
+        TypeaheadIndex small = new TypeaheadIndex(properties);
+
+        small.indexSearchResult(RESULT);
+
+        assertEquals(2, small.size());
+    }
+
+    @Test
+    void indexSearchResult_NewNamesStillAppearOnceFull() {
+        SearchCacheProperties properties = new SearchCacheProperties();
+        properties.setTypeaheadMaxEntries(10);
+        TypeaheadIndex small = new TypeaheadIndex(properties);
+        for (int i = 0; i < 20; i++) {
+            small.indexSearchResult("{\"artists\":{\"items\":[{\"id\":\"x" + i + "\",\"name\":\"Filler" + i + "\"}]}}");
+        }
+
+        small.indexSearchResult("{\"artists\":{\"items\":[{\"id\":\"new\",\"name\":\"Justice\"}]}}");
+
+        assertEquals(List.of("Justice"), small.suggest("just", 5).stream().map(TypeaheadIndex.Suggestion::name).toList());
+        assertTrue(small.size() <= 10);
+    }
+
+    @Test
+    void indexSearchResult_IgnoresMalformedBodies() {
+        index.indexSearchResult("not json");
+
+        assertEquals(2, index.suggest("daf", 10).size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.floware.musicman.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicroBatcherTest {
+
+    private final List<List<String>> upstreamCalls = new CopyOnWriteArrayList<>();
+
+    private MicroBatcher<String, String> batcher(int maxBatchSize, Duration window) {
+        return new MicroBatcher<>(maxBatchSize, window, (ids, accessToken) -> {
+            upstreamCalls.add(ids);
+            return Mono.just(ids.stream()
+                    .filter(id -> !id.startsWith("missing"))
+                    .collect(Collectors.toMap(id -> id, id -> "{\"id\":\"" + id + "\"}")));
+        });
+    }
+
+    @Test
+    void load_CollectsConcurrentLoadsIntoOneBatch() {
+        MicroBatcher<String, String> batcher = batcher(50, Duration.ofMillis(20));
+
+        List<String> results = Flux.merge(
+                batcher.load("a", "token"),
+                batcher.load("b", "token"),
+                batcher.load("a", "token"),
+                batcher.load("c", "token")).collectList().block();
+
+        assertEquals(4, results.size());
+        assertEquals(1, upstreamCalls.size());
+        assertEquals(List.of("a", "b", "c"), upstreamCalls.get(0));
+        assertEquals(1, batcher.batchCount());
+    }
+
+    @Test
+    void load_FlushesImmediatelyWhenBatchIsFull() {
+        MicroBatcher<String, String> batcher = batcher(2, Duration.ofSeconds(10));
+
+        List<String> results = Flux.merge(
+                batcher.load("a", "token"),
+                batcher.load("b", "token")).collectList().block(Duration.ofSeconds(1));
+
+        assertEquals(2, results.size());
+        assertEquals(1, upstreamCalls.size());
+    }
+
+    @Test
+    void load_CompletesEmptyForUnknownKeys() {
+        MicroBatcher<String, String> batcher = batcher(50, Duration.ofMillis(1));
+
+        assertNull(batcher.load("missing1", "token").block());
+    }
+
+    @Test
+    void load_PropagatesBatchErrorToEveryCaller() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(50, Duration.ofMillis(5),
+                (ids, accessToken) -> Mono.<Map<String, String>>error(new RuntimeException("Upstream error")));
+
+        List<String> errors = Flux.merge(
+                        batcher.load("a", "token").onErrorResume(e -> Mono.just(e.getMessage())),
+                        batcher.load("b", "token").onErrorResume(e -> Mono.just(e.getMessage())))
+                .collectList().block();
+
+        assertEquals(List.of("Upstream error", "Upstream error"), errors);
+    }
+
+    @Test
+    void load_RejectedFirstTokenOnlyFailsItsOwnCaller() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(50, Duration.ofMillis(5), (ids, accessToken) -> {
+            upstreamCalls.add(ids);
+            if (accessToken.equals("revoked")) {
+                return Mono.error(WebClientResponseException.create(401, "Unauthorized", HttpHeaders.EMPTY, new byte[0], null));
+            }
+            return Mono.just(ids.stream().collect(Collectors.toMap(id -> id, id -> accessToken + ":" + id)));
+        });
+
+        List<String> results = Flux.merge(
+                        batcher.load("a", "revoked").onErrorResume(WebClientResponseException.Unauthorized.class,
+                                e -> Mono.just("unauthorized")),
+                        batcher.load("b", "token2"),
+                        batcher.load("a", "token3"))
+                .collectList().block(Duration.ofSeconds(1));
+
+        assertEquals(3, results.size());
+        assertTrue(results.containsAll(List.of("unauthorized", "token2:b", "token3:a")));
+        assertEquals(List.of(List.of("a", "b"), List.of("a"), List.of("b")), upstreamCalls);
+    }
+}
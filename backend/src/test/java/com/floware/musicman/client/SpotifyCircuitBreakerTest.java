@@ -0,0 +1,156 @@
+package com.floware.musicman.client;
+
+import com.floware.musicman.config.SpotifyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotifyCircuitBreakerTest {
+
+    private SpotifyProperties properties;
+    private SpotifyCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SpotifyProperties();
+        properties.getCircuitBreaker().setWindowSize(4);
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMinutes(1));
+        circuitBreaker = new SpotifyCircuitBreaker(properties);
+    }
+
+    @Test
+    void filter_OpensOnServerErrorsAndFailsFast() {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            exchange("artist", calls, HttpStatus.BAD_GATEWAY);
+        }
+
+        SpotifyUnavailableException e = assertThrows(SpotifyUnavailableException.class,
+                () -> exchange("artist", calls, HttpStatus.OK));
+
+        assertEquals(4, calls.get());
+        assertEquals("artist", e.getEndpoint());
+        assertTrue(e.getRetryAfter().toSeconds() > 50);
+        assertEquals(1, circuitBreaker.getRejectedCalls());
+        assertEquals(1, circuitBreaker.getOpenCount());
+    }
+
+    @Test
+    void filter_BreakersArePerEndpoint() {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            exchange("artist", calls, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        assertEquals(HttpStatus.OK, exchange("search", calls, HttpStatus.OK).statusCode());
+    }
+
+    @Test
+    void filter_ClientErrorsAndRateLimitsDoNotOpen() {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            exchange("artist", calls, HttpStatus.NOT_FOUND);
+            assertThrows(SpotifyRateLimitException.class, () -> circuitBreaker.filter(request("artist"),
+                    r -> Mono.error(new SpotifyRateLimitException("Spotify rate limit reached", Duration.ZERO))).block());
+        }
+
+        assertEquals(HttpStatus.OK, exchange("artist", calls, HttpStatus.OK).statusCode());
+        assertEquals(0, circuitBreaker.getOpenCount());
+    }
+
+    @Test
+    void filter_TransportErrorsAndSlowCallsCountAsFailures() {
+        properties.getCircuitBreaker().setSlowCallThreshold(Duration.ofMillis(10));
+        circuitBreaker = new SpotifyCircuitBreaker(properties);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(RuntimeException.class, () -> circuitBreaker.filter(request("artist"),
+                    r -> Mono.error(new IOException("Connection reset"))).block());
+            circuitBreaker.filter(request("artist"), r -> Mono.delay(Duration.ofMillis(30))
+                    .thenReturn(ClientResponse.create(HttpStatus.OK).build())).block();
+        }
+
+        assertThrows(SpotifyUnavailableException.class, () -> exchange("artist", new AtomicInteger(), HttpStatus.OK));
+    }
+
+    @Test
+    void filter_RateLimiterBackoffDoesNotCountAsSlow() {
+        SpotifyRateLimiter rateLimiter = new SpotifyRateLimiter(properties);
+        ExchangeFilterFunction chain = circuitBreaker.andThen(rateLimiter).andThen(circuitBreaker.wireTimer());
+        AtomicInteger calls = new AtomicInteger();
+        ExchangeFunction spotify = r -> Mono.fromSupplier(() -> calls.incrementAndGet() == 1
+                ? ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "3").build()
+                : ClientResponse.create(HttpStatus.OK).build());
+
+        // The first call is throttled and every call then waits out the 3s backoff, past the 2s slow-call threshold
+        Flux.range(0, 4).flatMap(i -> chain.filter(request("artist"), spotify)).blockLast();
+
+        assertEquals(0, circuitBreaker.getOpenCount());
+        assertEquals(HttpStatus.OK, chain.filter(request("artist"), spotify).block().statusCode());
+        assertEquals(6, calls.get());
+    }
+
+    @Test
+    void filter_DisabledPassesEverythingThrough() {
+        properties.getCircuitBreaker().setEnabled(false);
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 6; i++) {
+            exchange("artist", calls, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        assertEquals(6, calls.get());
+    }
+
+    @Test
+    void halfOpen_ClosesAfterSuccessfulTrialsAndReopensOnFailure() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, Duration.ofMillis(20), 2);
+        breaker.release(breaker.tryAcquire(), CircuitBreaker.Outcome.FAILURE);
+        long stalePermit = breaker.tryAcquire();
+        breaker.release(breaker.tryAcquire(), CircuitBreaker.Outcome.FAILURE);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+
+        Thread.sleep(30);
+        long trial1 = breaker.tryAcquire();
+        long trial2 = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire()); // Only two trials at a time
+        breaker.release(stalePermit, CircuitBreaker.Outcome.FAILURE); // Started before opening, ignored
+        breaker.release(trial1, CircuitBreaker.Outcome.SUCCESS);
+        breaker.release(trial2, CircuitBreaker.Outcome.SUCCESS);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.release(breaker.tryAcquire(), CircuitBreaker.Outcome.FAILURE);
+        breaker.release(breaker.tryAcquire(), CircuitBreaker.Outcome.FAILURE);
+        Thread.sleep(30);
+        breaker.release(breaker.tryAcquire(), CircuitBreaker.Outcome.FAILURE);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private ClientResponse exchange(String endpoint, AtomicInteger calls, HttpStatus status) {
+        return circuitBreaker.filter(request(endpoint), r -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(status).build());
+        }).block();
+    }
+
+    private static ClientRequest request(String endpoint) {
+        return ClientRequest.create(HttpMethod.GET, URI.create("https://api.spotify.com/v1/" + endpoint))
+                .attributes(UpstreamMetricsFilter.endpoint(endpoint))
+                .build();
+    }
+}
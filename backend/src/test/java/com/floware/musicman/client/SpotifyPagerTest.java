@@ -0,0 +1,88 @@
+package com.floware.musicman.client;
+
+import com.floware.musicman.dto.SpotifyResponse;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotifyPagerTest {
+
+    private final List<Integer> requestedOffsets = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    // A list of `total` integers; later pages answer faster so ordering is actually exercised.
+    // A page stops counting as in flight when its response arrives, before the pager sees it and
+    // starts the next request; doFinally would only run after that.
+    private SpotifyPager.PageFetcher<Integer> listOf(int total) {
+        return (offset, limit) -> Mono.defer(() -> {
+            requestedOffsets.add(offset);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            SpotifyResponse<Integer> page = new SpotifyResponse<>();
+            page.setItems(IntStream.range(offset, Math.min(offset + limit, total)).boxed().toList());
+            page.setOffset(offset);
+            page.setLimit(limit);
+            page.setTotal(total);
+            return Mono.just(page).delayElement(Duration.ofMillis(Math.max(1, 40 - offset / 10)))
+                    .doOnNext(response -> inFlight.decrementAndGet());
+        });
+    }
+
+    @Test
+    void fetchAll_ReadsEveryPageInOffsetOrder() {
+        SpotifyPager pager = new SpotifyPager(50, 4);
+
+        List<Integer> items = pager.fetchAll(listOf(230), 1_000).flatMap(Flux::collectList).block();
+
+        assertEquals(IntStream.range(0, 230).boxed().toList(), items);
+        assertEquals(0, requestedOffsets.get(0));
+        assertEquals(List.of(0, 50, 100, 150, 200), requestedOffsets.stream().sorted().toList());
+    }
+
+    @Test
+    void fetchAll_FetchesRemainingPagesConcurrentlyWithinTheBound() {
+        SpotifyPager pager = new SpotifyPager(10, 3);
+
+        pager.fetchAll(listOf(100), 1_000).flatMap(Flux::collectList).block();
+
+        assertEquals(3, maxInFlight.get());
+        assertEquals(10, requestedOffsets.size());
+    }
+
+    @Test
+    void fetchAll_StopsAtMaxItems() {
+        SpotifyPager pager = new SpotifyPager(50, 4);
+
+        List<Integer> items = pager.fetchAll(listOf(500), 120).flatMap(Flux::collectList).block();
+
+        assertEquals(120, items.size());
+        assertEquals(List.of(0, 50, 100), requestedOffsets.stream().sorted().toList());
+    }
+
+    @Test
+    void fetchAll_SinglePageNeedsOneRequest() {
+        SpotifyPager pager = new SpotifyPager(50, 4);
+
+        List<Integer> items = pager.fetchAll(listOf(7), 1_000).flatMap(Flux::collectList).block();
+
+        assertEquals(7, items.size());
+        assertEquals(List.of(0), requestedOffsets);
+    }
+
+    @Test
+    void fetchAll_FirstPageErrorFailsBeforeAnyItem() {
+        SpotifyPager pager = new SpotifyPager(50, 4);
+
+        Mono<Flux<Integer>> result = pager.fetchAll((offset, limit) -> Mono.error(new IllegalStateException("upstream down")), 100);
+
+        assertThrows(IllegalStateException.class, result::block);
+    }
+}
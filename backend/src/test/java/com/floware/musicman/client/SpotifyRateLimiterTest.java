@@ -0,0 +1,150 @@
+package com.floware.musicman.client;
+
+import com.floware.musicman.config.SpotifyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotifyRateLimiterTest {
+
+    private SpotifyRateLimiter rateLimiter;
+
+    private static final ClientRequest GET_ARTIST = ClientRequest
+            .create(HttpMethod.GET, URI.create("https://api.spotify.com/v1/artists/artist123"))
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        SpotifyProperties properties = new SpotifyProperties();
+        properties.getRateLimit().setRetryBackoff(Duration.ofMillis(1));
+        rateLimiter = new SpotifyRateLimiter(properties);
+    }
+
+    @Test
+    void filter_RetriesThrottledGetAndShrinksConcurrency() {
+        AtomicInteger calls = new AtomicInteger();
+        int initialLimit = rateLimiter.getConcurrencyLimit();
+
+        ClientResponse response = rateLimiter.filter(GET_ARTIST, request -> Mono.fromSupplier(() ->
+                calls.incrementAndGet() == 1
+                        ? ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "0").build()
+                        : ClientResponse.create(HttpStatus.OK).build())).block();
+
+        assertEquals(HttpStatus.OK, response.statusCode());
+        assertEquals(2, calls.get());
+        assertTrue(rateLimiter.getConcurrencyLimit() < initialLimit);
+        assertEquals(1, rateLimiter.getThrottledResponses());
+        assertEquals(0, rateLimiter.getInFlight());
+    }
+
+    @Test
+    void filter_FailsWithRateLimitExceptionWhenRetriesExhausted() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(SpotifyRateLimitException.class, () -> rateLimiter.filter(GET_ARTIST, request -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "0").build());
+        }).block());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void filter_FailsFastWhenBackoffExceedsMaxWait() {
+        rateLimiter.filter(GET_ARTIST, request -> Mono.just(ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "60").build())).onErrorComplete().block();
+        AtomicInteger calls = new AtomicInteger();
+
+        SpotifyRateLimitException e = assertThrows(SpotifyRateLimitException.class, () -> rateLimiter
+                .filter(GET_ARTIST, request -> {
+                    calls.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+                }).block());
+
+        assertEquals(0, calls.get());
+        assertTrue(e.getRetryAfter().toSeconds() > 50);
+    }
+
+    @Test
+    void filter_HandsAReleasedSlotToTheNextWaiter() {
+        SpotifyRateLimiter limiter = singleSlotLimiter(Duration.ofSeconds(5));
+        Sinks.One<ClientResponse> firstResponse = Sinks.one();
+        AtomicReference<ClientResponse> first = new AtomicReference<>();
+        AtomicReference<ClientResponse> second = new AtomicReference<>();
+        limiter.filter(GET_ARTIST, request -> firstResponse.asMono()).subscribe(first::set);
+        limiter.filter(GET_ARTIST, request -> Mono.just(ClientResponse.create(HttpStatus.OK).build()))
+                .subscribe(second::set);
+
+        assertEquals(1, limiter.getWaiting());
+        assertNull(second.get());
+
+        firstResponse.tryEmitValue(ClientResponse.create(HttpStatus.OK).build());
+
+        // Granted by the release itself, on the releasing thread, without waiting for a poll
+        assertNotNull(first.get());
+        assertNotNull(second.get());
+        assertEquals(0, limiter.getWaiting());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void filter_RefundsTheBucketTokenWhenTheSlotWaitTimesOut() {
+        SpotifyRateLimiter limiter = singleSlotLimiter(Duration.ofMillis(50));
+        limiter.filter(GET_ARTIST, request -> Mono.never()).subscribe();
+        double available = limiter.getAvailablePermits();
+
+        assertThrows(SpotifyRateLimitException.class, () -> limiter
+                .filter(GET_ARTIST, request -> Mono.just(ClientResponse.create(HttpStatus.OK).build())).block());
+
+        assertEquals(0, limiter.getWaiting());
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.getAvailablePermits() >= available);
+    }
+
+    @Test
+    void filter_CancelledWaiterLeavesTheQueue() {
+        SpotifyRateLimiter limiter = singleSlotLimiter(Duration.ofSeconds(5));
+        Sinks.One<ClientResponse> firstResponse = Sinks.one();
+        limiter.filter(GET_ARTIST, request -> firstResponse.asMono()).subscribe();
+        AtomicInteger calls = new AtomicInteger();
+
+        limiter.filter(GET_ARTIST, request -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        }).subscribe().dispose();
+        firstResponse.tryEmitValue(ClientResponse.create(HttpStatus.OK).build());
+
+        assertEquals(0, calls.get());
+        assertEquals(0, limiter.getWaiting());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void parseRetryAfter_SecondsAndDefault() {
+        assertEquals(Duration.ofSeconds(30), SpotifyRateLimiter.parseRetryAfter("30"));
+        assertEquals(Duration.ofSeconds(1), SpotifyRateLimiter.parseRetryAfter(null));
+        assertEquals(Duration.ofSeconds(1), SpotifyRateLimiter.parseRetryAfter("soon"));
+    }
+
+    private static SpotifyRateLimiter singleSlotLimiter(Duration maxWait) {
+        SpotifyProperties properties = new SpotifyProperties();
+        properties.getRateLimit().setInitialConcurrency(1);
+        properties.getRateLimit().setMinConcurrency(1);
+        properties.getRateLimit().setMaxConcurrency(1);
+        properties.getRateLimit().setMaxWait(maxWait);
+        return new SpotifyRateLimiter(properties);
+    }
+}
@@ -0,0 +1,45 @@
+package com.floware.musicman.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamMetricsFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UpstreamMetricsFilter filter = new UpstreamMetricsFilter(meterRegistry);
+
+    @Test
+    void filter_TimesByEndpointAndStatus() {
+        ClientRequest request = ClientRequest
+                .create(HttpMethod.GET, URI.create("https://api.spotify.com/v1/artists/artist123"))
+                .attributes(UpstreamMetricsFilter.endpoint("artist"))
+                .build();
+
+        filter.filter(request, r -> Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build())).block();
+
+        assertEquals(1, meterRegistry.get(UpstreamMetricsFilter.METRIC_NAME)
+                .tags("endpoint", "artist", "method", "GET", "status", "404").timer().count());
+    }
+
+    @Test
+    void filter_FallsBackToNormalizedPathAndTagsErrors() {
+        ClientRequest request = ClientRequest
+                .create(HttpMethod.GET, URI.create("https://api.spotify.com/v1/albums/4aawyAB9vmqN3uQ7FjRGTy"))
+                .build();
+
+        assertThrows(RuntimeException.class, () -> filter.filter(request,
+                r -> Mono.error(new RuntimeException("Connection reset"))).block());
+
+        assertEquals(1, meterRegistry.get(UpstreamMetricsFilter.METRIC_NAME)
+                .tags("endpoint", "/v1/albums/{id}", "status", "IO_ERROR").timer().count());
+    }
+}
@@ -0,0 +1,21 @@
+package com.floware.musicman.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotifyClientConfigTest {
+
+    @Test
+    void uriTagValue_CollapsesSpotifyIdsAndQuery() {
+        assertEquals("/v1/artists/{id}/top-tracks",
+                SpotifyClientConfig.uriTagValue("/v1/artists/0TnOYISbd1XYRBk9myaseg/top-tracks?market=US"));
+        assertEquals("/v1/albums/{id}", SpotifyClientConfig.uriTagValue("/v1/albums/4aawyAB9vmqN3uQ7FjRGTy"));
+    }
+
+    @Test
+    void uriTagValue_KeepsFixedPaths() {
+        assertEquals("/v1/search", SpotifyClientConfig.uriTagValue("/v1/search?q=daft+punk&type=artist"));
+        assertEquals("/api/token", SpotifyClientConfig.uriTagValue("/api/token"));
+    }
+}
@@ -1,22 +1,53 @@
 package com.floware.musicman.controller;
 
+import com.floware.musicman.cache.CatalogEntry;
+import com.floware.musicman.client.SpotifyRateLimitException;
+import com.floware.musicman.client.SpotifyUnavailableException;
 import com.floware.musicman.dto.ArtistDTO;
+import com.floware.musicman.dto.ArtistPageDTO;
+import com.floware.musicman.dto.ListeningProfileDTO;
+import com.floware.musicman.model.TimeRange;
 import com.floware.musicman.model.UserProfile;
 import com.floware.musicman.service.SpotifyService;
 import com.floware.musicman.service.UserSessionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.oauth2.core.user.OAuth2User;
-
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -84,14 +115,14 @@ class SpotifyControllerTest {
                 createArtistDTO("1", "Artist One", "Pop"),
                 createArtistDTO("2", "Artist Two", "Rock")
         );
-        when(spotifyService.getTopArtists(ACCESS_TOKEN)).thenReturn(expectedArtists);
+        when(spotifyService.getTopArtists(SPOTIFY_ID, TimeRange.MEDIUM_TERM, 10, ACCESS_TOKEN)).thenReturn(Mono.just(expectedArtists));
 
-        ResponseEntity<List<ArtistDTO>> response = spotifyController.getTopArtists(principal);
+        ResponseEntity<List<ArtistDTO>> response = spotifyController.getTopArtists("medium_term", 10, principal).block();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedArtists, response.getBody());
         verify(userSessionService).getAccessToken(SPOTIFY_ID);
-        verify(spotifyService).getTopArtists(ACCESS_TOKEN);
+        verify(spotifyService).getTopArtists(SPOTIFY_ID, TimeRange.MEDIUM_TERM, 10, ACCESS_TOKEN);
     }
 
     @Test
@@ -100,38 +131,152 @@ class SpotifyControllerTest {
         when(userSessionService.getAccessToken(SPOTIFY_ID))
                 .thenThrow(new IllegalStateException("Session expired"));
 
-        ResponseEntity<List<ArtistDTO>> response = spotifyController.getTopArtists(principal);
+        ResponseEntity<List<ArtistDTO>> response = spotifyController.getTopArtists("medium_term", 10, principal).block();
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertNull(response.getBody());
-        verify(spotifyService, never()).getTopArtists(anyString());
+        verify(spotifyService, never()).getTopArtists(anyString(), any(), anyInt(), anyString());
     }
 
     @Test
     void getTopArtists_GeneralException() {
         when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
         when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
-        when(spotifyService.getTopArtists(ACCESS_TOKEN))
+        when(spotifyService.getTopArtists(SPOTIFY_ID, TimeRange.MEDIUM_TERM, 10, ACCESS_TOKEN))
                 .thenThrow(new RuntimeException("Service error"));
 
-        ResponseEntity<List<ArtistDTO>> response = spotifyController.getTopArtists(principal);
+        ResponseEntity<List<ArtistDTO>> response = spotifyController.getTopArtists("medium_term", 10, principal).block();
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertNull(response.getBody());
     }
 
+    @Test
+    void getTopArtists_PassesTimeRange() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        List<ArtistDTO> expectedArtists = List.of(createArtistDTO("1", "Artist One", "Pop"));
+        when(spotifyService.getTopArtists(SPOTIFY_ID, TimeRange.SHORT_TERM, 5, ACCESS_TOKEN))
+                .thenReturn(Mono.just(expectedArtists));
+
+        ResponseEntity<List<ArtistDTO>> response = spotifyController.getTopArtists("short", 5, principal).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedArtists, response.getBody());
+    }
+
+    @Test
+    void getTopArtists_InvalidTimeRangeIsBadRequest() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> spotifyController.getTopArtists("yesterday", 10, principal));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        verifyNoInteractions(spotifyService, userSessionService);
+    }
+
+    @Test
+    void getListeningProfile_Success() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        ListeningProfileDTO profile = new ListeningProfileDTO();
+        profile.setInAllRanges(3);
+        when(spotifyService.getListeningProfile(SPOTIFY_ID, ACCESS_TOKEN)).thenReturn(Mono.just(profile));
+
+        ResponseEntity<ListeningProfileDTO> response = spotifyController.getListeningProfile(principal).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(profile, response.getBody());
+    }
+
+    @Test
+    void getListeningProfile_SpotifyUnavailableIsServiceUnavailable() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        when(spotifyService.getListeningProfile(SPOTIFY_ID, ACCESS_TOKEN))
+                .thenReturn(Mono.error(new SpotifyUnavailableException("top-artists", Duration.ofSeconds(20))));
+
+        ResponseEntity<ListeningProfileDTO> response = spotifyController.getListeningProfile(principal).block();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("20", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNull(response.getBody());
+    }
+
     @Test
     void getArtist_Success() {
         when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
         when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
         String expectedArtistJson = "{\"id\":\"" + ARTIST_ID + "\",\"name\":\"Test Artist\"}";
-        when(spotifyService.getArtistById(ARTIST_ID, ACCESS_TOKEN)).thenReturn(expectedArtistJson);
+        when(spotifyService.getArtistEntry(ARTIST_ID, ACCESS_TOKEN)).thenReturn(Mono.just(CatalogEntry.fetched(expectedArtistJson, null)));
 
-        ResponseEntity<String> response = spotifyController.getArtist(ARTIST_ID, principal);
+        ResponseEntity<String> response = spotifyController.getArtist(ARTIST_ID, "*", null, principal).block();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedArtistJson, response.getBody());
-        verify(spotifyService).getArtistById(ARTIST_ID, ACCESS_TOKEN);
+        verify(spotifyService).getArtistEntry(ARTIST_ID, ACCESS_TOKEN);
+    }
+
+    @Test
+    void getArtist_MarksStaleFallbackWithWarning() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        CatalogEntry stale = new CatalogEntry("{\"id\":\"" + ARTIST_ID + "\"}", "\"abc123\"", null,
+                Instant.now().minusSeconds(60));
+        CatalogEntry fresh = new CatalogEntry("{\"id\":\"" + ARTIST_ID + "\"}", "\"abc123\"", null,
+                Instant.now().plusSeconds(3600));
+        when(spotifyService.getArtistEntry(ARTIST_ID, ACCESS_TOKEN)).thenReturn(Mono.just(stale), Mono.just(fresh));
+
+        ResponseEntity<String> staleResponse = spotifyController.getArtist(ARTIST_ID, "*", null, principal).block();
+        ResponseEntity<String> freshResponse = spotifyController.getArtist(ARTIST_ID, "*", null, principal).block();
+
+        assertEquals(HttpStatus.OK, staleResponse.getStatusCode());
+        assertEquals("110 - \"Response is Stale\"", staleResponse.getHeaders().getFirst(HttpHeaders.WARNING));
+        assertTrue(staleResponse.getHeaders().getCacheControl().contains("max-age=0"));
+        assertNull(freshResponse.getHeaders().getFirst(HttpHeaders.WARNING));
+    }
+
+    @Test
+    void getArtist_CircuitOpenIsServiceUnavailable() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        when(spotifyService.getArtistEntry(ARTIST_ID, ACCESS_TOKEN))
+                .thenReturn(Mono.error(new SpotifyUnavailableException("artist", Duration.ofSeconds(12))));
+
+        ResponseEntity<String> response = spotifyController.getArtist(ARTIST_ID, "*", null, principal).block();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("12", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void getArtist_SetsEtagAndCacheControl() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        CatalogEntry entry = new CatalogEntry("{\"id\":\"" + ARTIST_ID + "\"}", "\"abc123\"", null,
+                Instant.now().plusSeconds(3600));
+        when(spotifyService.getArtistEntry(ARTIST_ID, ACCESS_TOKEN)).thenReturn(Mono.just(entry));
+
+        ResponseEntity<String> response = spotifyController.getArtist(ARTIST_ID, "*", null, principal).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"abc123\"", response.getHeaders().getETag());
+        assertTrue(response.getHeaders().getCacheControl().contains("private"));
+        assertTrue(response.getHeaders().getCacheControl().contains("max-age=3"));
+    }
+
+    @Test
+    void getArtist_MatchingIfNoneMatchReturnsNotModified() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        CatalogEntry entry = new CatalogEntry("{\"id\":\"" + ARTIST_ID + "\"}", "\"abc123\"", null,
+                Instant.now().plusSeconds(3600));
+        when(spotifyService.getArtistEntry(ARTIST_ID, ACCESS_TOKEN)).thenReturn(Mono.just(entry));
+
+        ResponseEntity<String> response = spotifyController.getArtist(ARTIST_ID, "*", "\"other\", W/\"abc123\"", principal).block();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"abc123\"", response.getHeaders().getETag());
     }
 
     @Test
@@ -140,7 +285,7 @@ class SpotifyControllerTest {
         when(userSessionService.getAccessToken(SPOTIFY_ID))
                 .thenThrow(new IllegalStateException("Session expired"));
 
-        ResponseEntity<String> response = spotifyController.getArtist(ARTIST_ID, principal);
+        ResponseEntity<String> response = spotifyController.getArtist(ARTIST_ID, "*", null, principal).block();
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertEquals("Session expired. Please reauthenticate.", response.getBody());
@@ -150,37 +295,124 @@ class SpotifyControllerTest {
     void getArtist_GeneralException() {
         when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
         when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
-        when(spotifyService.getArtistById(ARTIST_ID, ACCESS_TOKEN))
+        when(spotifyService.getArtistEntry(ARTIST_ID, ACCESS_TOKEN))
                 .thenThrow(new RuntimeException("Service error"));
 
-        ResponseEntity<String> response = spotifyController.getArtist(ARTIST_ID, principal);
+        ResponseEntity<String> response = spotifyController.getArtist(ARTIST_ID, "*", null, principal).block();
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertTrue(response.getBody().contains("Error processing request"));
     }
 
+    @Test
+    void getArtists_Success() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        String expectedJson = "{\"artists\":[{\"id\":\"a\"},null]}";
+        when(spotifyService.getArtistsByIds(List.of("a", "b"), ACCESS_TOKEN)).thenReturn(Mono.just(expectedJson));
+
+        ResponseEntity<String> response = spotifyController.getArtists(List.of("a", "b"), principal).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedJson, response.getBody());
+    }
+
+    @Test
+    void getArtists_TooManyIds() {
+        List<String> ids = java.util.stream.IntStream.range(0, 51).mapToObj(i -> "id" + i).toList();
+
+        ResponseEntity<String> response = spotifyController.getArtists(ids, principal).block();
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(spotifyService, userSessionService);
+    }
+
+    @Test
+    void getArtist_RateLimited() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        when(spotifyService.getArtistEntry(ARTIST_ID, ACCESS_TOKEN))
+                .thenReturn(Mono.error(new SpotifyRateLimitException("Spotify rate limit reached", Duration.ofSeconds(7))));
+
+        ResponseEntity<String> response = spotifyController.getArtist(ARTIST_ID, "*", null, principal).block();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("7", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void getArtistPage_Success() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        ArtistPageDTO page = new ArtistPageDTO("{\"id\":\"" + ARTIST_ID + "\"}", "{\"tracks\":[]}", null, List.of("albums"));
+        when(spotifyService.getArtistPage(ARTIST_ID, ACCESS_TOKEN)).thenReturn(Mono.just(page));
+
+        ResponseEntity<ArtistPageDTO> response = spotifyController.getArtistPage(ARTIST_ID, principal).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+        assertTrue(response.getBody().isPartial());
+        verify(userSessionService, times(1)).getAccessToken(SPOTIFY_ID);
+    }
+
+    @Test
+    void getArtistPage_AllSectionsMissing() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        ArtistPageDTO page = new ArtistPageDTO(null, null, null, List.of("artist", "topTracks", "albums"));
+        when(spotifyService.getArtistPage(ARTIST_ID, ACCESS_TOKEN)).thenReturn(Mono.just(page));
+
+        ResponseEntity<ArtistPageDTO> response = spotifyController.getArtistPage(ARTIST_ID, principal).block();
+
+        assertEquals(HttpStatus.BAD_GATEWAY, response.getStatusCode());
+    }
+
+    @Test
+    void getArtistPage_IllegalStateException() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID))
+                .thenThrow(new IllegalStateException("Session expired"));
+
+        ResponseEntity<ArtistPageDTO> response = spotifyController.getArtistPage(ARTIST_ID, principal).block();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(spotifyService, never()).getArtistPage(anyString(), anyString());
+    }
+
+    @Test
+    void getArtistPage_TokenRejectedBySpotifyIsUnauthorized() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        when(spotifyService.getArtistPage(ARTIST_ID, ACCESS_TOKEN)).thenReturn(Mono.error(
+                new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Spotify rejected the access token")));
+
+        ResponseEntity<ArtistPageDTO> response = spotifyController.getArtistPage(ARTIST_ID, principal).block();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
     @Test
     void getArtistTopTracks_Success() {
         when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
         when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
         String expectedTracksJson = "{\"tracks\":[{\"id\":\"track1\",\"name\":\"Track One\"}]}";
-        when(spotifyService.getArtistTopTracks(ARTIST_ID, ACCESS_TOKEN)).thenReturn(expectedTracksJson);
+        when(spotifyService.getArtistTopTracksEntry(ARTIST_ID, ACCESS_TOKEN)).thenReturn(Mono.just(CatalogEntry.fetched(expectedTracksJson, null)));
 
-        ResponseEntity<String> response = spotifyController.getArtistTopTracks(ARTIST_ID, principal);
+        ResponseEntity<String> response = spotifyController.getArtistTopTracks(ARTIST_ID, "*", null, principal).block();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedTracksJson, response.getBody());
-        verify(spotifyService).getArtistTopTracks(ARTIST_ID, ACCESS_TOKEN);
+        verify(spotifyService).getArtistTopTracksEntry(ARTIST_ID, ACCESS_TOKEN);
     }
 
     @Test
     void getArtistTopTracks_Exception() {
         when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
         when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
-        when(spotifyService.getArtistTopTracks(ARTIST_ID, ACCESS_TOKEN))
+        when(spotifyService.getArtistTopTracksEntry(ARTIST_ID, ACCESS_TOKEN))
                 .thenThrow(new RuntimeException("Service error"));
 
-        ResponseEntity<String> response = spotifyController.getArtistTopTracks(ARTIST_ID, principal);
+        ResponseEntity<String> response = spotifyController.getArtistTopTracks(ARTIST_ID, "*", null, principal).block();
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertTrue(response.getBody().contains("Error processing request"));
@@ -191,23 +423,23 @@ class SpotifyControllerTest {
         when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
         when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
         String expectedAlbumsJson = "{\"albums\":[{\"id\":\"album1\",\"name\":\"Album One\"}]}";
-        when(spotifyService.getArtistAlbums(ARTIST_ID, ACCESS_TOKEN)).thenReturn(expectedAlbumsJson);
+        when(spotifyService.getArtistAlbumsEntry(ARTIST_ID, ACCESS_TOKEN)).thenReturn(Mono.just(CatalogEntry.fetched(expectedAlbumsJson, null)));
 
-        ResponseEntity<String> response = spotifyController.getArtistAlbums(ARTIST_ID, principal);
+        ResponseEntity<String> response = spotifyController.getArtistAlbums(ARTIST_ID, "*", null, principal).block();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedAlbumsJson, response.getBody());
-        verify(spotifyService).getArtistAlbums(ARTIST_ID, ACCESS_TOKEN);
+        verify(spotifyService).getArtistAlbumsEntry(ARTIST_ID, ACCESS_TOKEN);
     }
 
     @Test
     void getArtistAlbums_Exception() {
         when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
         when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
-        when(spotifyService.getArtistAlbums(ARTIST_ID, ACCESS_TOKEN))
+        when(spotifyService.getArtistAlbumsEntry(ARTIST_ID, ACCESS_TOKEN))
                 .thenThrow(new RuntimeException("Service error"));
 
-        ResponseEntity<String> response = spotifyController.getArtistAlbums(ARTIST_ID, principal);
+        ResponseEntity<String> response = spotifyController.getArtistAlbums(ARTIST_ID, "*", null, principal).block();
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertTrue(response.getBody().contains("Error processing request"));
@@ -218,23 +450,127 @@ class SpotifyControllerTest {
         when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
         when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
         String expectedAlbumJson = "{\"id\":\"" + ALBUM_ID + "\",\"name\":\"Test Album\"}";
-        when(spotifyService.getAlbumById(ALBUM_ID, ACCESS_TOKEN)).thenReturn(expectedAlbumJson);
+        when(spotifyService.getAlbumEntry(ALBUM_ID, ACCESS_TOKEN)).thenReturn(Mono.just(CatalogEntry.fetched(expectedAlbumJson, null)));
 
-        ResponseEntity<String> response = spotifyController.getAlbum(ALBUM_ID, principal);
+        ResponseEntity<String> response = spotifyController.getAlbum(ALBUM_ID, "*", null, principal).block();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedAlbumJson, response.getBody());
-        verify(spotifyService).getAlbumById(ALBUM_ID, ACCESS_TOKEN);
+        verify(spotifyService).getAlbumEntry(ALBUM_ID, ACCESS_TOKEN);
+    }
+
+    @Test
+    void streamAlbum_CopiesUpstreamBytesAndContentType() throws Exception {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        MediaType contentType = MediaType.parseMediaType("application/json; charset=utf-8");
+        Flux<DataBuffer> upstreamBody = Flux.just("{\"id\":\"" + ALBUM_ID + "\",", "\"name\":\"Caf\u00e9\"}")
+                .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+        when(spotifyService.streamAlbum(ALBUM_ID, ACCESS_TOKEN))
+                .thenReturn(Mono.just(ResponseEntity.ok().contentType(contentType).body(upstreamBody)));
+
+        MockHttpServletResponse response = performAsync("/spotify/raw/albums/" + ALBUM_ID);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(contentType, MediaType.parseMediaType(response.getContentType()));
+        assertEquals("{\"id\":\"" + ALBUM_ID + "\",\"name\":\"Caf\u00e9\"}", response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void streamSearch_FiltersTypesLikeTheJsonSearch() throws Exception {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        when(spotifyService.streamSearch("daft", List.of("artist", "track"), ACCESS_TOKEN))
+                .thenReturn(Mono.just(ResponseEntity.ok().body(Flux.<DataBuffer>empty())));
+
+        MockHttpServletResponse response = performAsync("/spotify/raw/search?query=daft&type=Artist,playlist,track");
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        verify(spotifyService).streamSearch("daft", List.of("artist", "track"), ACCESS_TOKEN);
+    }
+
+    @Test
+    void streamAlbum_SessionExpired() throws Exception {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenThrow(new IllegalStateException("Session not found"));
+
+        MockHttpServletResponse response = performAsync("/spotify/raw/albums/" + ALBUM_ID);
+
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), response.getStatus());
+        assertEquals("Session expired. Please reauthenticate.", response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void streamAlbumTracks_EmitsOneItemPerLine() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        ObjectMapper mapper = new ObjectMapper();
+        Flux<JsonNode> tracks = Flux.just("{\"id\":\"t1\"}", "{\"id\":\"t2\"}").map(json -> {
+            try {
+                return mapper.readTree(json);
+            } catch (Exception e) {
+                throw new IllegalArgumentException(e);
+            }
+        });
+        when(spotifyService.streamAlbumTracks(ALBUM_ID, 100, ACCESS_TOKEN)).thenReturn(Mono.just(tracks));
+
+        ResponseEntity<Flux<JsonNode>> response = spotifyController.streamAlbumTracks(ALBUM_ID, 100, principal).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals(List.of("t1", "t2"), response.getBody().map(track -> track.get("id").asText()).collectList().block());
+    }
+
+    @Test
+    void streamAlbumTracks_FirstPageErrorMapsToStatus() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        when(spotifyService.streamAlbumTracks(ALBUM_ID, 100, ACCESS_TOKEN))
+                .thenReturn(Mono.error(new SpotifyRateLimitException("Spotify rate limit reached", Duration.ofSeconds(5))));
+
+        ResponseEntity<Flux<JsonNode>> response = spotifyController.streamAlbumTracks(ALBUM_ID, 100, principal).block();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void getAlbum_AppliesDefaultProjectionAndVariesEtag() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        String upstreamJson = "{\"id\":\"" + ALBUM_ID + "\",\"name\":\"Test Album\",\"available_markets\":[\"US\",\"DE\"]}";
+        CatalogEntry entry = CatalogEntry.fetched(upstreamJson, null);
+        when(spotifyService.getAlbumEntry(ALBUM_ID, ACCESS_TOKEN)).thenReturn(Mono.just(entry));
+
+        ResponseEntity<String> compact = spotifyController.getAlbum(ALBUM_ID, null, null, principal).block();
+        ResponseEntity<String> custom = spotifyController.getAlbum(ALBUM_ID, "name", null, principal).block();
+
+        assertEquals("{\"id\":\"" + ALBUM_ID + "\",\"name\":\"Test Album\"}", compact.getBody());
+        assertEquals("{\"name\":\"Test Album\"}", custom.getBody());
+        assertNotEquals(entry.etag(), compact.getHeaders().getETag());
+        assertNotEquals(compact.getHeaders().getETag(), custom.getHeaders().getETag());
+    }
+
+    @Test
+    void getAlbum_InvalidFieldsIsBadRequest() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+
+        ResponseEntity<String> response = spotifyController.getAlbum(ALBUM_ID, "tracks..name", null, principal).block();
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(spotifyService, never()).getAlbumEntry(anyString(), anyString());
     }
 
     @Test
     void getAlbum_Exception() {
         when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
         when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
-        when(spotifyService.getAlbumById(ALBUM_ID, ACCESS_TOKEN))
+        when(spotifyService.getAlbumEntry(ALBUM_ID, ACCESS_TOKEN))
                 .thenThrow(new RuntimeException("Service error"));
 
-        ResponseEntity<String> response = spotifyController.getAlbum(ALBUM_ID, principal);
+        ResponseEntity<String> response = spotifyController.getAlbum(ALBUM_ID, "*", null, principal).block();
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertTrue(response.getBody().contains("Error processing request"));
@@ -246,14 +582,14 @@ class SpotifyControllerTest {
         when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
         String query = "test query";
         String expectedSearchResult = "{\"artists\":{},\"albums\":{},\"tracks\":{}}";
-        when(spotifyService.searchSpotify(eq(query), eq("album,artist,track"), eq(ACCESS_TOKEN)))
-                .thenReturn(expectedSearchResult);
+        when(spotifyService.searchSpotify(eq(query), eq(List.of("album", "artist", "track")), eq(ACCESS_TOKEN)))
+                .thenReturn(Mono.just(expectedSearchResult));
 
-        ResponseEntity<String> response = spotifyController.search(query, "album,artist,track", principal);
+        ResponseEntity<String> response = spotifyController.search(query, "album,artist,track", "*", principal).block();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedSearchResult, response.getBody());
-        verify(spotifyService).searchSpotify(query, "album,artist,track", ACCESS_TOKEN);
+        verify(spotifyService).searchSpotify(query, List.of("album", "artist", "track"), ACCESS_TOKEN);
     }
 
     @Test
@@ -263,14 +599,14 @@ class SpotifyControllerTest {
         String query = "test query";
         String type = "artist,track";
         String expectedSearchResult = "{\"artists\":{},\"tracks\":{}}";
-        when(spotifyService.searchSpotify(eq(query), eq(type), eq(ACCESS_TOKEN)))
-                .thenReturn(expectedSearchResult);
+        when(spotifyService.searchSpotify(eq(query), eq(List.of("artist", "track")), eq(ACCESS_TOKEN)))
+                .thenReturn(Mono.just(expectedSearchResult));
 
-        ResponseEntity<String> response = spotifyController.search(query, type, principal);
+        ResponseEntity<String> response = spotifyController.search(query, type, "*", principal).block();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedSearchResult, response.getBody());
-        verify(spotifyService).searchSpotify(query, type, ACCESS_TOKEN);
+        verify(spotifyService).searchSpotify(query, List.of("artist", "track"), ACCESS_TOKEN);
     }
 
     @Test
@@ -280,15 +616,114 @@ class SpotifyControllerTest {
         String query = "test query";
         String invalidType = "invalid,unknown";
         String expectedSearchResult = "{\"artists\":{},\"albums\":{},\"tracks\":{}}";
-        when(spotifyService.searchSpotify(eq(query), eq(invalidType), eq(ACCESS_TOKEN)))
-                .thenReturn(expectedSearchResult);
+        when(spotifyService.searchSpotify(eq(query), eq(List.of("album", "artist", "track")), eq(ACCESS_TOKEN)))
+                .thenReturn(Mono.just(expectedSearchResult));
 
-        ResponseEntity<String> response = spotifyController.search(query, invalidType, principal);
+        ResponseEntity<String> response = spotifyController.search(query, invalidType, "*", principal).block();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedSearchResult, response.getBody());
+        verify(spotifyService).searchSpotify(query, List.of("album", "artist", "track"), ACCESS_TOKEN);
+    }
+
+    @Test
+    void searchByType_EmitsOneEventPerTypeThenDone() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        when(spotifyService.searchByType("daft punk", List.of("artist", "track"), 20, 40, ACCESS_TOKEN))
+                .thenReturn(Flux.just(
+                        new SpotifyService.SearchSection("track", "{\"tracks\":{\"total\":2}}", null),
+                        new SpotifyService.SearchSection("artist", "{\n  \"artists\": {}\n}", null)));
+
+        ResponseEntity<Flux<ServerSentEvent<String>>> response =
+                spotifyController.searchByType("daft punk", "artist,track", 20, 40, "*", principal).block();
+        List<ServerSentEvent<String>> events = response.getBody().collectList().block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.TEXT_EVENT_STREAM, response.getHeaders().getContentType());
+        assertEquals(List.of("track", "artist", "done"), events.stream().map(ServerSentEvent::event).toList());
+        assertEquals("{\"tracks\":{\"total\":2}}", events.get(0).data());
+        assertEquals("{\n  \"artists\": {}\n}", events.get(1).data());
+        assertEquals("{}", events.get(2).data());
+    }
+
+    @Test
+    void searchByType_FailedTypeIsReportedAndOthersStillSent() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        when(spotifyService.searchByType("daft punk", List.of("album", "artist", "track"), 50, 0, ACCESS_TOKEN))
+                .thenReturn(Flux.just(
+                        new SpotifyService.SearchSection("artist", "{\"artists\":{}}", null),
+                        new SpotifyService.SearchSection("album", null,
+                                new SpotifyUnavailableException("search", Duration.ofSeconds(30)))));
+
+        List<ServerSentEvent<String>> events = spotifyController
+                .searchByType("daft punk", "album,artist,track", 500, -5, "*", principal).block()
+                .getBody().collectList().block();
+
+        assertEquals(List.of("artist", "failed", "done"), events.stream().map(ServerSentEvent::event).toList());
+        assertEquals("{\"artists\":{}}", events.get(0).data());
+        assertTrue(events.get(1).data().startsWith("{\"type\":\"album\",\"status\":503,"));
     }
 
+    @Test
+    void searchByType_CancellingTheStreamCancelsPendingTypes() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenReturn(ACCESS_TOKEN);
+        AtomicBoolean subscribed = new AtomicBoolean();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        // merge subscribes in order, so the pending type is listed first to be running before the artist section arrives
+        when(spotifyService.searchByType(eq("daft punk"), anyList(), anyInt(), anyInt(), eq(ACCESS_TOKEN)))
+                .thenReturn(Flux.merge(
+                        Mono.<SpotifyService.SearchSection>never()
+                                .doOnSubscribe(s -> subscribed.set(true))
+                                .doOnCancel(() -> cancelled.set(true)),
+                        Mono.just(new SpotifyService.SearchSection("artist", "{}", null))));
+
+        Flux<ServerSentEvent<String>> events =
+                spotifyController.searchByType("daft punk", "artist,track", 10, 0, "*", principal).block().getBody();
+
+        // What MVC does when the client goes away after the first event
+        assertEquals("artist", events.take(1).blockLast().event());
+        assertTrue(subscribed.get());
+        assertTrue(cancelled.get());
+    }
+
+    @Test
+    void searchByType_ExpiredSessionIsUnauthorized() {
+        when(principal.getAttribute("id")).thenReturn(SPOTIFY_ID);
+        when(userSessionService.getAccessToken(SPOTIFY_ID)).thenThrow(new IllegalStateException("Session expired"));
+
+        ResponseEntity<Flux<ServerSentEvent<String>>> response =
+                spotifyController.searchByType("daft punk", "artist", 10, 0, null, principal).block();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(spotifyService, never()).searchByType(any(), any(), anyInt(), anyInt(), any());
+    }
+
+    // Runs the request through MVC's async return value handling, which writes the emitter-backed bodies
+    private MockHttpServletResponse performAsync(String path) throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(spotifyController)
+                .setCustomArgumentResolvers(new HandlerMethodArgumentResolver() {
+                    @Override
+                    public boolean supportsParameter(MethodParameter parameter) {
+                        return parameter.getParameterType() == OAuth2User.class;
+                    }
+
+                    @Override
+                    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+                        return principal;
+                    }
+                })
+                .build();
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get(path))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        MvcResult dispatched = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(started)).andReturn();
+        dispatched.getAsyncResult(1000); // The emitter completing
+        return dispatched.getResponse();
+    }
 
     // Create ArtistDTO for testing
     private ArtistDTO createArtistDTO(String id, String name, String genre) {
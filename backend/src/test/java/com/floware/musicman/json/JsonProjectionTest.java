@@ -0,0 +1,91 @@
+package com.floware.musicman.json;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonProjectionTest {
+
+    private static final String ALBUM = "{\"id\":\"al1\",\"name\":\"Discovery\",\"available_markets\":[\"US\",\"DE\"],"
+            + "\"images\":[{\"url\":\"big\",\"height\":640},{\"url\":\"small\",\"height\":64}],"
+            + "\"artists\":[{\"id\":\"a1\",\"name\":\"Daft Punk\",\"uri\":\"spotify:artist:a1\"}],"
+            + "\"tracks\":{\"items\":[{\"id\":\"t1\",\"name\":\"One More Time\",\"available_markets\":[\"US\"]},"
+            + "{\"id\":\"t2\",\"name\":\"Aerodynamic\"}],\"total\":2}}";
+
+    @Test
+    void apply_KeepsOnlySelectedPaths() {
+        JsonProjection projection = JsonProjection.parse("id,artists.name,tracks.items.name,tracks.total");
+
+        assertEquals("{\"id\":\"al1\",\"artists\":[{\"name\":\"Daft Punk\"}],"
+                        + "\"tracks\":{\"items\":[{\"name\":\"One More Time\"},{\"name\":\"Aerodynamic\"}],\"total\":2}}",
+                projection.apply(ALBUM));
+    }
+
+    @Test
+    void apply_IndexSelectsArrayElements() {
+        assertEquals("{\"images\":[{\"url\":\"big\",\"height\":640}]}", JsonProjection.parse("images[0]").apply(ALBUM));
+        assertEquals("{\"images\":[{\"url\":\"small\"}]}", JsonProjection.parse("images[1].url").apply(ALBUM));
+    }
+
+    @Test
+    void apply_KeepsSelectedEmptyArrays() {
+        assertEquals("{\"id\":\"x\",\"name\":\"n\",\"images\":[]}",
+                JsonProjection.parse("id,name,images[0]").apply("{\"id\":\"x\",\"name\":\"n\",\"images\":[]}"));
+        assertEquals("{\"tracks\":{\"items\":[]}}",
+                JsonProjection.parse("tracks.items.name").apply("{\"tracks\":{\"items\":[],\"total\":0}}"));
+        assertTrue(ResponseProjections.ARTIST.apply("{\"id\":\"x\",\"images\":[],\"genres\":[]}")
+                .contains("\"images\":[]"));
+    }
+
+    @Test
+    void apply_PathEndingOnObjectKeepsItWhole() {
+        assertEquals("{\"tracks\":{\"items\":[{\"id\":\"t1\",\"name\":\"One More Time\",\"available_markets\":[\"US\"]},"
+                + "{\"id\":\"t2\",\"name\":\"Aerodynamic\"}],\"total\":2}}", JsonProjection.parse("tracks").apply(ALBUM));
+    }
+
+    @Test
+    void apply_WildcardMatchesAnyField() {
+        assertEquals("{\"artists\":[{\"name\":\"Daft Punk\"}]}", JsonProjection.parse("*.name").apply(ALBUM));
+    }
+
+    @Test
+    void apply_NoMatchGivesEmptyObject() {
+        assertEquals("{}", JsonProjection.parse("unknown").apply(ALBUM));
+    }
+
+    @Test
+    void parse_StarOrBlankKeepsBodyUntouched() {
+        assertSame(JsonProjection.ALL, JsonProjection.parse("*"));
+        assertSame(JsonProjection.ALL, JsonProjection.parse(" "));
+        assertSame(ALBUM, JsonProjection.ALL.apply(ALBUM));
+    }
+
+    @Test
+    void parse_RejectsMalformedPaths() {
+        assertThrows(IllegalArgumentException.class, () -> JsonProjection.parse("a..b"));
+        assertThrows(IllegalArgumentException.class, () -> JsonProjection.parse("images[x]"));
+        assertThrows(IllegalArgumentException.class, () -> JsonProjection.parse("name;drop"));
+    }
+
+    @Test
+    void etagFor_VariesWithProjectionButNotPathOrder() {
+        JsonProjection first = JsonProjection.parse("id,name");
+        JsonProjection reordered = JsonProjection.parse("name, id");
+        JsonProjection other = JsonProjection.parse("id");
+
+        assertEquals(first.etagFor("\"abc\""), reordered.etagFor("\"abc\""));
+        assertNotEquals(first.etagFor("\"abc\""), other.etagFor("\"abc\""));
+        assertNotEquals("\"abc\"", first.etagFor("\"abc\""));
+        assertEquals("\"abc\"", JsonProjection.ALL.etagFor("\"abc\""));
+    }
+
+    @Test
+    void defaultAlbumProjection_DropsMarketsAndExtraImages() {
+        String projected = ResponseProjections.ALBUM.apply(ALBUM);
+
+        assertFalse(projected.contains("available_markets"));
+        assertFalse(projected.contains("small"));
+        assertTrue(projected.contains("\"name\":\"One More Time\""));
+        assertTrue(projected.contains("\"artists\":[{\"id\":\"a1\",\"name\":\"Daft Punk\"}]"));
+    }
+}
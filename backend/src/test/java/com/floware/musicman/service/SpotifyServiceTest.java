@@ -0,0 +1,123 @@
+package com.floware.musicman.service;
+
+import com.floware.musicman.analytics.ListeningProfileEngine;
+import com.floware.musicman.cache.ArtistPrefetcher;
+import com.floware.musicman.cache.CatalogCache;
+import com.floware.musicman.cache.SearchCache;
+import com.floware.musicman.cache.TopArtistsCache;
+import com.floware.musicman.cache.TypeaheadIndex;
+import com.floware.musicman.client.SpotifyRateLimiter;
+import com.floware.musicman.config.CatalogCacheProperties;
+import com.floware.musicman.config.ListeningProfileProperties;
+import com.floware.musicman.config.PrefetchProperties;
+import com.floware.musicman.config.SearchCacheProperties;
+import com.floware.musicman.config.SpotifyProperties;
+import com.floware.musicman.config.TopArtistsCacheProperties;
+import com.floware.musicman.dto.ArtistPageDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotifyServiceTest {
+
+    private static final String ARTIST_ID = "artist1";
+    private static final String ACCESS_TOKEN = "token";
+
+    // Upstream answers by path; paths without an entry answer 200 with a small body
+    private final Map<String, Mono<ClientResponse>> responses = new HashMap<>();
+    private ArtistPrefetcher artistPrefetcher;
+    private SpotifyService spotifyService;
+
+    @BeforeEach
+    void setUp() {
+        SpotifyProperties spotifyProperties = new SpotifyProperties();
+        spotifyProperties.setArtistPageLegTimeout(Duration.ofMillis(200));
+        spotifyProperties.getBatch().setEnabled(false);
+        CatalogCache catalogCache = new CatalogCache(new CatalogCacheProperties());
+        SearchCacheProperties searchCacheProperties = new SearchCacheProperties();
+        TypeaheadIndex typeaheadIndex = new TypeaheadIndex(searchCacheProperties);
+        artistPrefetcher = new ArtistPrefetcher(new PrefetchProperties(), catalogCache,
+                new SpotifyRateLimiter(spotifyProperties));
+        WebClient webClient = WebClient.builder()
+                .baseUrl(spotifyProperties.getApiBaseUrl())
+                .exchangeFunction(request -> responses.getOrDefault(request.url().getPath(),
+                        Mono.just(json(HttpStatus.OK, "{\"path\":\"" + request.url().getPath() + "\"}"))))
+                .build();
+        spotifyService = new SpotifyService(null, catalogCache, new SearchCache(searchCacheProperties, typeaheadIndex),
+                typeaheadIndex, new TopArtistsCache(new TopArtistsCacheProperties()), artistPrefetcher,
+                new ListeningProfileEngine(new ListeningProfileProperties()), spotifyProperties, webClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        artistPrefetcher.shutdown();
+    }
+
+    @Test
+    void getArtistPage_FailedSectionIsReportedMissing() {
+        responses.put("/v1/artists/" + ARTIST_ID + "/albums", Mono.just(json(HttpStatus.INTERNAL_SERVER_ERROR, "{}")));
+
+        ArtistPageDTO page = spotifyService.getArtistPage(ARTIST_ID, ACCESS_TOKEN).block();
+
+        assertEquals(List.of("albums"), page.getMissing());
+        assertEquals("{\"path\":\"/v1/artists/" + ARTIST_ID + "\"}", page.getArtist());
+        assertNotNull(page.getTopTracks());
+        assertNull(page.getAlbums());
+    }
+
+    @Test
+    void getArtistPage_SlowSectionIsReportedMissing() {
+        responses.put("/v1/artists/" + ARTIST_ID + "/top-tracks", Mono.never());
+
+        ArtistPageDTO page = spotifyService.getArtistPage(ARTIST_ID, ACCESS_TOKEN).block(Duration.ofSeconds(5));
+
+        assertEquals(List.of("topTracks"), page.getMissing());
+        assertNotNull(page.getArtist());
+        assertNotNull(page.getAlbums());
+    }
+
+    @Test
+    void getArtistPage_AllSectionsFailedIsAnEmptyPage() {
+        for (String path : List.of("", "/top-tracks", "/albums")) {
+            responses.put("/v1/artists/" + ARTIST_ID + path, Mono.just(json(HttpStatus.BAD_GATEWAY, "{}")));
+        }
+
+        ArtistPageDTO page = spotifyService.getArtistPage(ARTIST_ID, ACCESS_TOKEN).block();
+
+        assertEquals(List.of("artist", "topTracks", "albums"), page.getMissing());
+        assertTrue(page.isPartial());
+    }
+
+    @Test
+    void getArtistPage_TokenRejectedForEverySectionIsUnauthorized() {
+        for (String path : List.of("", "/top-tracks", "/albums")) {
+            responses.put("/v1/artists/" + ARTIST_ID + path, Mono.just(json(HttpStatus.UNAUTHORIZED, "{}")));
+        }
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> spotifyService.getArtistPage(ARTIST_ID, ACCESS_TOKEN).block());
+
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatusCode());
+    }
+
+    private static ClientResponse json(HttpStatus status, String body) {
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+}
@@ -0,0 +1,342 @@
+package com.floware.musicman.service;
+
+import com.floware.musicman.config.SessionProperties;
+import com.floware.musicman.model.UserSession;
+import com.floware.musicman.session.InMemorySessionStore;
+import com.floware.musicman.session.SessionEndedEvent;
+import com.floware.musicman.session.SessionStore;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSessionServiceTest {
+
+    @Mock
+    private SpotifyTokenClient tokenClient;
+
+    private UserSessionService userSessionService;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<Object> publishedEvents = new CopyOnWriteArrayList<>();
+    // Every service a test creates, so each one's dispatcher and refresh pool are stopped afterwards
+    private final List<UserSessionService> services = new ArrayList<>();
+
+    private static final String SPOTIFY_ID = "spotify123";
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userSessionService = newService(new SessionProperties(), new InMemorySessionStore(), meterRegistry,
+                publishedEvents::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(UserSessionService::stopExpiryDispatcher);
+    }
+
+    @Test
+    void getAccessToken_ValidToken() {
+        userSessionService.storeUserSession(SPOTIFY_ID, "access", "refresh", Instant.now().plusSeconds(3600));
+
+        assertEquals("access", userSessionService.getAccessToken(SPOTIFY_ID));
+        verify(tokenClient, never()).refresh(anyString());
+    }
+
+    @Test
+    void getAccessToken_NoSession() {
+        assertThrows(IllegalStateException.class, () -> userSessionService.getAccessToken(SPOTIFY_ID));
+    }
+
+    @Test
+    void getAccessToken_RefreshFailureClearsSession() {
+        userSessionService.storeUserSession(SPOTIFY_ID, "access", "refresh", Instant.now().plusSeconds(30));
+        when(tokenClient.refresh("refresh")).thenThrow(new IllegalStateException("Failed to refresh token"));
+
+        assertThrows(IllegalStateException.class, () -> userSessionService.getAccessToken(SPOTIFY_ID));
+        assertFalse(userSessionService.isValidSession(SPOTIFY_ID));
+        assertEquals(1, meterRegistry.get("sessions.token.refresh")
+                .tags("trigger", "request", "outcome", "failure").timer().count());
+        assertEquals(0.0, meterRegistry.get("sessions.active").gauge().value());
+    }
+
+    @Test
+    void cleanUpExpiredSessions_RefreshesTokensAheadOfExpiry() {
+        userSessionService.storeUserSession(SPOTIFY_ID, "access", "refresh", Instant.now().plusSeconds(120));
+        when(tokenClient.refresh("refresh"))
+                .thenReturn(new UserSession("fresh", "refresh", Instant.now().plusSeconds(3600)));
+
+        userSessionService.cleanUpExpiredSessions();
+
+        verify(tokenClient, timeout(1000)).refresh("refresh");
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!"fresh".equals(userSessionService.getAccessToken(SPOTIFY_ID)) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals("fresh", userSessionService.getAccessToken(SPOTIFY_ID));
+    }
+
+    @Test
+    void cleanUpExpiredSessions_LeavesIdleSessionsToTheRequestPath() {
+        SessionProperties properties = new SessionProperties();
+        properties.setRefreshIdleWindow(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        userSessionService = newService(properties, new InMemorySessionStore(), meterRegistry,
+                publishedEvents::add);
+        userSessionService.storeUserSession(SPOTIFY_ID, "access", "refresh", Instant.now().plusSeconds(120));
+
+        userSessionService.cleanUpExpiredSessions();
+
+        verify(tokenClient, never()).refresh(anyString());
+        assertTrue(userSessionService.isValidSession(SPOTIFY_ID));
+        assertEquals(0.0, meterRegistry.get("sessions.expiry.queue").gauge().value());
+    }
+
+    @Test
+    void cleanUpExpiredSessions_RetriesRefreshesTheFullQueueRejected() throws Exception {
+        SessionProperties properties = new SessionProperties();
+        properties.setRefreshThreads(1);
+        properties.setRefreshQueueCapacity(1);
+        properties.setRefreshRetryDelay(Duration.ofMillis(50));
+        userSessionService = newService(properties, new InMemorySessionStore(), meterRegistry,
+                publishedEvents::add);
+        CountDownLatch release = new CountDownLatch(1);
+        when(tokenClient.refresh(anyString())).thenAnswer(invocation -> {
+            release.await();
+            return new UserSession("fresh", invocation.getArgument(0), Instant.now().plusSeconds(3600));
+        });
+        for (int u = 0; u < 3; u++) {
+            userSessionService.storeUserSession("user" + u, "access", "refresh" + u, Instant.now().plusSeconds(120));
+        }
+
+        userSessionService.cleanUpExpiredSessions(); // One refresh running, one queued, one rejected
+        release.countDown();
+        Thread.sleep(100);
+        userSessionService.cleanUpExpiredSessions();
+
+        verify(tokenClient, timeout(1000)).refresh("refresh0");
+        verify(tokenClient, timeout(1000)).refresh("refresh1");
+        verify(tokenClient, timeout(1000)).refresh("refresh2");
+    }
+
+    @Test
+    void cleanUpExpiredSessions_EvictsUnrefreshableSessions() {
+        userSessionService.storeUserSession(SPOTIFY_ID, "access", null, Instant.now().minusSeconds(1));
+        userSessionService.storeUserSession("other", "access", null, Instant.now().plusSeconds(3600));
+
+        userSessionService.cleanUpExpiredSessions();
+
+        assertFalse(userSessionService.isValidSession(SPOTIFY_ID));
+        assertTrue(userSessionService.isValidSession("other"));
+        assertEquals(List.of(new SessionEndedEvent(SPOTIFY_ID)), publishedEvents);
+    }
+
+    @Test
+    void cleanUpExpiredSessions_FailingSessionDoesNotStopTheOthers() {
+        userSessionService = newService(new SessionProperties(), new InMemorySessionStore(),
+                meterRegistry, event -> {
+                    if (event.equals(new SessionEndedEvent(SPOTIFY_ID))) {
+                        throw new IllegalStateException("Listener failed");
+                    }
+                    publishedEvents.add(event);
+                });
+        userSessionService.storeUserSession(SPOTIFY_ID, "access", null, Instant.now().minusSeconds(2));
+        userSessionService.storeUserSession("other", "access", null, Instant.now().minusSeconds(1));
+
+        userSessionService.cleanUpExpiredSessions();
+
+        assertFalse(userSessionService.isValidSession("other"));
+        assertEquals(List.of(new SessionEndedEvent("other")), publishedEvents);
+    }
+
+    @Test
+    void startExpiryDispatcher_SchedulesRestoredSessionsFromTheirExpiryOnly() {
+        Instant expired = Instant.now().minusSeconds(1);
+        InMemorySessionStore store = new InMemorySessionStore() {
+            @Override
+            public void forEach(BiConsumer<String, UserSession> action) {
+                throw new AssertionError("Startup must not load whole sessions");
+            }
+
+            @Override
+            public void forEachExpiry(ExpiryVisitor visitor) {
+                visitor.visit(SPOTIFY_ID, expired, false);
+                visitor.visit("other", expired, true);
+            }
+        };
+        store.put(SPOTIFY_ID, new UserSession("access", null, expired));
+        userSessionService = newService(new SessionProperties(), store, meterRegistry, publishedEvents::add);
+
+        userSessionService.startExpiryDispatcher();
+
+        // Only the unrefreshable session is queued; refreshable ones wait for their next request
+        verify(tokenClient, never()).refresh(anyString());
+        long deadline = System.currentTimeMillis() + 1000;
+        while (store.get(SPOTIFY_ID) != null && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertNull(store.get(SPOTIFY_ID));
+        assertEquals(List.of(new SessionEndedEvent(SPOTIFY_ID)), publishedEvents);
+    }
+
+    @Test
+    void expiryDispatcher_SurvivesStoreErrors() {
+        SessionProperties properties = new SessionProperties();
+        properties.setRefreshRetryDelay(Duration.ofMillis(50));
+        AtomicInteger failingReads = new AtomicInteger(2);
+        InMemorySessionStore store = new InMemorySessionStore() {
+            @Override
+            public UserSession get(String spotifyId) {
+                if (failingReads.getAndDecrement() > 0) {
+                    throw new RedisCommandTimeoutException("Command timed out after 2 second(s)");
+                }
+                return super.get(spotifyId);
+            }
+        };
+        userSessionService = newService(properties, store, meterRegistry, publishedEvents::add);
+        when(tokenClient.refresh("refresh"))
+                .thenReturn(new UserSession("fresh", "refresh", Instant.now().plusSeconds(3600)));
+        userSessionService.startExpiryDispatcher();
+
+        userSessionService.storeUserSession(SPOTIFY_ID, "access", "refresh", Instant.now().plusSeconds(120));
+
+        // Both failed reads are retried on the same dispatcher thread, then the refresh goes through
+        verify(tokenClient, timeout(2000)).refresh("refresh");
+        assertTrue(failingReads.get() < 0);
+    }
+
+    @Test
+    void getAccessToken_WaitsForAnotherReplicasRefresh() {
+        LockedElsewhereStore store = new LockedElsewhereStore();
+        userSessionService = newService(new SessionProperties(), store, meterRegistry, publishedEvents::add);
+        userSessionService.storeUserSession(SPOTIFY_ID, "access", "refresh", Instant.now().plusSeconds(30));
+        // The lock holder writes its refreshed session shortly after, and the store announces it
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() ->
+                store.writeFromOtherReplica(SPOTIFY_ID, new UserSession("fresh", "refresh", Instant.now().plusSeconds(3600))));
+
+        assertEquals("fresh", userSessionService.getAccessToken(SPOTIFY_ID));
+        verify(tokenClient, never()).refresh(anyString());
+    }
+
+    @Test
+    void getAccessToken_NeverRefreshesWithoutTheLock() {
+        SessionProperties properties = new SessionProperties();
+        properties.setRefreshLockWait(Duration.ofMillis(100));
+        userSessionService = newService(properties, new LockedElsewhereStore(), meterRegistry, publishedEvents::add);
+        userSessionService.storeUserSession(SPOTIFY_ID, "still-valid", "refresh", Instant.now().plusSeconds(30));
+        userSessionService.storeUserSession("expired", "access", "refresh", Instant.now().minusSeconds(1));
+
+        // No write arrives: a still valid token is kept, an expired one fails without ending the session
+        assertEquals("still-valid", userSessionService.getAccessToken(SPOTIFY_ID));
+        assertThrows(IllegalStateException.class, () -> userSessionService.getAccessToken("expired"));
+        assertTrue(userSessionService.isValidSession("expired"));
+        verify(tokenClient, never()).refresh(anyString());
+    }
+
+    @Test
+    void clearUserSession_PublishesSessionEnded() {
+        userSessionService.storeUserSession(SPOTIFY_ID, "access", "refresh", Instant.now().plusSeconds(3600));
+
+        userSessionService.clearUserSession(SPOTIFY_ID);
+
+        assertFalse(userSessionService.isValidSession(SPOTIFY_ID));
+        assertEquals(List.of(new SessionEndedEvent(SPOTIFY_ID)), publishedEvents);
+    }
+
+    // Timing under load is measured by UserSessionServiceBenchmark; this only checks the single flight
+    @Test
+    void getAccessToken_RefreshesOncePerUserUnderContention() throws Exception {
+        int users = 3;
+        int callersPerUser = 4;
+        Map<String, AtomicInteger> refreshCalls = new ConcurrentHashMap<>();
+        for (int u = 0; u < users; u++) {
+            userSessionService.storeUserSession("user" + u, "stale" + u, "refresh" + u, Instant.now().plusSeconds(30));
+        }
+        when(tokenClient.refresh(anyString())).thenAnswer(invocation -> {
+            String refreshToken = invocation.getArgument(0);
+            refreshCalls.computeIfAbsent(refreshToken, k -> new AtomicInteger()).incrementAndGet();
+            Thread.sleep(50); // Long enough for every caller to arrive while the refresh is in flight
+            return new UserSession("fresh-" + refreshToken, refreshToken, Instant.now().plusSeconds(3600));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(users * callersPerUser);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            String spotifyId = "user" + u;
+            for (int c = 0; c < callersPerUser; c++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return userSessionService.getAccessToken(spotifyId);
+                }));
+            }
+        }
+
+        start.countDown();
+        try {
+            for (Future<String> result : results) {
+                assertTrue(result.get(5, TimeUnit.SECONDS).startsWith("fresh-"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(users, refreshCalls.size());
+        refreshCalls.forEach((refreshToken, calls) ->
+                assertEquals(1, calls.get(), "Refresh calls for " + refreshToken));
+    }
+
+    private UserSessionService newService(SessionProperties properties, SessionStore store, MeterRegistry registry,
+                                          ApplicationEventPublisher eventPublisher) {
+        UserSessionService service = new UserSessionService(tokenClient, properties, store, registry, eventPublisher);
+        services.add(service);
+        return service;
+    }
+
+    // Another replica holds every refresh lock; its writes are announced like the Redis store's invalidations
+    private static class LockedElsewhereStore extends InMemorySessionStore {
+
+        private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean tryLockRefresh(String spotifyId) {
+            return false;
+        }
+
+        @Override
+        public void unlockRefresh(String spotifyId) {
+            throw new AssertionError("Released a lock it never took");
+        }
+
+        @Override
+        public void addChangeListener(Consumer<String> listener) {
+            listeners.add(listener);
+        }
+
+        void writeFromOtherReplica(String spotifyId, UserSession session) {
+            put(spotifyId, session);
+            listeners.forEach(listener -> listener.accept(spotifyId));
+        }
+    }
+}
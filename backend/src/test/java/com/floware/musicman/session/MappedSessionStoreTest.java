@@ -0,0 +1,195 @@
+package com.floware.musicman.session;
+
+import com.floware.musicman.config.SessionProperties;
+import com.floware.musicman.model.UserSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSessionStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private SessionProperties.Mapped settings;
+    private MappedSessionStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        settings = new SessionProperties.Mapped();
+        settings.setDirectory(directory);
+        settings.setCapacity(8);
+        settings.setSegments(2);
+        settings.setMaxAccessTokenLength(64);
+        settings.setMaxRefreshTokenLength(64);
+        store = new MappedSessionStore(settings);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void putAndGet_RoundTripsSession() {
+        UserSession session = session("access", "refresh");
+        UserSession withoutRefresh = session("access2", null);
+
+        store.put("user1", session);
+        store.put("user2", withoutRefresh);
+
+        assertEquals(session, store.get("user1"));
+        assertEquals(withoutRefresh, store.get("user2"));
+        assertNull(store.get("user3"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void put_OverwritesExistingSession() {
+        store.put("user1", session("old", "refresh"));
+        store.put("user1", session("new", "refresh"));
+
+        assertEquals("new", store.get("user1").getAccessToken());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void reopen_RestoresSessionsAfterCleanClose() throws Exception {
+        UserSession session = session("access", "refresh");
+        store.put("user1", session);
+        store.close();
+
+        store = new MappedSessionStore(settings);
+
+        assertEquals(session, store.get("user1"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void reopen_RebuildsIndexWhenNotClosedCleanly() throws Exception {
+        store.put("user1", session("access1", "refresh1"));
+        store.put("user2", session("access2", "refresh2"));
+        store.remove("user1");
+
+        // Opening again without closing leaves the dirty flag set, as a crash would
+        MappedSessionStore reopened = new MappedSessionStore(settings);
+        try {
+            assertNull(reopened.get("user1"));
+            assertEquals("access2", reopened.get("user2").getAccessToken());
+            assertEquals(1, reopened.size());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void forEachExpiry_VisitsExpiriesWithoutDecodingTokens() {
+        store.put("user1", session("access1", "refresh1"));
+        store.put("user2", session("access2", null));
+
+        Map<String, Boolean> refreshable = new HashMap<>();
+        store.forEachExpiry((spotifyId, expiresAt, canRefresh) -> {
+            assertEquals(Instant.ofEpochSecond(1_700_000_000L, 123), expiresAt);
+            refreshable.put(spotifyId, canRefresh);
+        });
+
+        assertEquals(Map.of("user1", true, "user2", false), refreshable);
+    }
+
+    @Test
+    void put_EvictsLeastRecentlyUsedWhenFull() {
+        settings.setSegments(1);
+        settings.setCapacity(3);
+        settings.setDirectory(directory.resolve("single"));
+        store.close();
+        store = assertDoesNotThrow(() -> new MappedSessionStore(settings));
+
+        store.put("user1", session("a1", "r1"));
+        store.put("user2", session("a2", "r2"));
+        store.put("user3", session("a3", "r3"));
+        store.get("user1"); // user2 is now the least recently used
+        store.put("user4", session("a4", "r4"));
+
+        assertNull(store.get("user2"));
+        assertNotNull(store.get("user1"));
+        assertNotNull(store.get("user3"));
+        assertNotNull(store.get("user4"));
+        assertEquals(3, store.size());
+        assertEquals(1, store.evictionCount());
+    }
+
+    @Test
+    void replaceIfPresent_OnlyReplacesExistingSessions() {
+        assertFalse(store.replaceIfPresent("user1", session("access", "refresh")));
+        assertNull(store.get("user1"));
+
+        store.put("user1", session("old", "refresh"));
+        assertTrue(store.replaceIfPresent("user1", session("new", "refresh")));
+        assertEquals("new", store.get("user1").getAccessToken());
+    }
+
+    @Test
+    void remove_WithExpectedSessionOnlyRemovesMatchingValue() {
+        UserSession session = session("access", "refresh");
+        store.put("user1", session);
+
+        assertFalse(store.remove("user1", session("other", "refresh")));
+        assertTrue(store.remove("user1", session("access", "refresh")));
+        assertNull(store.get("user1"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void put_RejectsValuesLongerThanRecordSlots() {
+        String longToken = "x".repeat(65);
+
+        assertThrows(IllegalArgumentException.class, () -> store.put("user1", session(longToken, "refresh")));
+        assertThrows(IllegalArgumentException.class, () -> store.put("user1", session("access", longToken)));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void randomOperations_MatchReferenceMap() throws Exception {
+        settings.setCapacity(4096);
+        settings.setSegments(4);
+        settings.setDirectory(directory.resolve("random"));
+        store.close();
+        store = new MappedSessionStore(settings);
+
+        Map<String, UserSession> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            String id = "user" + random.nextInt(500);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    UserSession session = session("access" + i, random.nextBoolean() ? "refresh" + i : null);
+                    store.put(id, session);
+                    reference.put(id, session);
+                }
+                case 1 -> {
+                    store.remove(id);
+                    reference.remove(id);
+                }
+                default -> assertEquals(reference.get(id), store.get(id));
+            }
+        }
+
+        assertEquals(reference.size(), store.size());
+        Map<String, UserSession> contents = new HashMap<>();
+        store.forEach(contents::put);
+        assertEquals(reference, contents);
+    }
+
+    private static UserSession session(String accessToken, String refreshToken) {
+        return new UserSession(accessToken, refreshToken, Instant.ofEpochSecond(1_700_000_000L, 123));
+    }
+}
@@ -0,0 +1,167 @@
+package com.floware.musicman.session;
+
+import com.floware.musicman.config.SessionProperties;
+import com.floware.musicman.model.UserSession;
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisSessionStoreTest {
+
+    private RedisServer server;
+    private RedisSessionStore replicaA;
+    private RedisSessionStore replicaB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = RedisServer.newRedisServer().start();
+        replicaA = new RedisSessionStore(settings());
+        replicaB = new RedisSessionStore(settings());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        replicaA.close();
+        replicaB.close();
+        server.stop();
+    }
+
+    @Test
+    void putAndGet_SessionIsVisibleToOtherReplicas() {
+        UserSession session = session("access", "refresh");
+        UserSession withoutRefresh = session("access2", null);
+
+        replicaA.put("user1", session);
+        replicaA.put("user2", withoutRefresh);
+
+        assertEquals(session, replicaB.get("user1"));
+        assertEquals(withoutRefresh, replicaB.get("user2"));
+        assertNull(replicaB.get("user3"));
+    }
+
+    @Test
+    void put_InvalidatesOtherReplicasNearCache() {
+        replicaA.put("user1", session("old", "refresh"));
+        assertEquals("old", replicaB.get("user1").getAccessToken()); // Now cached on B
+
+        replicaA.put("user1", session("new", "refresh"));
+
+        assertEventually(() -> "new".equals(replicaB.get("user1").getAccessToken()));
+    }
+
+    @Test
+    void remove_LogoutOnOneReplicaReachesTheOthers() {
+        replicaA.put("user1", session("access", "refresh"));
+        assertNotNull(replicaB.get("user1"));
+
+        replicaA.remove("user1");
+
+        assertEventually(() -> replicaB.get("user1") == null);
+    }
+
+    @Test
+    void replaceIfPresent_OnlyReplacesExistingSessions() {
+        assertFalse(replicaA.replaceIfPresent("user1", session("access", "refresh")));
+        assertNull(replicaB.get("user1"));
+
+        replicaA.put("user1", session("old", "refresh"));
+        assertTrue(replicaB.replaceIfPresent("user1", session("new", "refresh")));
+        assertEventually(() -> "new".equals(replicaA.get("user1").getAccessToken()));
+    }
+
+    @Test
+    void remove_WithExpectedSessionComparesAtomically() {
+        replicaA.put("user1", session("access", "refresh"));
+
+        assertFalse(replicaB.remove("user1", session("other", "refresh")));
+        assertNotNull(replicaA.get("user1"));
+        assertTrue(replicaB.remove("user1", session("access", "refresh")));
+        assertEventually(() -> replicaA.get("user1") == null);
+    }
+
+    @Test
+    void tryLockRefresh_OneReplicaAtATime() {
+        assertTrue(replicaA.tryLockRefresh("user1"));
+        assertFalse(replicaB.tryLockRefresh("user1"));
+        assertTrue(replicaB.tryLockRefresh("user2"));
+
+        replicaB.unlockRefresh("user1"); // Not B's lock, so it stays
+        assertFalse(replicaB.tryLockRefresh("user1"));
+
+        replicaA.unlockRefresh("user1");
+        assertTrue(replicaB.tryLockRefresh("user1"));
+        assertEquals(0, replicaA.size()); // Locks are not sessions
+    }
+
+    @Test
+    void addChangeListener_HearsOtherReplicasWrites() {
+        List<String> seenByA = new CopyOnWriteArrayList<>();
+        List<String> seenByB = new CopyOnWriteArrayList<>();
+        replicaA.addChangeListener(seenByA::add);
+        replicaB.addChangeListener(seenByB::add);
+
+        replicaA.put("user1", session("access", "refresh"));
+
+        assertEventually(() -> seenByB.equals(List.of("user1")));
+        assertTrue(seenByA.isEmpty()); // Own writes are not announced back
+    }
+
+    @Test
+    void forEachAndSize_SeeSessionsFromAllReplicas() {
+        replicaA.put("user1", session("access1", "refresh1"));
+        replicaB.put("user2", session("access2", null));
+
+        Map<String, UserSession> contents = new HashMap<>();
+        replicaA.forEach(contents::put);
+
+        assertEquals(Map.of("user1", session("access1", "refresh1"), "user2", session("access2", null)), contents);
+        assertEquals(2, replicaB.size());
+        assertTrue(replicaA.isShared());
+    }
+
+    @Test
+    void encode_RoundTripsThroughDecode() {
+        UserSession session = new UserSession("access", "", Instant.parse("2024-05-01T10:15:30.123456789Z"));
+
+        assertEquals(session, RedisSessionStore.decode(RedisSessionStore.encode(session)));
+        assertThrows(IllegalArgumentException.class, () -> RedisSessionStore.encode(session("bad\ntoken", null)));
+    }
+
+    private SessionProperties.Redis settings() {
+        SessionProperties.Redis settings = new SessionProperties.Redis();
+        settings.setUri("redis://" + server.getHost() + ":" + server.getBindPort());
+        settings.setSizeRefreshInterval(Duration.ZERO);
+        return settings;
+    }
+
+    private static void assertEventually(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!Objects.equals(condition.get(), true)) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+
+    private static UserSession session(String accessToken, String refreshToken) {
+        return new UserSession(accessToken, refreshToken, Instant.ofEpochSecond(1_700_000_000L));
+    }
+}
@@ -38,6 +38,37 @@ const spotifyApi = {
         return response.data;
     },
 
+    // Each type's results arrive as soon as Spotify returns them; call the returned function to stop
+    streamSearch(
+        query: string,
+        onSection: (section: SearchResult) => void,
+        onDone: () => void,
+        onError: () => void,
+        types: ('album' | 'artist' | 'track')[] = ['album', 'artist', 'track'],
+        limit: number = 20
+    ): () => void {
+        const params = new URLSearchParams({ query, type: types.join(','), limit: String(limit) });
+        const source = new EventSource(`${apiClient.defaults.baseURL}/spotify/search/stream?${params}`, {
+            withCredentials: true
+        });
+        types.forEach(type => source.addEventListener(type, event => {
+            onSection(JSON.parse((event as MessageEvent).data));
+        }));
+        source.addEventListener('failed', event => {
+            console.warn('Search type unavailable', JSON.parse((event as MessageEvent).data));
+        });
+        source.addEventListener('done', () => {
+            source.close();
+            onDone();
+        });
+        // EventSource reconnects on its own, which would run the whole search again
+        source.onerror = () => {
+            source.close();
+            onError();
+        };
+        return () => source.close();
+    },
+
     async getAlbum(id: string): Promise<AlbumDetails> {
         const response = await apiClient.get<AlbumDetails>(`/spotify/albums/${id}`);
         return response.data;
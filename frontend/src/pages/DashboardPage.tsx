@@ -10,6 +10,7 @@ import { useNavigate, useSearchParams } from 'react-router-dom';
 
 function DashboardPage() {
   const searchResultsRef = useRef<HTMLDivElement>(null);
+  const stopSearchRef = useRef<(() => void) | null>(null);
   const { isAuthenticated, spotifyId, logout } = useAuth();
   const [artists, setArtists] = useState<Artist[]>([]);
   const [loading, setLoading] = useState(true);
@@ -56,28 +57,43 @@ function DashboardPage() {
     }
   }, []);
 
-  const handleSearch = async (query: string) => {
+  // Stops the search still streaming when the page goes away
+  useEffect(() => () => stopSearchRef.current?.(), []);
+
+  const handleSearch = (query: string) => {
+    stopSearchRef.current?.();
     if (query.trim() === '') {
       setSearchResults(null);
       return;
     }
     navigate(`/dashboard?search=${encodeURIComponent(query)}`);
-    try {
-      setLoading(true);
-      const data = await spotifyApi.search(query);
-      setSearchResults(data);
+    setLoading(true);
+    setError(null);
+    setSearchResults({});
 
-      setTimeout(() => {
-        searchResultsRef.current?.scrollIntoView({
-          behavior: 'smooth',
-          block: 'start'
-        });
-      }, 100);
-    } catch (err) {
-      setError(err instanceof Error ? err.message : 'Search failed');
-    } finally {
-      setLoading(false);
-    }
+    // Types are shown as they arrive; the first one ends the spinner and scrolls the results into view
+    let first = true;
+    stopSearchRef.current = spotifyApi.streamSearch(
+      query,
+      section => {
+        setSearchResults(current => ({ ...current, ...section }));
+        if (first) {
+          first = false;
+          setLoading(false);
+          setTimeout(() => {
+            searchResultsRef.current?.scrollIntoView({
+              behavior: 'smooth',
+              block: 'start'
+            });
+          }, 100);
+        }
+      },
+      () => setLoading(false),
+      () => {
+        setError('Search failed');
+        setLoading(false);
+      }
+    );
   };
 
   if (!isAuthenticated) {
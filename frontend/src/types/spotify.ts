@@ -2,6 +2,7 @@ export interface Artist {
   id: string;
   name: string;
   genre: string;
+  genres?: string[];
   imageUrl: string;
   popularity: number;
 }